@@ -11,19 +11,27 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
 import org.openstreetmap.josm.plugins.kartaview.util.Util;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.plugins.kartaview.argument.CacheSettings;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
 import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
 import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
 import org.openstreetmap.josm.plugins.kartaview.entity.OsmElementType;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
@@ -32,6 +40,7 @@ import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
 import org.openstreetmap.josm.plugins.kartaview.handler.OsmDataHandler;
 import org.openstreetmap.josm.plugins.kartaview.handler.PhotoHandler;
+import com.grab.josm.common.argument.BoundingBox;
 import com.grab.josm.common.thread.ThreadPool;
 
 
@@ -51,12 +60,27 @@ public final class DataSet {
     /** the photos from the current map view; available only for high zoom levels */
     private PhotoDataSet photoDataSet = new PhotoDataSet();
 
-    /** the detections from the current map view; available only for high zoom levels */
-    private List<Detection> detections = new ArrayList<>();
+    /** the detections from the current map view by identifier, in display order; available only for high zoom levels */
+    private Map<Long, Detection> detections = new LinkedHashMap<>();
+
+    /** the detections from the current map view as a list; null if it needs to be built from the detections */
+    private List<Detection> detectionList;
+
+    /** the positions of the detections of the selected sequence, by identifier */
+    private final DetectionIndex sequenceDetectionIndex = new DetectionIndex();
 
     /** the clusters from the current map view; available only for high zoom levels */
     private List<Cluster> clusters = new ArrayList<>();
 
+    /** the area for which the high zoom level data was loaded; null if the data does not cover a single area */
+    private BoundingBox highZoomLevelArea;
+
+    /** true if the high zoom level data was taken from the cache and it is being revalidated */
+    private boolean isHighZoomLevelDataStale;
+
+    /** the search filter with which the high zoom level data was loaded; null if it is not known */
+    private SearchFilter highZoomLevelFilter;
+
     /** the currently selected photo */
     private Photo selectedPhoto;
 
@@ -73,7 +97,10 @@ public final class DataSet {
     private Photo nearyPhotosStartPhoto;
     private Collection<Photo> nearbyPhotos;
 
-    /** the currently downloaded OSM matched data */
+    /** the selected photo whose nearby photos were preloaded; the nearby photos are preloaded once per selection */
+    private Photo preloadedSelectedPhoto;
+
+    /** the OSM elements matched by the currently downloaded data */
     private List<OsmElement> matchedData;
 
     /** true if the currently selected elements are a result of a remote selection action */
@@ -98,10 +125,13 @@ public final class DataSet {
      */
     public synchronized void clear(final boolean clearSelection) {
         this.segments = new ArrayList<>();
-        this.detections = new ArrayList<>();
+        setDetections(new LinkedHashMap<>());
         this.photoDataSet = new PhotoDataSet();
         this.clusters = new ArrayList<>();
-        this.matchedData = new ArrayList<>();
+        this.highZoomLevelArea = null;
+        this.isHighZoomLevelDataStale = false;
+        this.highZoomLevelFilter = null;
+        this.matchedData = null;
         if (clearSelection) {
             clearSelection();
         }
@@ -115,6 +145,7 @@ public final class DataSet {
         this.selectedPhoto = null;
         this.nearbyPhotos = new ArrayList<>();
         this.nearyPhotosStartPhoto = null;
+        this.preloadedSelectedPhoto = null;
         this.selectedSequence = null;
         this.selectedCluster = null;
         this.matchedData = null;
@@ -126,10 +157,13 @@ public final class DataSet {
      * Clears the high zoom level data (photo locations and detections) including selected items.
      */
     public synchronized void cleaHighZoomLevelData() {
-        this.detections = new ArrayList<>();
+        setDetections(new LinkedHashMap<>());
         this.photoDataSet = new PhotoDataSet();
         this.clusters = new ArrayList<>();
-        this.matchedData = new ArrayList<>();
+        this.highZoomLevelArea = null;
+        this.isHighZoomLevelDataStale = false;
+        this.highZoomLevelFilter = null;
+        this.matchedData = null;
         clearSelection();
     }
 
@@ -140,6 +174,112 @@ public final class DataSet {
      */
     public synchronized void updateLowZoomLevelData(final List<Segment> segments) {
         this.segments = segments;
+        this.highZoomLevelArea = null;
+        this.isHighZoomLevelDataStale = false;
+        this.highZoomLevelFilter = null;
+    }
+
+    /**
+     * Sets the area for which the high zoom level data was loaded. Should be called after the high zoom level data was
+     * replaced.
+     *
+     * @param highZoomLevelArea a {@code BoundingBox}; null if the data was loaded for several areas
+     */
+    public synchronized void setHighZoomLevelArea(final BoundingBox highZoomLevelArea) {
+        this.highZoomLevelArea = highZoomLevelArea;
+    }
+
+    /**
+     * Sets the search filter with which the high zoom level data was loaded. Should be called after the high zoom
+     * level data was replaced.
+     *
+     * @param highZoomLevelFilter a {@code SearchFilter}; null if the data was loaded with several filters
+     */
+    public synchronized void setHighZoomLevelFilter(final SearchFilter highZoomLevelFilter) {
+        this.highZoomLevelFilter = highZoomLevelFilter;
+    }
+
+    /**
+     * Marks the high zoom level data as stale or fresh. The data is stale while the cached data of a map view is
+     * displayed and the data is revalidated with the services.
+     *
+     * @param isHighZoomLevelDataStale true if the data is stale, false otherwise
+     */
+    public synchronized void setHighZoomLevelDataStale(final boolean isHighZoomLevelDataStale) {
+        this.isHighZoomLevelDataStale = isHighZoomLevelDataStale;
+    }
+
+    /**
+     * Returns a copy of the current high zoom level data. The copy is not affected by the later changes of the data.
+     *
+     * @return a {@code HighZoomResultSet}
+     */
+    public synchronized HighZoomResultSet highZoomLevelData() {
+        return new HighZoomResultSet(photoDataSet, getDetections(), clusters).copy();
+    }
+
+    /**
+     * Returns a copy of the current high zoom level data if it is up to date and it was loaded for the given area with
+     * the given filter.
+     *
+     * @param area the area of the data
+     * @param filter the search filter with which the data was loaded
+     * @return a {@code HighZoomResultSet}; null if the current data is stale or it belongs to another area or filter
+     */
+    public synchronized HighZoomResultSet highZoomLevelData(final BoundingBox area, final SearchFilter filter) {
+        return !isHighZoomLevelDataStale && area.equals(highZoomLevelArea) && filter.equals(highZoomLevelFilter)
+                ? highZoomLevelData() : null;
+    }
+
+    /**
+     * Merges the data loaded for the newly exposed parts of the given area with the current high zoom level data. The
+     * elements outside the retained area are removed; since the retained area is larger than the loaded area, the
+     * elements that are only slightly out of view are kept, and a short pan back does not make them disappear. The
+     * detections and clusters are identified by their identifiers, a loaded element replaces the displayed one.
+     *
+     * @param resultSet a {@code HighZoomResultSet} containing the data of the newly exposed parts of the area
+     * @param area the area for which the data is loaded after the merge
+     * @param retainedArea the area outside which the elements are removed; it should contain the loaded area
+     */
+    public synchronized void mergeHighZoomLevelData(final HighZoomResultSet resultSet, final BoundingBox area,
+            final BoundingBox retainedArea) {
+        clusters = new ArrayList<>(merge(clusters, resultSet.getClusters(),
+                cluster -> BoundingBoxUtil.contains(retainedArea, cluster.getPoint()), Cluster::getId).values());
+        setDetections(merge(detections != null ? detections.values() : null, resultSet.getDetections(),
+                detection -> BoundingBoxUtil.contains(retainedArea, detection.getPoint()), Detection::getId));
+        // the page range of the exposed parts does not describe the whole area, only their photos are merged
+        updatePhotoData(resultSet.getPhotoDataSet() != null
+                ? new PhotoDataSet(resultSet.getPhotoDataSet().getPhotos()) : null,
+                photo -> BoundingBoxUtil.contains(retainedArea, photo.getPoint()));
+        highZoomLevelArea = area;
+    }
+
+    private static <T> Map<Long, T> merge(final Collection<T> items, final List<T> newItems,
+            final Predicate<T> isRetained, final Function<T, Long> identifier) {
+        final Map<Long, T> result = new LinkedHashMap<>();
+        if (items != null) {
+            items.stream().filter(isRetained).forEach(item -> result.put(identifier.apply(item), item));
+        }
+        if (newItems != null) {
+            newItems.stream().filter(isRetained).forEach(item -> result.put(identifier.apply(item), item));
+        }
+        return result;
+    }
+
+    private static Map<Long, Detection> detectionsById(final List<Detection> detections) {
+        Map<Long, Detection> result = null;
+        if (detections != null) {
+            result = new LinkedHashMap<>();
+            for (final Detection detection : detections) {
+                result.putIfAbsent(detection.getId(), detection);
+            }
+        }
+        return result;
+    }
+
+    private void setDetections(final Map<Long, Detection> detections) {
+        this.detections = detections;
+        detectionList = null;
     }
 
     /**
@@ -151,7 +291,7 @@ public final class DataSet {
      */
     public synchronized void updateHighZoomLevelDetectionData(final List<Detection> detections,
             final boolean updateSelection) {
-        this.detections = detections;
+        setDetections(detectionsById(detections));
         if (updateSelection && selectedDetection != null && !selectedDetectionBelongsToSelectedCluster() &&
                 selectedCluster != null) {
             selectedDetection = detections != null ?
@@ -178,50 +318,77 @@ public final class DataSet {
     /**
      * Updates the photo location data with a new list of photos.
      *
-     * @param photoDataSet a {@code PhotoDataSet} containing a new list of {@code Photo}s
+     * @param photoDataSet a {@code PhotoDataSet} containing a new list of {@code Photo}s; the photos are merged with
+     * the existing ones, and the page range, if any, replaces the current one
      */
     public synchronized void updateHighZoomLevelPhotoData(final PhotoDataSet photoDataSet) {
-        revalidatePhotosToBeDrawn(photoDataSet);
+        updatePhotoData(photoDataSet, photo -> Util.isPointInActiveArea(photo.getPoint()));
+    }
+
+    private void updatePhotoData(final PhotoDataSet photoDataSet, final Predicate<Photo> isRetained) {
+        revalidatePhotosToBeDrawn(photoDataSet, isRetained);
+        if (photoDataSet != null && photoDataSet.getPage() != null) {
+            // the loaded page range is kept, the next or previous pages are loaded relative to it
+            this.photoDataSet = new PhotoDataSet(this.photoDataSet.getPhotos(), photoDataSet.getPage(),
+                    photoDataSet.getLastPage(), photoDataSet.getTotalItems());
+        }
         if (hasSelectedPhoto() && hasNearbyPhotos()) {
             selectNearbyPhotos(getSelectedPhoto());
-            ThreadPool.getInstance().execute(() -> {
-                final CacheSettings cacheSettings = PreferenceManager.getInstance().loadCacheSettings();
-                PhotoHandler.getInstance()
-                .loadPhotos(nearbyPhotos(cacheSettings.getPrevNextCount(), cacheSettings.getNearbyCount()));
-            });
+            preloadNearbyPhotos();
+        }
+    }
+
+    /**
+     * Loads the images of the photos near the selected photo to the cache, in the background. The images are loaded
+     * once per selected photo; if there are no nearby photos yet, they are loaded when the photos arrive.
+     */
+    public void preloadNearbyPhotos() {
+        ThreadPool.getInstance().execute(() -> {
+            final Set<Photo> photos = photosToPreload();
+            if (!photos.isEmpty()) {
+                PhotoHandler.getInstance().loadPhotos(photos);
+            }
+        });
+    }
+
+    private synchronized Set<Photo> photosToPreload() {
+        Set<Photo> result = Collections.emptySet();
+        if (selectedPhoto != null && !selectedPhoto.equals(preloadedSelectedPhoto)) {
+            final CacheSettings cacheSettings = PreferenceManager.getInstance().loadCacheSettings();
+            result = nearbyPhotos(cacheSettings.getPrevNextCount(), cacheSettings.getNearbyCount());
+            if (!result.isEmpty()) {
+                preloadedSelectedPhoto = selectedPhoto;
+            }
         }
+        return result;
     }
 
     /**
-     * Eliminates the photos which are not in the active area and adds to the PhotoDataSet the photos which are not
-     * represented in the map.
+     * Eliminates the photos which are not retained and adds to the PhotoDataSet the photos which are not represented
+     * in the map.
      *
      * @param currentPhotoDataSet - the photos to be added in the map after an action
+     * @param isRetained - tells if a displayed photo is kept; the photos outside the active or the retained area are
+     * removed
      */
-    private void revalidatePhotosToBeDrawn(final PhotoDataSet currentPhotoDataSet) {
+    private void revalidatePhotosToBeDrawn(final PhotoDataSet currentPhotoDataSet,
+            final Predicate<Photo> isRetained) {
         List<Photo> photosToBeDrawn = new ArrayList<>();
         if (currentPhotoDataSet != null && currentPhotoDataSet.getPhotos() != null) {
+            final Set<Photo> drawnPhotos = this.photoDataSet != null && this.photoDataSet.hasItems()
+                    ? new HashSet<>(this.photoDataSet.getPhotos()) : Collections.emptySet();
             for (final Photo photo : currentPhotoDataSet.getPhotos()) {
-                if (!isPhotoDrawn(photo, this.photoDataSet)) {
+                if (photo != null && !drawnPhotos.contains(photo)) {
                     photosToBeDrawn.add(photo);
                 }
             }
         }
         final List<Photo> photosOutOfArea =
-                this.photoDataSet.getPhotos().stream().filter(photo -> !Util.isPointInActiveArea(photo.getPoint()))
-                        .collect(Collectors.toList());
+                this.photoDataSet.getPhotos().stream().filter(isRetained.negate()).collect(Collectors.toList());
         this.photoDataSet.removePhotos(photosOutOfArea);
         this.photoDataSet.addPhotos(photosToBeDrawn);
     }
 
-    private boolean isPhotoDrawn(final Photo photo, final PhotoDataSet previousPhotoDataSet) {
-        boolean isDrawn = false;
-        if (photo != null && previousPhotoDataSet != null && previousPhotoDataSet.hasItems()) {
-            isDrawn = previousPhotoDataSet.getPhotos().contains(photo);
-        }
-        return isDrawn;
-    }
-
     /**
      * Returns the photo that is located near to the given point. The method returns null if there is no nearby item.
      *
@@ -231,7 +398,7 @@ public final class DataSet {
     public Photo nearbyPhoto(final Point point) {
         Photo photo = null;
         if (selectedCluster != null && selectedCluster.hasPhotos()) {
-            photo = Util.nearbyPhoto(selectedCluster.getPhotos(), point);
+            photo = nearbyDisplayedPhoto(selectedCluster.getPhotos(), point);
         }
         if (photo == null && selectedSequence != null && selectedSequence.hasPhotos()) {
             photo = Util.nearbyPhoto(selectedSequence.getPhotos(), point);
@@ -241,11 +408,21 @@ public final class DataSet {
             }
         }
         if (photo == null && photoDataSet != null && photoDataSet.hasItems()) {
-            photo = Util.nearbyPhoto(photoDataSet.getPhotos(), point);
+            photo = nearbyDisplayedPhoto(photoDataSet.getPhotos(), point);
         }
         return photo;
     }
 
+    private Photo nearbyDisplayedPhoto(final List<Photo> photos, final Point point) {
+        // only the photos that are drawn (cell representatives and the selected photo) can be selected
+        final List<Photo> displayedPhotos =
+                new ArrayList<>(Util.declutterPhotos(MainApplication.getMap().mapView, photos).keySet());
+        if (selectedPhoto != null && !displayedPhotos.contains(selectedPhoto) && photos.contains(selectedPhoto)) {
+            displayedPhotos.add(0, selectedPhoto);
+        }
+        return Util.nearbyPhoto(displayedPhotos, point);
+    }
+
     /**
      * Returns the photos that are either previous/next or close to the selected photo.
      *
@@ -289,7 +466,7 @@ public final class DataSet {
             detection = Util.nearbyDetection(selectedSequence.getDetections(), point);
         }
         if (detection == null && detections != null) {
-            detection = Util.nearbyDetection(detections, point);
+            detection = Util.nearbyDetection(getDetections(), point);
         }
         return detection;
     }
@@ -530,14 +707,44 @@ public final class DataSet {
         return lastPhoto;
     }
 
+    /**
+     * Removes the detections and clusters having the given identifiers from the high zoom level data.
+     *
+     * @param detectionIds the identifiers of the detections to be removed
+     * @param clusterIds the identifiers of the clusters to be removed
+     */
+    public synchronized void removeHighZoomLevelData(final Set<Long> detectionIds, final Set<Long> clusterIds) {
+        if (detections != null && !detectionIds.isEmpty()) {
+            detectionIds.forEach(detections::remove);
+            detectionList = null;
+        }
+        if (clusters != null && !clusterIds.isEmpty()) {
+            clusters = clusters.stream().filter(cluster -> !clusterIds.contains(cluster.getId()))
+                    .collect(Collectors.toList());
+        }
+    }
+
     /**
      * Removes the specified detection from the list of detections.
      *
      * @param detection a {@code Detection}s to be removed
      */
-    public void removeDetection(final Detection detection) {
-        if (hasDetections()) {
-            detections.remove(detection);
+    public synchronized void removeDetection(final Detection detection) {
+        if (hasDetections() && detections.remove(detection.getId()) != null) {
+            detectionList = null;
+        }
+    }
+
+    /**
+     * Adds the specified detection to the list of detections, if the list does not contain it already.
+     *
+     * @param detection a {@code Detection}
+     */
+    public synchronized void addDetection(final Detection detection) {
+        if (detections != null) {
+            // a detection already present keeps its position
+            detections.put(detection.getId(), detection);
+            detectionList = null;
         }
     }
 
@@ -578,27 +785,26 @@ public final class DataSet {
     }
 
     /**
-     * Updates the selected detection with a newer version of the detection. The method removes the old detection from
-     * the data store (selected sequence and detections list) and adds the new version. If the new detection is null
-     * then the selected detection will be removed.
+     * Replaces a detection with a newer version of the detection. The detection is replaced in place in the data store
+     * (detections list and selected sequence), and also the selection is updated if the detection is selected.
      *
      * @param detection a {@code Detection} object
+     * @return true if the data store contained the detection
      */
-    public synchronized void updateSelectedDetection(final Detection detection) {
-        final Detection oldDetection = getSelectedDetection();
-        setSelectedDetection(detection);
-        if (hasSelectedSequence()) {
-            selectedSequence.getDetections().remove(oldDetection);
-            if (detection != null) {
-                selectedSequence.getDetections().add(detection);
-            }
+    public synchronized boolean updateDetection(final Detection detection) {
+        boolean result = false;
+        if (detection.equals(selectedDetection)) {
+            setSelectedDetection(detection);
+            result = true;
         }
-        if (hasDetections()) {
-            detections.remove(oldDetection);
-            if (detection != null) {
-                detections.add(detection);
-            }
+        if (hasSelectedSequence() && selectedSequence.getDetections() != null) {
+            result = sequenceDetectionIndex.replace(selectedSequence.getDetections(), detection) || result;
         }
+        if (hasDetections() && detections.replace(detection.getId(), detection) != null) {
+            detectionList = null;
+            result = true;
+        }
+        return result;
     }
 
     /**
@@ -628,6 +834,23 @@ public final class DataSet {
         return segments;
     }
 
+    /**
+     * Returns the area for which the high zoom level data was loaded.
+     *
+     * @return a {@code BoundingBox}; null if there is no high zoom level data or it was loaded for several areas
+     */
+    public BoundingBox getHighZoomLevelArea() {
+        return highZoomLevelArea;
+    }
+
+    public boolean isHighZoomLevelDataStale() {
+        return isHighZoomLevelDataStale;
+    }
+
+    public SearchFilter getHighZoomLevelFilter() {
+        return highZoomLevelFilter;
+    }
+
     /**
      * Returns the photo data set.
      *
@@ -638,12 +861,16 @@ public final class DataSet {
     }
 
     /**
-     * Returns the list of detections.
+     * Returns the list of detections. The list is built once after each change of the detections, and it is not
+     * affected by the later changes.
      *
      * @return a list of {@code Detection}
      */
-    public List<Detection> getDetections() {
-        return detections;
+    public synchronized List<Detection> getDetections() {
+        if (detectionList == null && detections != null) {
+            detectionList = Collections.unmodifiableList(new ArrayList<>(detections.values()));
+        }
+        return detectionList;
     }
 
     /**
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+
+
+/**
+ * Indexes the positions of the detections of a list by detection identifier, in order to replace a single detection
+ * without searching the list. The index is built when it is first used, and it is rebuilt if the list was replaced or
+ * its size changed since then.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class DetectionIndex {
+
+    /** the indexed list; null if the index needs to be rebuilt */
+    private List<Detection> indexedDetections;
+    private int indexedSize;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+
+    /**
+     * Replaces the detection having the same identifier as the given detection.
+     *
+     * @param detections the indexed list
+     * @param detection the new version of the detection
+     * @return true if the list contained the detection
+     */
+    boolean replace(final List<Detection> detections, final Detection detection) {
+        final Integer position = position(detections, detection.getId());
+        if (position != null) {
+            detections.set(position, detection);
+        }
+        return position != null;
+    }
+
+    private Integer position(final List<Detection> detections, final Long detectionId) {
+        if (detections != indexedDetections || detections.size() != indexedSize) {
+            rebuild(detections);
+        }
+        Integer result = positions.get(detectionId);
+        if (result != null && !detectionId.equals(detections.get(result).getId())) {
+            // the list was modified in place since the index was built
+            rebuild(detections);
+            result = positions.get(detectionId);
+        }
+        return result;
+    }
+
+    private void rebuild(final List<Detection> detections) {
+        positions.clear();
+        for (int i = 0; i < detections.size(); i++) {
+            positions.putIfAbsent(detections.get(i).getId(), i);
+        }
+        indexedDetections = detections;
+        indexedSize = detections.size();
+    }
+}
@@ -7,9 +7,13 @@
 package org.openstreetmap.josm.plugins.kartaview;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.SwingUtilities;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.photo.PhotoDetailsDialog;
-import org.openstreetmap.josm.plugins.kartaview.gui.layer.KartaViewLayer;
+import org.openstreetmap.josm.plugins.kartaview.gui.layer.RepaintScheduler;
 import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
 import org.openstreetmap.josm.plugins.kartaview.util.Util;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
@@ -21,25 +25,32 @@ import org.openstreetmap.josm.gui.progress.swing.PleaseWaitProgressMonitor;
 import org.openstreetmap.josm.io.OsmTransferException;
 import org.openstreetmap.josm.plugins.kartaview.argument.MapViewSettings;
 import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
 import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
 import org.openstreetmap.josm.plugins.kartaview.handler.ServiceHandler;
+import org.openstreetmap.josm.plugins.kartaview.service.BaseService;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestCancellation;
+import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
 import org.openstreetmap.josm.plugins.kartaview.service.photo.Paging;
 import org.xml.sax.SAXException;
 import com.grab.josm.common.argument.BoundingBox;
+import com.grab.josm.common.thread.ThreadPool;
 
 
 /**
- * Downloads the next or previous set of photo location results.
+ * Downloads the next or previous set of photo location results. If the automatic paging is enabled, a set contains
+ * several pages; the photos of each page are displayed as soon as the page was downloaded.
  *
  * @author beataj
  * @version $Revision$
  */
 public class DownloadPhotosTask extends PleaseWaitRunnable {
 
-    private static final int SLEEP = 1000;
+    /** the currently running download; completed with the downloaded photos, or cancelled by the user */
+    private CompletableFuture<PhotoDataSet> download;
 
-    /** the currently running download thread */
-    private Thread downloadThread;
+    /** aborts the requests of the download if the user cancels the task */
+    private final RequestCancellation cancellation = new RequestCancellation();
 
     /** Flag indicated that user ask for cancel this task */
     private boolean canceled;
@@ -66,10 +77,10 @@ public class DownloadPhotosTask extends PleaseWaitRunnable {
     @Override
     protected void cancel() {
         synchronized (this) {
-            if (downloadThread != null) {
-                downloadThread.interrupt();
+            if (download != null) {
+                download.cancel(true);
             }
-            downloadThread = null;
+            cancellation.cancel();
             canceled = true;
             ((PleaseWaitProgressMonitor) progressMonitor).close();
         }
@@ -89,8 +100,7 @@ public class DownloadPhotosTask extends PleaseWaitRunnable {
                             && !PreferenceManager.getInstance().loadAutoplayStartedFlag()) {
                         PhotoDetailsDialog.getInstance().enableClosestPhotoButton(true);
                     }
-                    KartaViewLayer.getInstance().invalidate();
-                    MainApplication.getMap().repaint();
+                    RepaintScheduler.getInstance().requestRepaint();
                 });
             }
         }
@@ -108,24 +118,55 @@ public class DownloadPhotosTask extends PleaseWaitRunnable {
                 final String taskTitle = loadNextResults ? GuiConfig.getInstance().getInfoDownloadNextPhotosTitle()
                         : GuiConfig.getInstance().getInfoDownloadPreviousPhotosTitle();
                 this.progressMonitor.indeterminateSubTask(taskTitle);
-                downloadThread = new Thread(() -> {
-                    if (DataSet.getInstance().hasPhotos()) {
-                        int page = DataSet.getInstance().getPhotoDataSet().getPage();
-                        page = loadNextResults ? page + 1 : page - 1;
-                        final SearchFilter listFilter = PreferenceManager.getInstance().loadSearchFilter();
-                        final BoundingBox bbox = BoundingBoxUtil.currentBoundingBox();
-                        photoDataSet = ServiceHandler.getInstance().listNearbyPhotos(bbox, listFilter,
-                                new Paging(page, KartaViewServiceConfig.getInstance().getNearbyPhotosMaxItems()));
+                final CompletableFuture<PhotoDataSet> photosDownload = new CompletableFuture<>();
+                synchronized (this) {
+                    download = photosDownload;
+                }
+                ThreadPool.getInstance().execute(() -> {
+                    try {
+                        photosDownload.complete(BaseService.executeCancellable(cancellation, this::downloadPhotos));
+                    } catch (final ServiceException | RuntimeException e) {
+                        photosDownload.completeExceptionally(e);
                     }
                 });
-                downloadThread.start();
-                waitForCompletion();
+                waitForCompletion(photosDownload);
             } finally {
                 progressMonitor.finishTask();
             }
         }
     }
 
+    private PhotoDataSet downloadPhotos() {
+        PhotoDataSet result = null;
+        final PhotoDataSet currentPhotoDataSet = DataSet.getInstance().getPhotoDataSet();
+        if (DataSet.getInstance().hasPhotos() && currentPhotoDataSet.getPage() != null) {
+            final int itemsPerPage = KartaViewServiceConfig.getInstance().getNearbyPhotosMaxItems();
+            final int setPages = KartaViewServiceConfig.getInstance().isNearbyPhotosAutoPaging()
+                    ? Math.max(1, KartaViewServiceConfig.getInstance().getNearbyPhotosMaxTotalItems() / itemsPerPage)
+                    : 1;
+            final int firstPage = loadNextResults ? currentPhotoDataSet.getLastPage() + 1
+                    : Math.max(1, currentPhotoDataSet.getPage() - setPages);
+            final int lastPage = loadNextResults ? firstPage + setPages - 1 : currentPhotoDataSet.getPage() - 1;
+            final SearchFilter listFilter = PreferenceManager.getInstance().loadSearchFilter();
+            final BoundingBox bbox = BoundingBoxUtil.currentBoundingBox();
+            result = ServiceHandler.getInstance().listNearbyPhotos(bbox, listFilter,
+                    new Paging(firstPage, itemsPerPage), (lastPage - firstPage + 1) * itemsPerPage,
+                    this::updatePhotos);
+        }
+        return result;
+    }
+
+    private void updatePhotos(final List<Photo> photos) {
+        SwingUtilities.invokeLater(() -> {
+            synchronized (this) {
+                if (!canceled) {
+                    DataSet.getInstance().updateHighZoomLevelPhotoData(new PhotoDataSet(photos));
+                    RepaintScheduler.getInstance().requestRepaint();
+                }
+            }
+        });
+    }
+
     /**
      * Verifies if the photo download is allowed or not. A new photo data set
      * download is allowed in the following cases:
@@ -145,13 +186,11 @@ public class DownloadPhotosTask extends PleaseWaitRunnable {
         return result;
     }
 
-    private void waitForCompletion() {
-        while (downloadThread != null && downloadThread.isAlive()) {
-            try {
-                Thread.sleep(SLEEP);
-            } catch (final InterruptedException e) {
-                // no need to handle this; if the user cancels the action, exception will occur
-            }
+    private void waitForCompletion(final CompletableFuture<PhotoDataSet> photosDownload) {
+        try {
+            photoDataSet = photosDownload.join();
+        } catch (final CancellationException | CompletionException e) {
+            // no need to handle this; if the user cancels the action, exception will occur
         }
     }
 }
\ No newline at end of file
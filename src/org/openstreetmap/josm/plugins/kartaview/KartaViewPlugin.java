@@ -8,13 +8,17 @@ package org.openstreetmap.josm.plugins.kartaview;
 
 import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import javax.swing.JMenuItem;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.detection.DetectionDetailsDialog;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.filter.DetectionTypeContent;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.photo.PhotoDetailsDialog;
 import org.openstreetmap.josm.plugins.kartaview.gui.layer.KartaViewLayer;
+import org.openstreetmap.josm.plugins.kartaview.gui.layer.RepaintScheduler;
 import org.openstreetmap.josm.plugins.kartaview.gui.preferences.PreferenceEditor;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.IconConfig;
@@ -37,9 +41,12 @@ import org.openstreetmap.josm.plugins.kartaview.argument.AutoplayAction;
 import org.openstreetmap.josm.plugins.kartaview.argument.PhotoSize;
 import org.openstreetmap.josm.plugins.kartaview.argument.Projection;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionBuilder;
 import org.openstreetmap.josm.plugins.kartaview.entity.EditStatus;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.handler.DataRefreshScheduler;
 import org.openstreetmap.josm.plugins.kartaview.handler.DataUpdateHandler;
+import org.openstreetmap.josm.plugins.kartaview.handler.PanPrefetchHandler;
 import org.openstreetmap.josm.plugins.kartaview.handler.SelectionHandler;
 import org.openstreetmap.josm.plugins.kartaview.handler.ServiceHandler;
 import org.openstreetmap.josm.plugins.kartaview.observer.DetectionChangeObserver;
@@ -61,12 +68,16 @@ import com.grab.josm.common.thread.ThreadPool;
 public class KartaViewPlugin extends Plugin
         implements LayerChangeListener, LocationObserver, ZoomChangeListener, DetectionChangeObserver {
 
-    private static final int SEARCH_DELAY = 1000;
-
     private JMenuItem layerActivatorMenuItem;
     private final SelectionHandler selectionHandler;
     private final PreferenceChangedHandler preferenceChangedHandler;
-    private Timer zoomTimer;
+
+    /** the latest not reconciled edit of the edited detections, by detection identifier; used only from the EDT */
+    private final Map<Long, Long> pendingEdits = new HashMap<>();
+    private long lastEdit;
+
+    /** the detections removed from the map view by an edit, by identifier; used only from the EDT */
+    private final Set<Long> removedDetectionIds = new HashSet<>();
 
 
     /**
@@ -200,8 +211,7 @@ public class KartaViewPlugin extends Plugin
                 && !MainApplication.getMap().mapView.getRealBounds().contains(selectedPhoto.getPoint())) {
             SwingUtilities.invokeLater(() -> {
                 MainApplication.getMap().mapView.zoomTo(selectedPhoto.getPoint());
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
             });
         }
     }
@@ -211,16 +221,8 @@ public class KartaViewPlugin extends Plugin
 
     @Override
     public void zoomChanged() {
-        if (zoomTimer != null && zoomTimer.isRunning()) {
-            zoomTimer.restart();
-        } else {
-            if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
-                zoomTimer = new Timer(SEARCH_DELAY,
-                        event -> ThreadPool.getInstance().execute(() -> new DataUpdateHandler().updateData(false)));
-                zoomTimer.setRepeats(false);
-                zoomTimer.start();
-            }
-        }
+        PanPrefetchHandler.getInstance().viewChanged();
+        DataRefreshScheduler.getInstance().viewChanged();
     }
 
 
@@ -228,33 +230,57 @@ public class KartaViewPlugin extends Plugin
 
     @Override
     public void editDetection(final EditStatus editStatus, final String text) {
-        ThreadPool.getInstance().execute(() -> {
-            ServiceHandler.getInstance().updateDetection(DataSet.getInstance().getSelectedDetection().getId(),
-                    editStatus, text);
-            final Detection changedDetection = ServiceHandler.getInstance()
-                    .retrieveDetection(DataSet.getInstance().getSelectedDetection().getId());
-            SwingUtilities.invokeLater(() -> updateDetection(changedDetection));
-        });
+        final Detection detection = DataSet.getInstance().getSelectedDetection();
+        if (detection != null) {
+            // the edit is displayed at once, and it is reconciled with the detection returned by the service later
+            final long edit = ++lastEdit;
+            pendingEdits.put(detection.getId(), edit);
+            final DetectionBuilder builder = new DetectionBuilder(detection);
+            builder.editStatus(editStatus);
+            final Detection editedDetection = builder.build();
+            updateDetection(editedDetection);
+            ThreadPool.getInstance().execute(() -> {
+                final boolean isUpdated =
+                        ServiceHandler.getInstance().updateDetection(detection.getId(), editStatus, text);
+                final Detection changedDetection = ServiceHandler.getInstance().retrieveDetection(detection.getId());
+                final Detection reconciledDetection =
+                        changedDetection != null ? changedDetection : (isUpdated ? editedDetection : detection);
+                SwingUtilities.invokeLater(() -> reconcileDetection(edit, reconciledDetection));
+            });
+        }
+    }
+
+    private void reconcileDetection(final long edit, final Detection detection) {
+        // if the detection was edited again, the later edit is reconciled
+        if (pendingEdits.remove(detection.getId(), edit)) {
+            updateDetection(detection);
+            removedDetectionIds.remove(detection.getId());
+        }
     }
 
     private void updateDetection(final Detection detection) {
         final DetectionFilter filter = PreferenceManager.getInstance().loadSearchFilter().getDetectionFilter();
-        if (!DataSet.getInstance().hasSelectedSequence()
-                && (filter != null && !filter.containsEditStatus(detection.getEditStatus()))) {
+        final boolean isSelected = detection.equals(DataSet.getInstance().getSelectedDetection());
+        if (!DataSet.getInstance().hasSelectedSequence() && filter != null && !filter.matches(detection)) {
             // remove detection
             DataSet.getInstance().removeDetection(detection);
             PhotoDetailsDialog.getInstance().removePhotoDetection(detection);
-            KartaViewLayer.getInstance().invalidate();
-            MainApplication.getMap().repaint();
-            DataSet.getInstance().updateSelectedDetection(null);
-            DetectionDetailsDialog.getInstance().updateDetectionDetails(null);
+            removedDetectionIds.add(detection.getId());
+            if (isSelected) {
+                DataSet.getInstance().setSelectedDetection(null);
+                DetectionDetailsDialog.getInstance().updateDetectionDetails(null);
+            }
         } else {
-            // update detection
-            DataSet.getInstance().updateSelectedDetection(detection);
-            DetectionDetailsDialog.getInstance().updateDetectionDetails(detection);
-            KartaViewLayer.getInstance().invalidate();
-            MainApplication.getMap().repaint();
+            // update detection; it is added back if a previous edit removed it
+            if (!DataSet.getInstance().updateDetection(detection) && removedDetectionIds.remove(detection.getId())) {
+                DataSet.getInstance().addDetection(detection);
+            }
+            if (isSelected) {
+                DetectionDetailsDialog.getInstance().updateDetectionDetails(detection);
+            }
         }
+        // only the edited detection changed, the rest of the map frame does not need to be refreshed
+        RepaintScheduler.getInstance().requestSelectionRepaint();
     }
 
 
@@ -298,7 +324,9 @@ public class KartaViewPlugin extends Plugin
             if (event != null && (event.getNewValue() != null && !event.getNewValue().equals(event.getOldValue()))) {
                 final PreferenceManager prefManager = PreferenceManager.getInstance();
                 final String newValue = event.getNewValue().getValue().toString();
-                if (prefManager.dataDownloadPreferencesChanged(event.getKey(), newValue)) {
+                if (prefManager.isFiltersChangedKey(event.getKey(), newValue)) {
+                    handleFilterChange();
+                } else if (prefManager.dataDownloadPreferencesChanged(event.getKey(), newValue)) {
                     handleDataDownload();
                 } else if (prefManager.hasHighQualityPhotoFlagChanged(event.getKey(), newValue)) {
                     handleHighQualityPhotoSelection();
@@ -315,8 +343,7 @@ public class KartaViewPlugin extends Plugin
                 } else if (prefManager.isAutoplayDelayKey(event.getKey())) {
                     selectionHandler.changeAutoplayTimerDelay();
                 } else if (prefManager.isDisplayDetectionLocationFlag(event.getKey())) {
-                    KartaViewLayer.getInstance().invalidate();
-                    MainApplication.getMap().repaint();
+                    RepaintScheduler.getInstance().requestRepaint();
                 } else if (prefManager.hasPhotoFormatFlagChanged(event.getKey())) {
                     updatePhotoPanel();
                 }
@@ -334,6 +361,10 @@ public class KartaViewPlugin extends Plugin
             ThreadPool.getInstance().execute(() -> new DataUpdateHandler().updateData(true));
         }
 
+        private void handleFilterChange() {
+            ThreadPool.getInstance().execute(() -> new DataUpdateHandler().updateFilteredData());
+        }
+
         private void handleHighQualityPhotoSelection() {
             final Photo selectedPhoto = DataSet.getInstance().getSelectedPhoto();
             if (selectedPhoto != null) {
@@ -351,8 +382,7 @@ public class KartaViewPlugin extends Plugin
                 selectionHandler.play(AutoplayAction.STOP);
                 final PhotoDetailsDialog detailsDialog = PhotoDetailsDialog.getInstance();
                 detailsDialog.enableSequenceActions(false, false, null);
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
             }
         }
 
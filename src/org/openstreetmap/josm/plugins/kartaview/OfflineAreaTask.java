@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.PleaseWaitRunnable;
+import org.openstreetmap.josm.gui.progress.swing.PleaseWaitProgressMonitor;
+import org.openstreetmap.josm.io.OsmTransferException;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.cache.OfflinePack;
+import org.openstreetmap.josm.plugins.kartaview.cache.OfflinePackManager;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.handler.ServiceHandler;
+import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
+import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
+import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
+import org.openstreetmap.josm.tools.Logging;
+import org.xml.sax.SAXException;
+import com.grab.josm.common.argument.BoundingBox;
+import com.grab.josm.common.entity.Pair;
+
+
+/**
+ * Prepares the current search area for offline use. The area is split in tiles; the high zoom level data of the tiles,
+ * the sequences of the loaded photos and detections, the details of the loaded clusters and photos, the sign list and
+ * the large thumbnails of the photos are downloaded with a bounded number of parallel requests, and they are written
+ * to an offline area pack. The task fails if a tile could not be loaded, while the other data that could not be loaded
+ * is left out of the pack.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public class OfflineAreaTask extends PleaseWaitRunnable {
+
+    private final ExecutorService executorService =
+            Executors.newFixedThreadPool(Config.getInstance().getOfflineMaxParallelRequests());
+
+    /** the submitted downloads; cancelled if the user cancels the task */
+    private final List<Future<?>> downloads = new ArrayList<>();
+
+    /** Flag indicated that user ask for cancel this task */
+    private boolean canceled;
+
+    /** the message displayed to the user after the task finished; null if the area was prepared */
+    private String message;
+    private int messageType;
+
+
+    /**
+     * Builds a new task.
+     */
+    public OfflineAreaTask() {
+        super(GuiConfig.getInstance().getInfoOfflineAreaTitle(),
+                new PleaseWaitProgressMonitor(GuiConfig.getInstance().getInfoOfflineAreaTitle()), false);
+    }
+
+    @Override
+    protected void cancel() {
+        synchronized (this) {
+            canceled = true;
+            downloads.forEach(download -> download.cancel(true));
+            executorService.shutdownNow();
+            ((PleaseWaitProgressMonitor) progressMonitor).close();
+        }
+    }
+
+    @Override
+    protected void afterFinish() {
+        synchronized (this) {
+            if (!canceled && message != null) {
+                final String text = message;
+                final int type = messageType;
+                final String title = type == JOptionPane.ERROR_MESSAGE ? GuiConfig.getInstance().getErrorTitle()
+                        : GuiConfig.getInstance().getWarningTitle();
+                SwingUtilities.invokeLater(
+                        () -> JOptionPane.showMessageDialog(MainApplication.getMainFrame(), text, title, type));
+            }
+        }
+    }
+
+    @Override
+    protected void finish() {
+        // nothing to add here
+    }
+
+    @Override
+    protected void realRun() throws SAXException, IOException, OsmTransferException {
+        final BoundingBox area = BoundingBoxUtil.currentBoundingBox();
+        if (tileCount(area) > Config.getInstance().getOfflineMaxTiles()) {
+            setMessage(GuiConfig.getInstance().getWarningOfflineAreaTooLarge(), JOptionPane.WARNING_MESSAGE);
+        } else {
+            try {
+                progressMonitor.indeterminateSubTask(GuiConfig.getInstance().getInfoOfflineAreaTitle());
+                prepareArea(area, tiles(area));
+            } catch (final ServiceException | IOException e) {
+                Logging.error("Error preparing offline area " + area, e);
+                setMessage(GuiConfig.getInstance().getErrorOfflineAreaText(), JOptionPane.ERROR_MESSAGE);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final CancellationException e) {
+                // no need to handle this; if the user cancels the action, exception will occur
+            } finally {
+                executorService.shutdownNow();
+                progressMonitor.finishTask();
+            }
+        }
+    }
+
+    private void prepareArea(final BoundingBox area, final List<BoundingBox> tiles)
+            throws ServiceException, IOException, InterruptedException {
+        final SearchFilter filter = PreferenceManager.getInstance().loadSearchFilter();
+        final Set<Photo> photos = new LinkedHashSet<>();
+        final Set<Detection> detections = new LinkedHashSet<>();
+        final Set<Cluster> clusters = new LinkedHashSet<>();
+        final List<Callable<HighZoomResultSet>> tileRequests = tiles.stream()
+                .map(tile -> (Callable<HighZoomResultSet>) () -> ServiceHandler.getInstance()
+                        .downloadOfflineAreaData(tile, filter))
+                .collect(Collectors.toList());
+        for (final HighZoomResultSet resultSet : executeAll(tileRequests, false)) {
+            if (resultSet.getPhotoDataSet() != null) {
+                photos.addAll(resultSet.getPhotoDataSet().getPhotos());
+            }
+            if (resultSet.getDetections() != null) {
+                detections.addAll(resultSet.getDetections());
+            }
+            if (resultSet.getClusters() != null) {
+                clusters.addAll(resultSet.getClusters());
+            }
+        }
+
+        final List<Callable<Sequence>> sequenceRequests = Stream
+                .concat(photos.stream().map(Photo::getSequenceId), detections.stream().map(Detection::getSequenceId))
+                .filter(Objects::nonNull).distinct().limit(Config.getInstance().getOfflineMaxSequences())
+                .map(id -> (Callable<Sequence>) () -> ServiceHandler.getInstance().downloadOfflineSequence(id))
+                .collect(Collectors.toList());
+        final List<Sequence> sequences = executeAll(sequenceRequests, true);
+
+        final List<Callable<Cluster>> clusterRequests = clusters.stream().map(Cluster::getId).filter(Objects::nonNull)
+                .distinct().limit(Config.getInstance().getOfflineMaxClusters())
+                .map(id -> (Callable<Cluster>) () -> ServiceHandler.getInstance().downloadOfflineClusterDetails(id))
+                .collect(Collectors.toList());
+        final List<Cluster> clusterDetails = executeAll(clusterRequests, true);
+
+        // the photos selected from the map or from a cluster are displayed with their details
+        final Stream<Photo> clusterPhotos = clusterDetails.stream()
+                .flatMap(cluster -> cluster.getPhotos() != null ? cluster.getPhotos().stream() : Stream.empty());
+        final List<Callable<Photo>> photoDetailRequests = Stream.concat(photos.stream(), clusterPhotos)
+                .filter(photo -> photo.getSequenceId() != null && photo.getSequenceIndex() != null)
+                .map(photo -> new Pair<>(photo.getSequenceId(), photo.getSequenceIndex())).distinct()
+                .limit(Config.getInstance().getOfflineMaxPhotos())
+                .map(key -> (Callable<Photo>) () -> ServiceHandler.getInstance()
+                        .downloadOfflinePhotoDetails(key.getFirst(), key.getSecond()))
+                .collect(Collectors.toList());
+        final List<Photo> photoDetails = executeAll(photoDetailRequests, true);
+        final List<List<Sign>> signs = executeAll(
+                Collections.singletonList(() -> ServiceHandler.getInstance().downloadOfflineSigns()), true);
+
+        // the photo panel displays the large thumbnails in the format selected at the time of the preparation; the
+        // photo details also cover the photos of the clusters
+        final boolean isFrontFacing =
+                PreferenceManager.getInstance().loadPhotoSettings().isDisplayFrontFacingFlag();
+        final List<String> photoNames = Stream.concat(photos.stream(), photoDetails.stream())
+                .map(photo -> isFrontFacing ? photo.getLargeThumbnailName() : photo.getLargeThumbnailWrappedName())
+                .filter(Objects::nonNull).distinct().limit(Config.getInstance().getOfflineMaxPhotos())
+                .collect(Collectors.toList());
+        final List<Callable<Map.Entry<String, byte[]>>> photoRequests = photoNames.stream()
+                .map(name -> (Callable<Map.Entry<String, byte[]>>) () -> new AbstractMap.SimpleEntry<>(
+                        name, ServiceHandler.getInstance().downloadOfflinePhoto(name)))
+                .collect(Collectors.toList());
+        final Map<String, byte[]> photoFiles = new LinkedHashMap<>();
+        executeAll(photoRequests, true).forEach(photoFile -> photoFiles.put(photoFile.getKey(), photoFile.getValue()));
+
+        synchronized (this) {
+            if (canceled) {
+                throw new CancellationException();
+            }
+        }
+        OfflinePackManager.getInstance().write(new OfflinePack(area, filter, System.currentTimeMillis(),
+                new ArrayList<>(photos), new ArrayList<>(detections), new ArrayList<>(clusters), sequences,
+                clusterDetails, photoDetails, signs.isEmpty() ? null : signs.get(0)), photoFiles);
+    }
+
+    /**
+     * Executes the given requests with the executor of the task, and returns their non null results in the order of
+     * the requests.
+     *
+     * @param skipFailures if true, the failed requests are left out of the result; if false, the first failure is
+     * thrown
+     */
+    private <T> List<T> executeAll(final List<Callable<T>> requests, final boolean skipFailures)
+            throws ServiceException, InterruptedException {
+        final List<Future<T>> futures = new ArrayList<>();
+        synchronized (this) {
+            if (canceled) {
+                throw new CancellationException();
+            }
+            requests.forEach(request -> futures.add(executorService.submit(request)));
+            downloads.addAll(futures);
+        }
+        final List<T> result = new ArrayList<>();
+        for (final Future<T> future : futures) {
+            try {
+                final T value = future.get();
+                if (value != null) {
+                    result.add(value);
+                }
+            } catch (final ExecutionException e) {
+                if (!skipFailures) {
+                    throw new ServiceException(e.getCause());
+                }
+                Logging.warn("Offline area data could not be loaded", e.getCause());
+            }
+        }
+        return result;
+    }
+
+    private static double tileCount(final BoundingBox area) {
+        final double tileSize = Config.getInstance().getOfflineTileSize();
+        return Math.ceil((area.getNorth() - area.getSouth()) / tileSize)
+                * Math.ceil((area.getEast() - area.getWest()) / tileSize);
+    }
+
+    private static List<BoundingBox> tiles(final BoundingBox area) {
+        final double tileSize = Config.getInstance().getOfflineTileSize();
+        final List<BoundingBox> result = new ArrayList<>();
+        for (double south = area.getSouth(); south < area.getNorth(); south += tileSize) {
+            for (double west = area.getWest(); west < area.getEast(); west += tileSize) {
+                result.add(new BoundingBox(Math.min(south + tileSize, area.getNorth()), south,
+                        Math.min(west + tileSize, area.getEast()), west));
+            }
+        }
+        return result;
+    }
+
+    private synchronized void setMessage(final String text, final int type) {
+        message = text;
+        messageType = type;
+    }
+}
@@ -99,6 +99,30 @@ public class SearchFilter {
         return result;
     }
 
+    /**
+     * Verifies if the data matching this filter is a subset of the data matching the given filter, such that it can
+     * be selected from the data loaded with the given filter. The date and the user criteria have to be the same, while
+     * the data types and the detection criteria can be narrower.
+     *
+     * @param other the filter with which the data was loaded
+     * @return true if this filter is the same or narrower than the given one
+     */
+    public boolean isSubsetOf(final SearchFilter other) {
+        boolean result = EntityUtil.bothNullOrEqual(date, other.getDate()) && olnyUserData == other.isOlnyUserData()
+                && dataTypes != null && other.getDataTypes() != null && other.getDataTypes().containsAll(dataTypes);
+        if (result && (dataTypes.contains(DataType.DETECTION) || dataTypes.contains(DataType.CLUSTER))) {
+            result = detectionFilter != null && other.getDetectionFilter() != null
+                    && detectionFilter.isSubsetOf(other.getDetectionFilter());
+            if (result && dataTypes.contains(DataType.DETECTION) && other.getDataTypes().contains(DataType.CLUSTER)) {
+                // the detections belonging to the loaded clusters were not kept, they are missing if clusters are
+                // removed
+                result = dataTypes.contains(DataType.CLUSTER)
+                        && detectionFilter.hasSameClusterCriteria(other.getDetectionFilter());
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the OSM user identifier of the currently logged in user. If the user is not logged in the method return
      * null.
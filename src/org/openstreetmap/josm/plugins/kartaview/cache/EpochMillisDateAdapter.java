@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.cache;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+
+/**
+ * Writes the dates as the number of milliseconds since the epoch. Unlike the default date format of Gson, it keeps the
+ * milliseconds and it does not depend on the locale, so a date is read back unchanged.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class EpochMillisDateAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
+
+    @Override
+    public Date deserialize(final JsonElement jsonElement, final Type type,
+            final JsonDeserializationContext context) {
+        final Date result;
+        try {
+            result = new Date(jsonElement.getAsLong());
+        } catch (final NumberFormatException | IllegalStateException e) {
+            throw new JsonParseException("Invalid date " + jsonElement, e);
+        }
+        return result;
+    }
+
+    @Override
+    public JsonElement serialize(final Date date, final Type type, final JsonSerializationContext context) {
+        return new JsonPrimitive(date.getTime());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.cache;
+
+import java.util.List;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import com.grab.josm.common.argument.BoundingBox;
+
+
+/**
+ * Holds the data of an area that was prepared for offline use. Besides the search results, it holds the data that is
+ * loaded when the user selects an item of the area: the cluster details, the photo details and the sign list. The photo
+ * files are not part of the object, they are stored separately in the pack file.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class OfflinePack {
+
+    private final BoundingBox area;
+    private final SearchFilter filter;
+    private final long creationTime;
+    private final List<Photo> photos;
+    private final List<Detection> detections;
+    private final List<Cluster> clusters;
+    private final List<Sequence> sequences;
+    private final List<Cluster> clusterDetails;
+    private final List<Photo> photoDetails;
+    private final List<Sign> signs;
+
+
+    /**
+     * Builds a new object.
+     *
+     * @param area the area of the pack
+     * @param filter the search filter with which the data was loaded
+     * @param creationTime the time, in milliseconds, when the data was loaded
+     * @param photos the photos of the area; can be null if the filter does not include photos
+     * @param detections the detections of the area; can be null if the filter does not include detections
+     * @param clusters the clusters of the area; can be null if the filter does not include clusters
+     * @param sequences the sequences of the photos
+     * @param clusterDetails the clusters of the area, having their photos and detections
+     * @param photoDetails the details of the photos, having also the Apollo matching and size information
+     * @param signs the list of signs; can be null if it could not be loaded
+     */
+    public OfflinePack(final BoundingBox area, final SearchFilter filter, final long creationTime,
+            final List<Photo> photos, final List<Detection> detections, final List<Cluster> clusters,
+            final List<Sequence> sequences, final List<Cluster> clusterDetails, final List<Photo> photoDetails,
+            final List<Sign> signs) {
+        this.area = area;
+        this.filter = filter;
+        this.creationTime = creationTime;
+        this.photos = photos;
+        this.detections = detections;
+        this.clusters = clusters;
+        this.sequences = sequences;
+        this.clusterDetails = clusterDetails;
+        this.photoDetails = photoDetails;
+        this.signs = signs;
+    }
+
+
+    public BoundingBox getArea() {
+        return area;
+    }
+
+    public SearchFilter getFilter() {
+        return filter;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public List<Photo> getPhotos() {
+        return photos;
+    }
+
+    public List<Detection> getDetections() {
+        return detections;
+    }
+
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+
+    public List<Sequence> getSequences() {
+        return sequences;
+    }
+
+    public List<Cluster> getClusterDetails() {
+        return clusterDetails;
+    }
+
+    public List<Photo> getPhotoDetails() {
+        return photoDetails;
+    }
+
+    public List<Sign> getSigns() {
+        return signs;
+    }
+}
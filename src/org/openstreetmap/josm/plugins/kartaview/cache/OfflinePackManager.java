@@ -0,0 +1,474 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.openstreetmap.josm.data.Preferences;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.ClusterBuilder;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
+import org.openstreetmap.josm.tools.Logging;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.grab.josm.common.argument.BoundingBox;
+
+
+/**
+ * Stores and reads the offline area packs. A pack is a zip file from the plugin directory, holding the data of the
+ * area in JSON format and the files of the photos. The packs are read when they are first needed; the packs older than
+ * the configured maximum age are not used and they are deleted. The detections edited by the user are replaced in the
+ * packs, otherwise the packed copies would undo the edit.
+ * <p>
+ * The dates are written as epoch milliseconds, and the clusters are built again when a pack is read, since the
+ * detections of a cluster grouped by photo are not written to the pack.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class OfflinePackManager {
+
+    private static final String PACK_LOCATION = "/offline/";
+    private static final String PACK_PREFIX = "pack_";
+    private static final String PACK_EXTENSION = ".zip";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String DATA_ENTRY = "pack.json";
+    private static final String PHOTO_ENTRY_PREFIX = "photos/";
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final OfflinePackManager INSTANCE = new OfflinePackManager();
+
+    private final Gson gson = new GsonBuilder().registerTypeAdapter(Date.class, new EpochMillisDateAdapter()).create();
+    private final File directory;
+
+    /** the available packs, the most recent first; null until the packs are read */
+    private List<PackFile> packs;
+
+
+    private OfflinePackManager() {
+        directory = new File(new File(Preferences.main().getPluginsDirectory(),
+                GuiConfig.getInstance().getPluginShortName()).getPath() + PACK_LOCATION);
+    }
+
+    /**
+     * Returns the unique instance of the offline pack manager.
+     *
+     * @return a {@code OfflinePackManager} object
+     */
+    public static OfflinePackManager getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Writes a new pack to the plugin directory. The pack is used as soon as it was written.
+     *
+     * @param pack the data of the area
+     * @param photoFiles the content of the photos, by photo name
+     * @throws IOException if the pack could not be written
+     */
+    public synchronized void write(final OfflinePack pack, final Map<String, byte[]> photoFiles) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        final File file = new File(directory, PACK_PREFIX + pack.getCreationTime() + PACK_EXTENSION);
+        final Map<String, String> photoEntries = new HashMap<>();
+        for (final String photoName : photoFiles.keySet()) {
+            photoEntries.put(photoName, PHOTO_ENTRY_PREFIX + photoEntries.size());
+        }
+        final PackFile packFile = new PackFile(file, pack, photoEntries);
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            writeData(zip, packFile);
+            for (final Map.Entry<String, byte[]> photoFile : photoFiles.entrySet()) {
+                zip.putNextEntry(new ZipEntry(photoEntries.get(photoFile.getKey())));
+                zip.write(photoFile.getValue());
+                zip.closeEntry();
+            }
+        } catch (final IOException e) {
+            if (file.exists() && !file.delete()) {
+                Logging.warn("Could not delete incomplete offline pack " + file);
+            }
+            throw e;
+        }
+        packs().add(0, packFile);
+    }
+
+    /**
+     * Replaces the copies of the given detection from the packs, such that the packed data reflects an edit made by
+     * the user. The changed packs are written again.
+     *
+     * @param detection the edited detection
+     */
+    public synchronized void updateDetection(final Detection detection) {
+        final List<PackFile> packFiles = packs();
+        for (int i = 0; i < packFiles.size(); i++) {
+            final PackFile packFile = packFiles.get(i);
+            if (!isExpired(packFile)
+                    && detections(packFile.pack).anyMatch(item -> detection.getId().equals(item.getId()))) {
+                final PackFile updatedFile =
+                        new PackFile(packFile.file, replace(packFile.pack, detection), packFile.photoEntries);
+                packFiles.set(i, updatedFile);
+                try {
+                    rewrite(updatedFile);
+                } catch (final IOException e) {
+                    // the pack is updated in memory, the edit is lost only if the plugin is restarted
+                    Logging.warn("Could not update offline pack " + packFile.file, e);
+                }
+            }
+        }
+    }
+
+    private static OfflinePack replace(final OfflinePack pack, final Detection detection) {
+        final UnaryOperator<List<Detection>> replaceDetection = detections -> detections != null
+                ? detections.stream().map(item -> detection.getId().equals(item.getId()) ? detection : item)
+                        .collect(Collectors.toList())
+                : null;
+        final List<Sequence> sequences = pack.getSequences() != null ? pack.getSequences().stream()
+                .map(sequence -> new Sequence(sequence.getId(), sequence.getPhotos(),
+                        replaceDetection.apply(sequence.getDetections())))
+                .collect(Collectors.toList()) : null;
+        stream(pack.getPhotoDetails()).forEach(photo -> photo.setDetections(
+                replaceDetection.apply(photo.getDetections())));
+        return new OfflinePack(pack.getArea(), pack.getFilter(), pack.getCreationTime(), pack.getPhotos(),
+                replaceDetection.apply(pack.getDetections()), pack.getClusters(), sequences,
+                rebuild(pack.getClusterDetails(), replaceDetection), pack.getPhotoDetails(), pack.getSigns());
+    }
+
+    /**
+     * Writes the given pack file again, with its current data. The photo entries are copied from the existing file.
+     */
+    private void rewrite(final PackFile packFile) throws IOException {
+        final File tempFile = new File(directory, packFile.file.getName() + TEMP_EXTENSION);
+        try (ZipFile source = new ZipFile(packFile.file);
+                ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            writeData(zip, packFile);
+            for (final String entryName : packFile.photoEntries.values()) {
+                final ZipEntry entry = source.getEntry(entryName);
+                if (entry != null) {
+                    zip.putNextEntry(new ZipEntry(entryName));
+                    zip.write(readContent(source.getInputStream(entry)));
+                    zip.closeEntry();
+                }
+            }
+        } catch (final IOException e) {
+            if (tempFile.exists() && !tempFile.delete()) {
+                Logging.warn("Could not delete incomplete offline pack " + tempFile);
+            }
+            throw e;
+        }
+        Files.move(tempFile.toPath(), packFile.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeData(final ZipOutputStream zip, final PackFile packFile) throws IOException {
+        zip.putNextEntry(new ZipEntry(DATA_ENTRY));
+        final Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        gson.toJson(packFile, writer);
+        // the writer is not closed, since it would close the zip stream
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * Returns the data of the given areas from the most recent pack that covers all the areas and was prepared with
+     * the given filter.
+     *
+     * @param areas a list of {@code BoundingBox}s representing the search areas
+     * @param filter the current search filter
+     * @return a {@code HighZoomResultSet}; null if no pack covers the areas
+     */
+    public synchronized HighZoomResultSet highZoomData(final List<BoundingBox> areas, final SearchFilter filter) {
+        final PackFile packFile = packs().stream().filter(file -> !isExpired(file)
+                && Objects.equals(file.pack.getFilter(), filter)
+                && areas.stream().allMatch(area -> BoundingBoxUtil.difference(area, file.pack.getArea()).isEmpty()))
+                .findFirst().orElse(null);
+        HighZoomResultSet result = null;
+        if (packFile != null) {
+            final List<Photo> photos = itemsIn(packFile.pack.getPhotos(), areas, Photo::getPoint);
+            final List<Cluster> clusters = itemsIn(packFile.pack.getClusters(), areas, Cluster::getPoint);
+            List<Detection> detections = itemsIn(packFile.pack.getDetections(), areas, Detection::getPoint);
+            if (detections != null && clusters != null) {
+                // the detections of a cluster might be in a different tile than the cluster
+                final Set<Long> clusterDetectionIds = clusters.stream()
+                        .flatMap(cluster -> cluster.getDetectionIds() != null ? cluster.getDetectionIds().stream()
+                                : Stream.empty())
+                        .collect(Collectors.toSet());
+                detections = detections.stream().filter(detection -> !clusterDetectionIds.contains(detection.getId()))
+                        .collect(Collectors.toList());
+            }
+            result = new HighZoomResultSet(photos != null ? new PhotoDataSet(photos) : null,
+                    detections != null && !detections.isEmpty() ? detections : null, clusters);
+        }
+        return result;
+    }
+
+    private static <T> List<T> itemsIn(final List<T> items, final List<BoundingBox> areas,
+            final Function<T, LatLon> location) {
+        final List<T> result = items != null ? items.stream()
+                .filter(item -> areas.stream().anyMatch(area -> BoundingBoxUtil.contains(area, location.apply(item))))
+                .collect(Collectors.toList()) : null;
+        return result != null && !result.isEmpty() ? result : null;
+    }
+
+    /**
+     * Returns the sequence with the given identifier from the most recent pack that contains it.
+     *
+     * @param sequenceId the identifier of the sequence
+     * @return a {@code Sequence}; null if no pack contains the sequence
+     */
+    public synchronized Sequence sequence(final Long sequenceId) {
+        return packs().stream().filter(file -> !isExpired(file) && file.pack.getSequences() != null)
+                .flatMap(file -> file.pack.getSequences().stream())
+                .filter(sequence -> sequenceId.equals(sequence.getId())).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the content of the given photo from the most recent pack that contains it.
+     *
+     * @param photoName the name of the photo
+     * @return the photo content; null if no pack contains the photo or if it could not be read
+     */
+    public synchronized byte[] photo(final String photoName) {
+        final PackFile packFile = packs().stream()
+                .filter(file -> !isExpired(file) && file.photoEntries.containsKey(photoName)).findFirst().orElse(null);
+        byte[] result = null;
+        if (packFile != null) {
+            try (ZipFile zip = new ZipFile(packFile.file)) {
+                final ZipEntry entry = zip.getEntry(packFile.photoEntries.get(photoName));
+                if (entry != null) {
+                    result = readContent(zip.getInputStream(entry));
+                }
+            } catch (final IOException e) {
+                Logging.warn("Could not read photo " + photoName + " from offline pack " + packFile.file, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the details of the cluster with the given identifier from the most recent pack that contains it.
+     *
+     * @param clusterId the identifier of the cluster
+     * @return a {@code Cluster} having its photos and detections; null if no pack contains the cluster
+     */
+    public synchronized Cluster clusterDetails(final Long clusterId) {
+        return items(OfflinePack::getClusterDetails).filter(cluster -> clusterId.equals(cluster.getId())).findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Returns the details of the given photo from the most recent pack that contains it. The returned photo is a copy,
+     * it can be modified by the caller.
+     *
+     * @param sequenceId the identifier of the sequence
+     * @param sequenceIndex the index of the photo in the sequence
+     * @return a {@code Photo}; null if no pack contains the photo details
+     */
+    public synchronized Photo photoDetails(final Long sequenceId, final Integer sequenceIndex) {
+        return items(OfflinePack::getPhotoDetails)
+                .filter(photo -> sequenceId.equals(photo.getSequenceId())
+                        && sequenceIndex.equals(photo.getSequenceIndex()))
+                .findFirst().map(photo -> gson.fromJson(gson.toJsonTree(photo), Photo.class)).orElse(null);
+    }
+
+    /**
+     * Returns the detections of the given photo from the most recent pack that contains the sequence of the photo.
+     *
+     * @param sequenceId the identifier of the sequence
+     * @param sequenceIndex the index of the photo in the sequence
+     * @return a list of {@code Detection}s, empty if the photo has no detections; null if no pack contains the sequence
+     */
+    public synchronized List<Detection> photoDetections(final Long sequenceId, final Integer sequenceIndex) {
+        final Sequence sequence = sequence(sequenceId);
+        return sequence != null && sequence.getDetections() != null ? sequence.getDetections().stream()
+                .filter(detection -> sequenceIndex.equals(detection.getSequenceIndex()))
+                .collect(Collectors.toList()) : null;
+    }
+
+    /**
+     * Returns the detection with the given identifier from the most recent pack that contains it. The detections of
+     * the area, of the clusters and of the sequences are searched.
+     *
+     * @param detectionId the identifier of the detection
+     * @return a {@code Detection}; null if no pack contains the detection
+     */
+    public synchronized Detection detection(final Long detectionId) {
+        return packs().stream().filter(file -> !isExpired(file)).flatMap(file -> detections(file.pack))
+                .filter(detection -> detectionId.equals(detection.getId())).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the detections of the area, of the clusters and of the sequences of the given pack.
+     */
+    private static Stream<Detection> detections(final OfflinePack pack) {
+        return Stream.of(stream(pack.getDetections()),
+                stream(pack.getClusterDetails()).flatMap(cluster -> stream(cluster.getDetections())),
+                stream(pack.getSequences()).flatMap(sequence -> stream(sequence.getDetections())))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * Returns the list of signs from the most recent pack that contains it.
+     *
+     * @return a list of {@code Sign}s; null if no pack contains the signs
+     */
+    public synchronized List<Sign> signs() {
+        return packs().stream().filter(file -> !isExpired(file) && file.pack.getSigns() != null)
+                .map(file -> (List<Sign>) new ArrayList<>(file.pack.getSigns())).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the given items of the packs that are not expired, the items of the most recent pack first.
+     */
+    private <T> Stream<T> items(final Function<OfflinePack, List<T>> packItems) {
+        return packs().stream().filter(file -> !isExpired(file)).flatMap(file -> stream(packItems.apply(file.pack)));
+    }
+
+    private static <T> Stream<T> stream(final List<T> items) {
+        return items != null ? items.stream() : Stream.empty();
+    }
+
+    private List<PackFile> packs() {
+        if (packs == null) {
+            packs = new ArrayList<>();
+            final File[] files = directory.listFiles(
+                    (dir, name) -> name.startsWith(PACK_PREFIX) && name.endsWith(PACK_EXTENSION));
+            if (files != null) {
+                for (final File file : files) {
+                    final PackFile packFile = read(file);
+                    if (packFile != null && isExpired(packFile)) {
+                        delete(file);
+                    } else if (packFile != null) {
+                        packs.add(packFile);
+                    }
+                }
+            }
+            packs.sort((file1, file2) -> Long.compare(file2.pack.getCreationTime(), file1.pack.getCreationTime()));
+        }
+        return packs;
+    }
+
+    private PackFile read(final File file) {
+        PackFile result = null;
+        try (ZipFile zip = new ZipFile(file)) {
+            final ZipEntry entry = zip.getEntry(DATA_ENTRY);
+            if (entry != null) {
+                try (Reader reader = new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)) {
+                    final PackFile packFile = gson.fromJson(reader, PackFile.class);
+                    if (packFile != null && packFile.pack != null) {
+                        result = new PackFile(file, rebuildClusters(packFile.pack),
+                                packFile.photoEntries != null ? packFile.photoEntries : new HashMap<>());
+                    }
+                }
+            }
+        } catch (final JsonParseException e) {
+            // the pack was written in a different format, it cannot be used anymore
+            Logging.warn("Could not parse offline pack " + file, e);
+            delete(file);
+        } catch (final IOException e) {
+            Logging.warn("Could not read offline pack " + file, e);
+        }
+        return result;
+    }
+
+    private static OfflinePack rebuildClusters(final OfflinePack pack) {
+        return new OfflinePack(pack.getArea(), pack.getFilter(), pack.getCreationTime(), pack.getPhotos(),
+                pack.getDetections(), rebuild(pack.getClusters(), UnaryOperator.identity()), pack.getSequences(),
+                rebuild(pack.getClusterDetails(), UnaryOperator.identity()), pack.getPhotoDetails(), pack.getSigns());
+    }
+
+    /**
+     * Builds the given clusters again, with their detections changed by the given function.
+     */
+    private static List<Cluster> rebuild(final List<Cluster> clusters,
+            final UnaryOperator<List<Detection>> detections) {
+        return clusters != null ? clusters.stream().map(cluster -> {
+            final ClusterBuilder builder = new ClusterBuilder(cluster);
+            builder.photos(cluster.getPhotos());
+            builder.detections(detections.apply(cluster.getDetections()));
+            return builder.build();
+        }).collect(Collectors.toList()) : null;
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) {
+            Logging.warn("Could not delete offline pack " + file);
+        }
+    }
+
+    private static boolean isExpired(final PackFile packFile) {
+        return System.currentTimeMillis() - packFile.pack.getCreationTime() > Config.getInstance()
+                .getOfflineMaxAge();
+    }
+
+    private static byte[] readContent(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream input = stream) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                content.write(buffer, 0, length);
+            }
+        }
+        return content.toByteArray();
+    }
+
+
+    /**
+     * The content of the data entry of a pack file.
+     */
+    private static final class PackFile {
+
+        /** the pack file; it is not written to the data entry */
+        private final transient File file;
+        private final OfflinePack pack;
+
+        /** the names of the zip entries holding the photo files, by photo name */
+        private final Map<String, String> photoEntries;
+
+        private PackFile(final File file, final OfflinePack pack, final Map<String, String> photoEntries) {
+            this.file = file;
+            this.pack = pack;
+            this.photoEntries = photoEntries;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.openstreetmap.josm.data.coor.LatLon;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -34,6 +35,9 @@ public class Cluster {
     private final OcrValue ocrValue;
     private final Short laneCount;
 
+    /** the cluster detections grouped by the photo they belong to; computed only once when the cluster is built */
+    private final transient Map<Photo, List<Detection>> photoDetections;
+
 
     Cluster(final ClusterBuilder builder) {
         this.id = builder.getId();
@@ -49,6 +53,7 @@ public class Cluster {
         this.photos = builder.getPhotos();
         this.ocrValue = builder.getOcrValue();
         this.laneCount = builder.getLaneCount();
+        this.photoDetections = builder.getPhotoDetections();
     }
 
 
@@ -104,6 +109,10 @@ public class Cluster {
         return laneCount;
     }
 
+    public Map<Photo, List<Detection>> getPhotoDetections() {
+        return photoDetections;
+    }
+
     public boolean hasPhotos() {
         return photos != null && !photos.isEmpty();
     }
@@ -7,9 +7,15 @@
 package org.openstreetmap.josm.plugins.kartaview.entity;
 
 import org.openstreetmap.josm.data.coor.LatLon;
+import com.grab.josm.common.entity.Pair;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -154,6 +160,34 @@ public class ClusterBuilder {
         return laneCount;
     }
 
+    /**
+     * Associates the cluster photos with the cluster detections that were made on them. The association is done in
+     * a single pass over the detections, such that the result can be reused when the cluster is displayed.
+     *
+     * @return a map of ({@code Photo}, list of {@code Detection}s) pairs; null if the cluster has no photos or no
+     * detections
+     */
+    Map<Photo, List<Detection>> getPhotoDetections() {
+        Map<Photo, List<Detection>> result = null;
+        if (photos != null && detections != null) {
+            final Map<Pair<Long, Integer>, List<Detection>> detectionsByPhoto = new HashMap<>();
+            for (final Detection detection : detections) {
+                detectionsByPhoto.computeIfAbsent(
+                        new Pair<>(detection.getSequenceId(), detection.getSequenceIndex()), key -> new ArrayList<>())
+                        .add(detection);
+            }
+            final Map<Photo, List<Detection>> photoDetections = new LinkedHashMap<>();
+            for (final Photo photo : photos) {
+                final List<Detection> photoDetectionList =
+                        detectionsByPhoto.get(new Pair<>(photo.getSequenceId(), photo.getSequenceIndex()));
+                photoDetections.put(photo, photoDetectionList != null
+                        ? Collections.unmodifiableList(photoDetectionList) : Collections.emptyList());
+            }
+            result = Collections.unmodifiableMap(photoDetections);
+        }
+        return result;
+    }
+
     public Cluster build() {
         return new Cluster(this);
     }
@@ -20,8 +20,6 @@ import java.util.Collection;
  */
 public class Detection implements Comparable<Detection> {
 
-    // setters are not required,since GSON sets the fields directly using reflection.
-
     private final Long id;
     private Long sequenceId;
     private Integer sequenceIndex;
@@ -52,6 +50,33 @@ public class Detection implements Comparable<Detection> {
         this.editStatus = editStatus;
     }
 
+    Detection(final DetectionBuilder builder) {
+        this.id = builder.getId();
+        this.sequenceId = builder.getSequenceId();
+        this.sequenceIndex = builder.getSequenceIndex();
+        this.creationTimestamp = builder.getCreationTimestamp();
+        this.latestChangeTimestamp = builder.getLatestChangeTimestamp();
+        this.point = builder.getPoint();
+        this.sign = builder.getSign();
+        this.locationOnPhoto = builder.getLocationOnPhoto();
+        this.validationStatus = builder.getValidationStatus();
+        this.editStatus = builder.getEditStatus();
+        this.osmComparison = builder.getOsmComparison();
+        this.osmElements = builder.getOsmElements();
+        this.mode = builder.getMode();
+        this.author = builder.getAuthor();
+        this.facing = builder.getFacing();
+        this.distance = builder.getDistance();
+        this.angleFromCenter = builder.getAngleFromCenter();
+        this.orientation = builder.getOrientation();
+        this.confidenceLevel = builder.getConfidenceLevel();
+        this.ocrValue = builder.getOcrValue();
+        this.shapeOnPhoto = builder.getShapeOnPhoto();
+        this.trackingId = builder.getTrackingId();
+        this.automaticOcrValue = builder.getAutomaticOcrValue();
+        this.manualOcrValue = builder.getManualOcrValue();
+    }
+
     public Long getId() {
         return id;
     }
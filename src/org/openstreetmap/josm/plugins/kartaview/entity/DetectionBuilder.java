@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.entity;
+
+import org.openstreetmap.josm.data.coor.LatLon;
+
+import java.util.Collection;
+
+
+/**
+ * Defines a builder for the detection entity.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public class DetectionBuilder {
+
+    private Long id;
+    private Long sequenceId;
+    private Integer sequenceIndex;
+    private Long creationTimestamp;
+    private Long latestChangeTimestamp;
+    private LatLon point;
+    private Sign sign;
+    private Rectangle locationOnPhoto;
+    private ValidationStatus validationStatus;
+    private EditStatus editStatus;
+    private OsmComparison osmComparison;
+    private Collection<OsmElement> osmElements;
+    private DetectionMode mode;
+    private Author author;
+    private Double facing;
+    private Float distance;
+    private Float angleFromCenter;
+    private Float orientation;
+    private DetectionConfidenceLevel confidenceLevel;
+    private OcrValue ocrValue;
+    private DetectionShape shapeOnPhoto;
+    private String trackingId;
+    private String automaticOcrValue;
+    private String manualOcrValue;
+
+    public DetectionBuilder() {}
+
+    public DetectionBuilder(final Detection detection) {
+        id(detection.getId());
+        sequenceId(detection.getSequenceId());
+        sequenceIndex(detection.getSequenceIndex());
+        creationTimestamp(detection.getCreationTimestamp());
+        latestChangeTimestamp(detection.getLatestChangeTimestamp());
+        point(detection.getPoint());
+        sign(detection.getSign());
+        locationOnPhoto(detection.getLocationOnPhoto());
+        validationStatus(detection.getValidationStatus());
+        editStatus(detection.getEditStatus());
+        osmComparison(detection.getOsmComparison());
+        osmElements(detection.getOsmElements());
+        mode(detection.getMode());
+        author(detection.getAuthor());
+        facing(detection.getFacing());
+        distance(detection.getDistance());
+        angleFromCenter(detection.getAngleFromCenter());
+        orientation(detection.getOrientation());
+        confidenceLevel(detection.getConfidenceLevel());
+        ocrValue(detection.getOcrValue());
+        shapeOnPhoto(detection.getShapeOnPhoto());
+        trackingId(detection.getTrackingId());
+        automaticOcrValue(detection.getAutomaticOcrValue());
+        manualOcrValue(detection.getManualOcrValue());
+    }
+
+    public void id(final Long id) {
+        this.id = id;
+    }
+
+    public void sequenceId(final Long sequenceId) {
+        this.sequenceId = sequenceId;
+    }
+
+    public void sequenceIndex(final Integer sequenceIndex) {
+        this.sequenceIndex = sequenceIndex;
+    }
+
+    public void creationTimestamp(final Long creationTimestamp) {
+        this.creationTimestamp = creationTimestamp;
+    }
+
+    public void latestChangeTimestamp(final Long latestChangeTimestamp) {
+        this.latestChangeTimestamp = latestChangeTimestamp;
+    }
+
+    public void point(final LatLon point) {
+        this.point = point;
+    }
+
+    public void sign(final Sign sign) {
+        this.sign = sign;
+    }
+
+    public void locationOnPhoto(final Rectangle locationOnPhoto) {
+        this.locationOnPhoto = locationOnPhoto;
+    }
+
+    public void validationStatus(final ValidationStatus validationStatus) {
+        this.validationStatus = validationStatus;
+    }
+
+    public void editStatus(final EditStatus editStatus) {
+        this.editStatus = editStatus;
+    }
+
+    public void osmComparison(final OsmComparison osmComparison) {
+        this.osmComparison = osmComparison;
+    }
+
+    public void osmElements(final Collection<OsmElement> osmElements) {
+        this.osmElements = osmElements;
+    }
+
+    public void mode(final DetectionMode mode) {
+        this.mode = mode;
+    }
+
+    public void author(final Author author) {
+        this.author = author;
+    }
+
+    public void facing(final Double facing) {
+        this.facing = facing;
+    }
+
+    public void distance(final Float distance) {
+        this.distance = distance;
+    }
+
+    public void angleFromCenter(final Float angleFromCenter) {
+        this.angleFromCenter = angleFromCenter;
+    }
+
+    public void orientation(final Float orientation) {
+        this.orientation = orientation;
+    }
+
+    public void confidenceLevel(final DetectionConfidenceLevel confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    public void ocrValue(final OcrValue ocrValue) {
+        this.ocrValue = ocrValue;
+    }
+
+    public void shapeOnPhoto(final DetectionShape shapeOnPhoto) {
+        this.shapeOnPhoto = shapeOnPhoto;
+    }
+
+    public void trackingId(final String trackingId) {
+        this.trackingId = trackingId;
+    }
+
+    public void automaticOcrValue(final String automaticOcrValue) {
+        this.automaticOcrValue = automaticOcrValue;
+    }
+
+    public void manualOcrValue(final String manualOcrValue) {
+        this.manualOcrValue = manualOcrValue;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    Long getSequenceId() {
+        return sequenceId;
+    }
+
+    Integer getSequenceIndex() {
+        return sequenceIndex;
+    }
+
+    Long getCreationTimestamp() {
+        return creationTimestamp;
+    }
+
+    Long getLatestChangeTimestamp() {
+        return latestChangeTimestamp;
+    }
+
+    LatLon getPoint() {
+        return point;
+    }
+
+    Sign getSign() {
+        return sign;
+    }
+
+    Rectangle getLocationOnPhoto() {
+        return locationOnPhoto;
+    }
+
+    ValidationStatus getValidationStatus() {
+        return validationStatus;
+    }
+
+    EditStatus getEditStatus() {
+        return editStatus;
+    }
+
+    OsmComparison getOsmComparison() {
+        return osmComparison;
+    }
+
+    Collection<OsmElement> getOsmElements() {
+        return osmElements;
+    }
+
+    DetectionMode getMode() {
+        return mode;
+    }
+
+    Author getAuthor() {
+        return author;
+    }
+
+    Double getFacing() {
+        return facing;
+    }
+
+    Float getDistance() {
+        return distance;
+    }
+
+    Float getAngleFromCenter() {
+        return angleFromCenter;
+    }
+
+    Float getOrientation() {
+        return orientation;
+    }
+
+    DetectionConfidenceLevel getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    OcrValue getOcrValue() {
+        return ocrValue;
+    }
+
+    DetectionShape getShapeOnPhoto() {
+        return shapeOnPhoto;
+    }
+
+    String getTrackingId() {
+        return trackingId;
+    }
+
+    String getAutomaticOcrValue() {
+        return automaticOcrValue;
+    }
+
+    String getManualOcrValue() {
+        return manualOcrValue;
+    }
+
+    public Detection build() {
+        return new Detection(this);
+    }
+}
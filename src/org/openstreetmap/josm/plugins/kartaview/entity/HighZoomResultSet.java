@@ -6,6 +6,7 @@
  */
 package org.openstreetmap.josm.plugins.kartaview.entity;
 
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -41,4 +42,17 @@ public class HighZoomResultSet {
     public List<Cluster> getClusters() {
         return clusters;
     }
+
+    /**
+     * Returns a copy of the result set. The lists of the copy can be modified without affecting this result set.
+     *
+     * @return a {@code HighZoomResultSet}
+     */
+    public HighZoomResultSet copy() {
+        return new HighZoomResultSet(photoDataSet != null ? new PhotoDataSet(
+                photoDataSet.getPhotos() != null ? new ArrayList<>(photoDataSet.getPhotos()) : null,
+                photoDataSet.getPage(), photoDataSet.getLastPage(), photoDataSet.getTotalItems()) : null,
+                detections != null ? new ArrayList<>(detections) : null,
+                clusters != null ? new ArrayList<>(clusters) : null);
+    }
 }
\ No newline at end of file
@@ -19,7 +19,9 @@ import java.util.List;
 public class PhotoDataSet {
 
     private final List<Photo> photos;
+    /** the first and the last loaded page; null if the photos do not represent a range of pages */
     private Integer page;
+    private Integer lastPage;
     private Integer totalItems;
 
 
@@ -32,9 +34,11 @@ public class PhotoDataSet {
     }
 
 
-    public PhotoDataSet(final List<Photo> photos, final Integer page, final Integer totalItems) {
+    public PhotoDataSet(final List<Photo> photos, final Integer page, final Integer lastPage,
+            final Integer totalItems) {
         this.photos = photos;
         this.page = page;
+        this.lastPage = lastPage;
         this.totalItems = totalItems;
     }
 
@@ -46,6 +50,10 @@ public class PhotoDataSet {
         return page;
     }
 
+    public Integer getLastPage() {
+        return lastPage;
+    }
+
     public Integer getTotalItems() {
         return totalItems;
     }
@@ -55,7 +63,8 @@ public class PhotoDataSet {
     }
 
     public boolean hasNextItems() {
-        return page != null && totalItems > page * KartaViewServiceConfig.getInstance().getNearbyPhotosMaxItems();
+        return lastPage != null
+                && totalItems > lastPage * KartaViewServiceConfig.getInstance().getNearbyPhotosMaxItems();
     }
 
     public boolean hasItems() {
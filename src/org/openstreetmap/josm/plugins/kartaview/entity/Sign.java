@@ -24,6 +24,9 @@ public class Sign {
     private final String region;
     private final String type;
 
+    /** the cached hash code, signs are used as map keys and filter values; 0 if it was not computed yet */
+    private transient int hash;
+
 
     public Sign(final String name, final String internalName, final String iconName, final String region,
             final String type) {
@@ -70,6 +73,9 @@ public class Sign {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, internalName, iconName, region, type);
+        if (hash == 0) {
+            hash = Objects.hash(name, internalName, iconName, region, type);
+        }
+        return hash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.entity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Holds the canonical instance of every known sign. There are only a few hundred distinct signs; the signs listed by
+ * the service, the signs of the read detections and clusters and the signs saved in the preferences are all resolved
+ * against this catalog, such that equal signs are represented by the same object.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class SignCatalog {
+
+    private static final SignCatalog INSTANCE = new SignCatalog();
+
+    private final Map<Sign, Sign> signs = new ConcurrentHashMap<>();
+
+
+    private SignCatalog() {}
+
+    /**
+     * Returns the unique instance of the sign catalog.
+     *
+     * @return a {@code SignCatalog} object
+     */
+    public static SignCatalog getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Returns the canonical instance of the given sign. If the sign is not yet in the catalog, a copy having interned
+     * field values is added to it.
+     *
+     * @param sign a {@code Sign} object
+     * @return the catalog {@code Sign} that is equal with the given one; null if the given sign is null
+     */
+    public Sign resolve(final Sign sign) {
+        return sign != null ? signs.computeIfAbsent(sign, SignCatalog::internedCopy) : null;
+    }
+
+    private static Sign internedCopy(final Sign sign) {
+        return new Sign(intern(sign.getName()), intern(sign.getInternalName()), intern(sign.getIconName()),
+                intern(sign.getRegion()), intern(sign.getType()));
+    }
+
+    private static String intern(final String value) {
+        return value != null ? value.intern() : null;
+    }
+}
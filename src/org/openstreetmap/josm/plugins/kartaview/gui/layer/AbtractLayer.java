@@ -36,6 +36,7 @@ abstract class AbtractLayer extends Layer {
     private final JosmAction downloadNextPhotosAction;
     private final JosmAction openPreferencesAction;
     private final JosmAction saveSequenceAction;
+    private final JosmAction prepareOfflineAreaAction;
 
     AbtractLayer() {
         super(GuiConfig.getInstance().getPluginShortName());
@@ -48,6 +49,7 @@ abstract class AbtractLayer extends Layer {
                 GuiConfig.getInstance().getInfoDownloadNextPhotosTitle(), true);
         openPreferencesAction = new OpenPreferenceDialogAction();
         saveSequenceAction = new SaveTrackAction();
+        prepareOfflineAreaAction = new PrepareOfflineAreaAction();
     }
 
 
@@ -81,6 +83,8 @@ abstract class AbtractLayer extends Layer {
             actions.add(downloadNextPhotosAction);
             actions.add(SeparatorLayerAction.INSTANCE);
         }
+        actions.add(prepareOfflineAreaAction);
+        actions.add(SeparatorLayerAction.INSTANCE);
         actions.add(openFeedbackAction);
         actions.add(SeparatorLayerAction.INSTANCE);
 
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.gui.layer;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.gui.MapView;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import com.grab.josm.common.entity.Pair;
+
+
+/**
+ * Holds the screen geometry of the selected cluster's photos and detections. The geometry is valid as long as the
+ * cluster and the map view position, scale and size do not change.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class ClusterDataGeometry {
+
+    private final Cluster cluster;
+    private final EastNorth center;
+    private final double scale;
+    private final int width;
+    private final int height;
+    private final Map<Photo, Point> photoPoints = new HashMap<>();
+    private final Map<Detection, Point> detectionPoints = new HashMap<>();
+    private final Map<Photo, List<Pair<Point, Point>>> lines = new HashMap<>();
+
+
+    ClusterDataGeometry(final MapView mapView, final Cluster cluster) {
+        this.cluster = cluster;
+        this.center = mapView.getCenter();
+        this.scale = mapView.getScale();
+        this.width = mapView.getWidth();
+        this.height = mapView.getHeight();
+        for (final Entry<Photo, List<Detection>> entry : cluster.getPhotoDetections().entrySet()) {
+            final Point photoPoint = mapView.getPoint(entry.getKey().getPoint());
+            final List<Pair<Point, Point>> photoLines = new ArrayList<>();
+            for (final Detection detection : entry.getValue()) {
+                final Point detectionPoint = mapView.getPoint(detection.getPoint());
+                detectionPoints.put(detection, detectionPoint);
+                if (!photoPoint.equals(detectionPoint)) {
+                    photoLines.add(new Pair<>(photoPoint, detectionPoint));
+                }
+            }
+            photoPoints.put(entry.getKey(), photoPoint);
+            lines.put(entry.getKey(), photoLines);
+        }
+    }
+
+
+    /**
+     * Verifies if the geometry can be used for drawing the given cluster in the given map view.
+     *
+     * @param mapView the current {@code MapView}
+     * @param cluster the {@code Cluster} to be drawn
+     * @return true if the geometry is up to date, false otherwise
+     */
+    boolean isValid(final MapView mapView, final Cluster cluster) {
+        return this.cluster == cluster && scale == mapView.getScale() && width == mapView.getWidth()
+                && height == mapView.getHeight() && center.equals(mapView.getCenter());
+    }
+
+    Point getPhotoPoint(final Photo photo) {
+        return photoPoints.get(photo);
+    }
+
+    Point getDetectionPoint(final Detection detection) {
+        return detectionPoints.get(detection);
+    }
+
+    List<Pair<Point, Point>> getLines(final Photo photo) {
+        final List<Pair<Point, Point>> photoLines = lines.get(photo);
+        return photoLines != null ? photoLines : Collections.emptyList();
+    }
+}
@@ -38,6 +38,14 @@ final class Constants {
 
     static final double ZOOM_16 = 3.825;
 
+    /* constants used for drawing the number of aggregated photo locations */
+    static final Color PHOTO_BADGE_COLOR = new Color(99, 91, 255);
+    static final int PHOTO_BADGE_OFFSET = 8;
+
+    /* constants used for drawing the label of the stale data */
+    static final Color STALE_LABEL_COLOR = new Color(128, 128, 128);
+    static final int STALE_LABEL_OFFSET = 8;
+
 
     static final double CLUSTER_EXTRAPOLATE_DISTANCE = 0.02;
 
@@ -10,11 +10,12 @@ import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Stroke;
 import java.util.List;
-import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.gui.MapView;
 import org.openstreetmap.josm.plugins.kartaview.DataSet;
 import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.RENDERING_MAP;
 
 
@@ -29,6 +30,10 @@ public final class KartaViewLayer extends AbtractLayer {
     private final PaintHandler paintHandler = new PaintHandler();
     private static KartaViewLayer instance;
 
+    /** the render model of the matched data; built only once for the downloaded matched data */
+    private List<OsmElement> modelMatchedData;
+    private MatchedDataModel matchedDataModel;
+
     private KartaViewLayer() {
         super();
     }
@@ -60,49 +65,62 @@ public final class KartaViewLayer extends AbtractLayer {
         if (dataSet.hasItems()) {
             final Composite originalComposite = graphics.getComposite();
             final Stroke originalStroke = graphics.getStroke();
+            final RenderContext context = new RenderContext(mapView, originalComposite);
             if (dataSet.hasSegments()) {
-                paintHandler.drawSegments(graphics, mapView, dataSet.getSegments());
+                paintHandler.drawSegments(graphics, context, dataSet.getSegments());
             } else {
                 // draw photos
                 final boolean isTransparent =
                         dataSet.getSelectedSequence() != null || dataSet.getSelectedCluster() != null;
-                final List<DataType> dataTypes = PreferenceManager.getInstance().loadSearchFilter().getDataTypes();
-                if (dataSet.hasPhotos() && (dataTypes.contains(DataType.PHOTO))) {
-                    paintHandler.drawPhotos(graphics, mapView, dataSet.getPhotoDataSet().getPhotos(),
+                if (dataSet.hasPhotos() && context.displaysDataType(DataType.PHOTO)) {
+                    paintHandler.drawPhotos(graphics, context, dataSet.getPhotoDataSet().getPhotos(),
                             dataSet.getSelectedPhoto(), isTransparent);
                 }
 
                 // draw detections
-                if (dataSet.getDetections() != null && dataTypes.contains(DataType.DETECTION)) {
-                    paintHandler.drawDetections(graphics, mapView, dataSet.getDetections(),
+                if (dataSet.getDetections() != null && context.displaysDataType(DataType.DETECTION)) {
+                    paintHandler.drawDetections(graphics, context, dataSet.getDetections(),
                             dataSet.getSelectedDetection(), isTransparent);
                 }
 
                 // draw clusters
-                if ((dataSet.getClusters() != null && dataTypes.contains(DataType.CLUSTER))
+                if ((dataSet.getClusters() != null && context.displaysDataType(DataType.CLUSTER))
                         || dataSet.isRemoteSelection()) {
-                    paintHandler.drawClusters(graphics, mapView, dataSet.getClusters(), dataSet.getSelectedCluster(),
+                    paintHandler.drawClusters(graphics, context, dataSet.getClusters(), dataSet.getSelectedCluster(),
                             dataSet.getSelectedPhoto(), dataSet.getSelectedDetection());
                 }
             }
 
             // draw sequence if any
             if (dataSet.getSelectedSequence() != null && dataSet.getSelectedSequence().hasData()) {
-                paintHandler.drawSequence(graphics, mapView, dataSet.getSelectedSequence(), dataSet.getSelectedPhoto(),
+                paintHandler.drawSequence(graphics, context, dataSet.getSelectedSequence(), dataSet.getSelectedPhoto(),
                         dataSet.getSelectedDetection());
             }
 
             // draw downloaded matched data
             if (dataSet.hasMatchedData()) {
-                paintHandler.drawMatchedData(graphics, mapView, dataSet.getMatchedData());
+                paintHandler.drawMatchedData(graphics, context, matchedDataModel(dataSet.getMatchedData()));
+            }
+
+            // the cached data is displayed while it is being revalidated
+            if (!dataSet.hasSegments() && dataSet.isHighZoomLevelDataStale()) {
+                paintHandler.drawStaleDataLabel(graphics, context, GuiConfig.getInstance().getLayerStaleDataLbl());
             }
 
-            graphics.setComposite(originalComposite);
+            graphics.setComposite(context.getLayerComposite());
             graphics.setStroke(originalStroke);
         }
     }
 
 
+    private MatchedDataModel matchedDataModel(final List<OsmElement> matchedData) {
+        if (matchedData != modelMatchedData) {
+            matchedDataModel = MatchedDataModel.build(matchedData);
+            modelMatchedData = matchedData;
+        }
+        return matchedDataModel;
+    }
+
     public void enablePhotoDataSetDownloadActions() {
         final DataSet dataSet = DataSet.getInstance();
         boolean enablePrevious = false;
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.gui.layer;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.ImageIcon;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedNode;
+import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedRelation;
+import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedWay;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElementType;
+import org.openstreetmap.josm.tools.ImageProvider;
+
+
+/**
+ * Holds the downloaded OSM matched data in the form in which it is drawn to the map. The model is built only once,
+ * when the downloaded matched data is first drawn; the relation members are translated, the colors are assigned based
+ * on the member roles and the icons are resolved, such that the layer repaints only need to project the coordinates.
+ *
+ * @author laurad
+ * @version $Revision$
+ */
+final class MatchedDataModel {
+
+    private static final String ROLE_FROM = "FROM";
+    private static final String ROLE_VIA = "VIA";
+    private static final String ROLE_TO = "TO";
+
+    private final List<NodeGeometry> nodes;
+    private final List<WayGeometry> ways;
+
+
+    private MatchedDataModel(final List<NodeGeometry> nodes, final List<WayGeometry> ways) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.ways = Collections.unmodifiableList(ways);
+    }
+
+
+    /**
+     * Builds the render model of the given downloaded matched data.
+     *
+     * @param matchedData a list of {@code DownloadedNode}, {@code DownloadedWay} and {@code DownloadedRelation}
+     * elements
+     * @return a {@code MatchedDataModel} object
+     */
+    static MatchedDataModel build(final List<OsmElement> matchedData) {
+        final List<NodeGeometry> nodes = new ArrayList<>();
+        final List<WayGeometry> ways = new ArrayList<>();
+        ImageIcon nodeIcon = null;
+        for (final OsmElement element : matchedData) {
+            switch (element.getType()) {
+                case NODE:
+                    if (nodeIcon == null) {
+                        nodeIcon = ImageProvider.get("data", "node.svg", ImageProvider.ImageSizes.LARGEICON);
+                    }
+                    final Node node = ((DownloadedNode) element).getMatchedNode();
+                    nodes.add(new NodeGeometry(new LatLon(node.lat(), node.lon()), nodeIcon));
+                    break;
+                case WAY:
+                case WAY_SECTION:
+                    ways.add(new WayGeometry((DownloadedWay) element, Color.RED));
+                    break;
+                case RELATION:
+                    final DownloadedRelation relation = (DownloadedRelation) element;
+                    relation.translateIdenticalMembers();
+                    for (final DownloadedWay member : relation.getDownloadedMembers()) {
+                        ways.add(new WayGeometry(member, roleColor(member.getTag())));
+                    }
+                    break;
+            }
+        }
+        return new MatchedDataModel(nodes, ways);
+    }
+
+    private static Color roleColor(final String role) {
+        final Color color;
+        if (ROLE_FROM.equals(role)) {
+            color = Color.GREEN;
+        } else if (ROLE_VIA.equals(role)) {
+            color = Color.BLUE;
+        } else {
+            // TO members and members without a known role
+            color = Color.RED;
+        }
+        return color;
+    }
+
+
+    List<NodeGeometry> getNodes() {
+        return nodes;
+    }
+
+    List<WayGeometry> getWays() {
+        return ways;
+    }
+
+
+    /**
+     * Defines the drawable form of a matched node.
+     */
+    static final class NodeGeometry {
+
+        private final LatLon point;
+        private final ImageIcon icon;
+
+
+        private NodeGeometry(final LatLon point, final ImageIcon icon) {
+            this.point = point;
+            this.icon = icon;
+        }
+
+        LatLon getPoint() {
+            return point;
+        }
+
+        ImageIcon getIcon() {
+            return icon;
+        }
+    }
+
+
+    /**
+     * Defines the drawable form of a matched way or way section.
+     */
+    static final class WayGeometry {
+
+        private final List<LatLon> geometry;
+        private final Color color;
+        private final String tag;
+        private final LatLon fromPoint;
+        private final LatLon toPoint;
+        private final LatLon middlePoint;
+        private final boolean isSection;
+        private final boolean isStraight;
+
+
+        private WayGeometry(final DownloadedWay way, final Color color) {
+            this.color = color;
+            this.isSection = way.getType() != OsmElementType.WAY;
+            final List<Node> nodes = way.getDownloadedNodes();
+            final List<LatLon> points = new ArrayList<>();
+            if (isSection) {
+                final int startIndex = nodes.indexOf(way.getMatchedFromNode());
+                final int endIndex = nodes.indexOf(way.getMatchedToNode());
+                for (int i = Math.min(startIndex, endIndex); i <= Math.max(startIndex, endIndex); i++) {
+                    points.add(new LatLon(nodes.get(i).lat(), nodes.get(i).lon()));
+                }
+                this.tag = way.getTag();
+                this.fromPoint = new LatLon(way.getMatchedFromNode().lat(), way.getMatchedFromNode().lon());
+                this.toPoint = new LatLon(way.getMatchedToNode().lat(), way.getMatchedToNode().lon());
+                this.isStraight = way.isStraight();
+                if (isStraight) {
+                    // the middle point depends on the map view bounds, it is computed when the tag is drawn
+                    this.middlePoint = null;
+                } else {
+                    final Node middleNode = nodes.get((startIndex + endIndex) / 2);
+                    this.middlePoint = new LatLon(middleNode.lat(), middleNode.lon());
+                }
+            } else {
+                for (final Node node : nodes) {
+                    points.add(new LatLon(node.lat(), node.lon()));
+                }
+                this.tag = null;
+                this.fromPoint = null;
+                this.toPoint = null;
+                this.middlePoint = null;
+                this.isStraight = false;
+            }
+            this.geometry = Collections.unmodifiableList(points);
+        }
+
+        List<LatLon> getGeometry() {
+            return geometry;
+        }
+
+        Color getColor() {
+            return color;
+        }
+
+        String getTag() {
+            return tag;
+        }
+
+        LatLon getFromPoint() {
+            return fromPoint;
+        }
+
+        LatLon getToPoint() {
+            return toPoint;
+        }
+
+        LatLon getMiddlePoint() {
+            return middlePoint;
+        }
+
+        boolean isSection() {
+            return isSection;
+        }
+
+        boolean isStraight() {
+            return isStraight;
+        }
+    }
+}
@@ -13,39 +13,26 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.SortedMap;
-import java.util.stream.Collectors;
 import javax.swing.ImageIcon;
 import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
 import org.openstreetmap.josm.plugins.kartaview.util.Util;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.IconConfig;
-import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.coor.LatLon;
-import org.openstreetmap.josm.data.osm.Node;
-import org.openstreetmap.josm.gui.MapView;
-import org.openstreetmap.josm.plugins.kartaview.DataSet;
 import org.openstreetmap.josm.plugins.kartaview.argument.ClusterSettings;
 import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
 import org.openstreetmap.josm.plugins.kartaview.argument.Projection;
 import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
-import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedNode;
-import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedRelation;
-import org.openstreetmap.josm.plugins.kartaview.entity.DownloadedWay;
-import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
-import org.openstreetmap.josm.plugins.kartaview.entity.OsmElementType;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
 import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
 import org.openstreetmap.josm.plugins.kartaview.gui.ClusterBackgroundIconFactory;
 import org.openstreetmap.josm.plugins.kartaview.gui.DetectionIconFactory;
-import org.openstreetmap.josm.plugins.kartaview.service.apollo.DetectionFilter;
-import org.openstreetmap.josm.tools.ImageProvider;
 import com.grab.josm.common.entity.Coordinate;
 import com.grab.josm.common.entity.Pair;
 import com.grab.josm.common.gui.PaintManager;
@@ -53,9 +40,13 @@ import com.grab.josm.common.util.GeometryUtil;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.ARROW_LENGTH;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.MIN_ARROW_ZOOM;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.OPAQUE_COMPOSITE;
+import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.PHOTO_BADGE_COLOR;
+import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.PHOTO_BADGE_OFFSET;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.SEGMENT_COLOR;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.SEGMENT_STROKE;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.SEQUENCE_LINE;
+import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.STALE_LABEL_COLOR;
+import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.STALE_LABEL_OFFSET;
 import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.TRANSPARENT_COMPOSITE;
 
 
@@ -67,14 +58,17 @@ import static org.openstreetmap.josm.plugins.kartaview.gui.layer.Constants.TRANS
  */
 class PaintHandler {
 
+    /** the screen geometry of the selected cluster, reused between repaints while the map view does not change */
+    private ClusterDataGeometry clusterDataGeometry;
+
     /**
      * Draws a list of segments to the map.
      *
      * @param graphics a {@code Graphics2D} used to draw elements to the map
-     * @param mapView a {@code MapView} represents the current map view
+     * @param context a {@code RenderContext} holds the current map view and paint settings
      * @param segments a list of {@code Segment}s
      */
-    void drawSegments(final Graphics2D graphics, final MapView mapView, final List<Segment> segments) {
+    void drawSegments(final Graphics2D graphics, final RenderContext context, final List<Segment> segments) {
         graphics.setColor(SEGMENT_COLOR);
         graphics.setStroke(SEGMENT_STROKE);
         final SortedMap<Integer, Float> transparencyMap = PaintUtil.generateSegmentTransparencyMap(segments);
@@ -83,105 +77,132 @@ class PaintHandler {
             final Float val =
                     PaintUtil.segmentTransparency(transparencyMap, segment.getCoverage(), originalComposite.getAlpha());
             graphics.setComposite(originalComposite.derive(val));
-            PaintManager.drawSegment(graphics, toPoints(mapView, segment.getGeometry()));
+            PaintManager.drawSegment(graphics, toPoints(context, segment.getGeometry()));
         }
     }
 
     /**
-     * Draws a list of photo locations to the map. The photo locations are rotated based on heading if available.
+     * Draws a list of photo locations to the map. The photo locations are rotated based on heading if available. If
+     * the view contains too many photo locations, only one representative location is drawn for each screen-space
+     * cell, together with a badge displaying the number of photos from that cell.
      *
      * @param graphics a {@code Graphics2D} used to draw elements to the map
-     * @param mapView a {@code MapView} represents the current map view
+     * @param context a {@code RenderContext} holds the current map view and paint settings
      * @param photos a list of {@code Photo}s
-     * @param selectedPhoto
-     * @param isTransparent
+     * @param selectedPhoto the currently selected {@code Photo}, it is always drawn
+     * @param isTransparent if true the photos are drawn with a transparent composite
      */
-    void drawPhotos(final Graphics2D graphics, final MapView mapView, final List<Photo> photos,
+    void drawPhotos(final Graphics2D graphics, final RenderContext context, final List<Photo> photos,
             final Photo selectedPhoto, final boolean isTransparent) {
         final Composite composite = isTransparent ? TRANSPARENT_COMPOSITE : graphics.getComposite();
 
         // draw photo locations
         if (photos != null) {
             graphics.setComposite(composite);
-            for (final Photo photo : photos) {
-                if (!photo.equals(selectedPhoto)) {
-                    drawPhoto(graphics, mapView, photo, false);
+            final Map<Photo, Integer> displayedPhotos =
+                    Util.declutterPhotos(context.getMapView(), photos, context::contains);
+            final Font badgeFont = context.getFont().deriveFont(Font.BOLD);
+            for (final Entry<Photo, Integer> entry : displayedPhotos.entrySet()) {
+                if (!entry.getKey().equals(selectedPhoto)) {
+                    drawPhoto(graphics, context, entry.getKey(), false);
+                }
+                if (entry.getValue() > 1) {
+                    drawPhotoCountBadge(graphics, context, entry.getKey(), entry.getValue(), badgeFont, composite);
                 }
             }
         }
 
         if (selectedPhoto != null) {
-            drawPhoto(graphics, mapView, selectedPhoto, !isTransparent);
+            drawPhoto(graphics, context, selectedPhoto, !isTransparent);
         }
     }
 
-    void drawSequence(final Graphics2D graphics, final MapView mapView, final Sequence sequence,
+    private void drawPhotoCountBadge(final Graphics2D graphics, final RenderContext context, final Photo photo,
+            final int count, final Font font, final Composite composite) {
+        final Point point = context.getPoint(photo.getPoint());
+        point.translate(PHOTO_BADGE_OFFSET, -PHOTO_BADGE_OFFSET);
+        PaintManager.drawText(graphics, String.valueOf(count), point, font, Color.WHITE, PHOTO_BADGE_COLOR,
+                composite);
+    }
+
+    /**
+     * Draws a label in the upper left corner of the map view, indicating that the displayed data was taken from the
+     * cache and it is being refreshed.
+     *
+     * @param graphics a {@code Graphics2D} used to draw elements to the map
+     * @param context a {@code RenderContext} holds the current map view and paint settings
+     * @param text the text of the label
+     */
+    void drawStaleDataLabel(final Graphics2D graphics, final RenderContext context, final String text) {
+        final Font font = context.getFont().deriveFont(Font.BOLD);
+        final Point point =
+                new Point(STALE_LABEL_OFFSET, STALE_LABEL_OFFSET + graphics.getFontMetrics(font).getAscent());
+        PaintManager.drawText(graphics, text, point, font, Color.WHITE, STALE_LABEL_COLOR, OPAQUE_COMPOSITE);
+    }
+
+    void drawSequence(final Graphics2D graphics, final RenderContext context, final Sequence sequence,
             final Photo selectedPhoto, final Detection selectedDetection) {
         graphics.setComposite(OPAQUE_COMPOSITE);
         graphics.setStroke(SEQUENCE_LINE);
 
-        final boolean drawPhotos =
-                PreferenceManager.getInstance().loadSearchFilter().getDataTypes().contains(DataType.PHOTO);
-        final boolean drawDetections =
-                PreferenceManager.getInstance().loadSearchFilter().getDataTypes().contains(DataType.DETECTION);
+        final boolean drawPhotos = context.displaysDataType(DataType.PHOTO);
+        final boolean drawDetections = context.displaysDataType(DataType.DETECTION);
         if (sequence != null) {
             if (sequence.hasPhotos()) {
-                drawSequencePhotos(graphics, mapView, sequence.getPhotos(), drawPhotos);
+                drawSequencePhotos(graphics, context, sequence.getPhotos(), drawPhotos);
             }
 
             if (sequence.hasDetections() && drawDetections) {
-                drawSequenceDetections(graphics, mapView, sequence.getDetections(), selectedDetection);
+                drawSequenceDetections(graphics, context, sequence.getDetections(), selectedDetection);
             }
         }
         if (selectedPhoto != null && drawPhotos) {
-            drawPhoto(graphics, mapView, selectedPhoto, true);
+            drawPhoto(graphics, context, selectedPhoto, true);
         }
         if (selectedDetection != null && drawDetections) {
-            drawDetection(graphics, mapView, selectedDetection, true);
+            drawDetection(graphics, context, selectedDetection, true);
         }
     }
 
-    private void drawSequencePhotos(final Graphics2D graphics, final MapView mapView, final List<Photo> photos,
+    private void drawSequencePhotos(final Graphics2D graphics, final RenderContext context, final List<Photo> photos,
             final boolean drawPhotos) {
-        final Double arrowLength =
-                Util.zoom(mapView.getRealBounds()) > MIN_ARROW_ZOOM ? ARROW_LENGTH * mapView.getScale() : null;
-                graphics.setColor(PaintUtil.lineColor(mapView, Constants.SEQUENCE_LINE_COLOR));
-
-                Photo prevPhoto = photos.get(0);
-                for (int i = 1; i <= photos.size() - 1; i++) {
-                    final Photo currentPhoto = photos.get(i);
-                    // at least one of the photos is in current view draw line
-                    drawLine(graphics, mapView, prevPhoto.getPoint(), currentPhoto.getPoint(), arrowLength);
-
-                    if (drawPhotos) {
-                        drawPhoto(graphics, mapView, prevPhoto, false);
-                    }
-                    prevPhoto = currentPhoto;
-                }
-                if (drawPhotos) {
-                    drawPhoto(graphics, mapView, prevPhoto, false);
-                }
+        final Double arrowLength = context.getZoom() > MIN_ARROW_ZOOM ? ARROW_LENGTH * context.getScale() : null;
+        graphics.setColor(context.getSequenceLineColor());
+
+        Photo prevPhoto = photos.get(0);
+        for (int i = 1; i <= photos.size() - 1; i++) {
+            final Photo currentPhoto = photos.get(i);
+            // at least one of the photos is in current view draw line
+            drawLine(graphics, context, prevPhoto.getPoint(), currentPhoto.getPoint(), arrowLength);
+
+            if (drawPhotos) {
+                drawPhoto(graphics, context, prevPhoto, false);
+            }
+            prevPhoto = currentPhoto;
+        }
+        if (drawPhotos) {
+            drawPhoto(graphics, context, prevPhoto, false);
+        }
     }
 
-    void drawSequenceDetections(final Graphics2D graphics, final MapView mapView, final List<Detection> detections,
-            final Detection selectedDetection) {
+    void drawSequenceDetections(final Graphics2D graphics, final RenderContext context,
+            final List<Detection> detections, final Detection selectedDetection) {
         // filter detections
-        final DetectionFilter filter = PreferenceManager.getInstance().loadSearchFilter().getDetectionFilter();
-        final List<Detection> filteredDetections = Util.filterDetections(detections, filter);
+        final List<Detection> filteredDetections = Util.filterDetections(detections, context.getDetectionFilter());
         // draw map detections
         for (final Detection detection : filteredDetections) {
             if (selectedDetection == null || (!detection.equals(selectedDetection))) {
-                drawDetection(graphics, mapView, detection, false);
+                drawDetection(graphics, context, detection, false);
             }
         }
 
         if (selectedDetection != null) {
-            drawDetection(graphics, mapView, selectedDetection, true);
+            drawDetection(graphics, context, selectedDetection, true);
         }
     }
 
 
-    void drawDetections(final Graphics2D graphics, final MapView mapView, final List<Detection> detections,
+    void drawDetections(final Graphics2D graphics, final RenderContext context, final List<Detection> detections,
             final Detection selectedDetection, final boolean isTransparent) {
         final Composite composite = isTransparent ? TRANSPARENT_COMPOSITE : graphics.getComposite();
         graphics.setComposite(composite);
@@ -189,238 +210,213 @@ class PaintHandler {
         // draw map detections
         for (final Detection detection : detections) {
             if (selectedDetection == null || (!detection.equals(selectedDetection))) {
-                drawDetection(graphics, mapView, detection, false);
+                drawDetection(graphics, context, detection, false);
             }
         }
 
         if (selectedDetection != null) {
             graphics.setComposite(OPAQUE_COMPOSITE);
-            drawDetection(graphics, mapView, selectedDetection, true);
+            drawDetection(graphics, context, selectedDetection, true);
         }
     }
 
-    void drawClusters(final Graphics2D graphics, final MapView mapView, final List<Cluster> clusters,
+    void drawClusters(final Graphics2D graphics, final RenderContext context, final List<Cluster> clusters,
             final Cluster selectedCluster, final Photo selectedPhoto, final Detection selectedDetection) {
         final Composite composite = selectedCluster != null ? TRANSPARENT_COMPOSITE : graphics.getComposite();
         graphics.setComposite(composite);
         if (clusters != null) {
             for (final Cluster cluster : clusters) {
                 if (selectedCluster == null || !cluster.equals(selectedCluster)) {
-                    drawCluster(graphics, mapView, cluster, selectedPhoto, false);
+                    drawCluster(graphics, context, cluster, selectedPhoto, false);
                 }
             }
         }
         if (selectedCluster != null) {
             graphics.setComposite(OPAQUE_COMPOSITE);
-            drawCluster(graphics, mapView, selectedCluster, selectedPhoto, true);
+            drawCluster(graphics, context, selectedCluster, selectedPhoto, true);
             if (selectedPhoto != null && selectedDetection != null) {
                 graphics.setComposite(OPAQUE_COMPOSITE);
-                drawPhoto(graphics, mapView, selectedPhoto, true);
+                drawPhoto(graphics, context, selectedPhoto, true);
             } else {
                 if (selectedPhoto != null && !selectedCluster.getPoint().equals(selectedPhoto.getPoint())) {
-                    drawPhoto(graphics, mapView, selectedPhoto, true);
+                    drawPhoto(graphics, context, selectedPhoto, true);
                 }
                 if (selectedDetection != null && !selectedCluster.getPoint().equals(selectedDetection.getPoint())) {
-                    drawDetection(graphics, mapView, selectedDetection, true);
+                    drawDetection(graphics, context, selectedDetection, true);
                 }
             }
         }
     }
 
-    void drawMatchedData(final Graphics2D graphics, final MapView mapView, final List<OsmElement> matchedData) {
-        for (final OsmElement element : matchedData) {
-            switch (element.getType()) {
-                case NODE:
-                    drawNodeIcon(graphics, mapView, (DownloadedNode) element);
-                    break;
-                case WAY:
-                    drawWay(graphics, mapView, (DownloadedWay) element, Color.RED);
-                    break;
-                case WAY_SECTION:
-                    drawWay(graphics, mapView, (DownloadedWay) element, Color.RED);
-                    break;
-                case RELATION:
-                    final DownloadedRelation relation = (DownloadedRelation) element;
-                    relation.translateIdenticalMembers();
-                    for (final DownloadedWay member : relation.getDownloadedMembers()) {
-                        switch (member.getTag()) {
-                            case "FROM":
-                                drawWay(graphics, mapView, member, Color.GREEN);
-                                break;
-                            case "VIA":
-                                drawWay(graphics, mapView, member, Color.BLUE);
-                                break;
-                            case "TO":
-                                drawWay(graphics, mapView, member, Color.RED);
-                                break;
-                            default:
-                                drawWay(graphics, mapView, member, Color.RED);
-                                break;
-
-                        }
-                    }
-                    break;
-            }
+    void drawMatchedData(final Graphics2D graphics, final RenderContext context, final MatchedDataModel matchedData) {
+        for (final MatchedDataModel.NodeGeometry node : matchedData.getNodes()) {
+            PaintManager.drawIcon(graphics, node.getIcon(), context.getPoint(node.getPoint()));
+        }
+        final ClusterSettings clusterSettings = context.getClusterSettings();
+        for (final MatchedDataModel.WayGeometry way : matchedData.getWays()) {
+            drawWay(graphics, context, way, clusterSettings.isDisplayTags());
         }
     }
 
-    private void drawPhoto(final Graphics2D graphics, final MapView mapView, final Photo photo,
+    private void drawPhoto(final Graphics2D graphics, final RenderContext context, final Photo photo,
             final boolean isSelected) {
-        if (Util.containsLatLon(mapView, photo.getPoint())) {
-            final Point point = mapView.getPoint(photo.getPoint());
-            if (DataSet.getInstance().getSelectedCluster() != null
-                    && DataSet.getInstance().getSelectedCluster().getPhotos() != null
-                    && DataSet.getInstance().getSelectedCluster().getPhotos().contains(photo)) {
-                if (photo.getProjectionType() != null && photo.getProjectionType().equals(Projection.SPHERE)) {
-                    if (photo.getHeading() != null) {
-                        final ImageIcon icon = isSelected ? IconConfig.getInstance().getPhotoWrappedSelectedIconPurple() :
-                                IconConfig.getInstance().getPhotoWrappedUnselectedIconPurple();
-                        PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
-                    } else {
-                        final ImageIcon icon =
-                                isSelected ? IconConfig.getInstance().getPhotoWrappedNoHeadingSelectedIconPurple() :
-                                        IconConfig.getInstance().getPhotoWrappedNoHeadingUnselectedIconPurple();
-                        PaintManager.drawIcon(graphics, icon, point);
-                    }
+        if (context.contains(photo.getPoint())) {
+            drawPhotoIcon(graphics, context, photo, context.getPoint(photo.getPoint()), isSelected);
+        }
+    }
+
+    private void drawPhotoIcon(final Graphics2D graphics, final RenderContext context, final Photo photo,
+            final Point point, final boolean isSelected) {
+        final IconConfig iconConfig = context.getIconConfig();
+        if (context.isSelectedClusterPhoto(photo)) {
+            if (photo.getProjectionType() != null && photo.getProjectionType().equals(Projection.SPHERE)) {
+                if (photo.getHeading() != null) {
+                    final ImageIcon icon = isSelected ? iconConfig.getPhotoWrappedSelectedIconPurple() :
+                            iconConfig.getPhotoWrappedUnselectedIconPurple();
+                    PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
                 } else {
-                    if (photo.getHeading() != null) {
-                        final ImageIcon icon = isSelected ? IconConfig.getInstance().getPhotoSelectedIconPurple() :
-                                IconConfig.getInstance().getPhotoUnselectedIconPurple();
-                        PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
-                    } else {
-                        final ImageIcon icon =
-                                isSelected ? IconConfig.getInstance().getPhotoNoHeadingSelectedIconPurple() :
-                                        IconConfig.getInstance().getPhotoNoHeadingUnselectedIconPurple();
-                        PaintManager.drawIcon(graphics, icon, point);
-                    }
+                    final ImageIcon icon =
+                            isSelected ? iconConfig.getPhotoWrappedNoHeadingSelectedIconPurple() :
+                                    iconConfig.getPhotoWrappedNoHeadingUnselectedIconPurple();
+                    PaintManager.drawIcon(graphics, icon, point);
                 }
             } else {
-                if (photo.getProjectionType() != null && photo.getProjectionType().equals(Projection.SPHERE)) {
-                    if (photo.getHeading() != null) {
-                        final ImageIcon icon = isSelected ? IconConfig.getInstance().getPhotoWrappedSelectedIcon() :
-                                IconConfig.getInstance().getPhotoWrappedUnselectedIcon();
-                        PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
-                    } else {
-                        final ImageIcon icon =
-                                isSelected ? IconConfig.getInstance().getPhotoWrappedNoHeadingSelectedIcon() :
-                                        IconConfig.getInstance().getPhotoWrappedNoHeadingUnselectedIcon();
-                        PaintManager.drawIcon(graphics, icon, point);
-                    }
+                if (photo.getHeading() != null) {
+                    final ImageIcon icon = isSelected ? iconConfig.getPhotoSelectedIconPurple() :
+                            iconConfig.getPhotoUnselectedIconPurple();
+                    PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
                 } else {
-                    if (photo.getHeading() != null) {
-                        final ImageIcon icon = isSelected ? IconConfig.getInstance().getPhotoSelectedIcon() :
-                                IconConfig.getInstance().getPhotoIcon();
-                        PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
-                    } else {
-                        final ImageIcon icon = isSelected ? IconConfig.getInstance().getPhotoNoHeadingSelectedIcon() :
-                                IconConfig.getInstance().getPhotoNoHeadingIcon();
-                        PaintManager.drawIcon(graphics, icon, point);
-                    }
+                    final ImageIcon icon =
+                            isSelected ? iconConfig.getPhotoNoHeadingSelectedIconPurple() :
+                                    iconConfig.getPhotoNoHeadingUnselectedIconPurple();
+                    PaintManager.drawIcon(graphics, icon, point);
                 }
-
             }
+        } else {
+            if (photo.getProjectionType() != null && photo.getProjectionType().equals(Projection.SPHERE)) {
+                if (photo.getHeading() != null) {
+                    final ImageIcon icon = isSelected ? iconConfig.getPhotoWrappedSelectedIcon() :
+                            iconConfig.getPhotoWrappedUnselectedIcon();
+                    PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
+                } else {
+                    final ImageIcon icon =
+                            isSelected ? iconConfig.getPhotoWrappedNoHeadingSelectedIcon() :
+                                    iconConfig.getPhotoWrappedNoHeadingUnselectedIcon();
+                    PaintManager.drawIcon(graphics, icon, point);
+                }
+            } else {
+                if (photo.getHeading() != null) {
+                    final ImageIcon icon = isSelected ? iconConfig.getPhotoSelectedIcon() :
+                            iconConfig.getPhotoIcon();
+                    PaintManager.drawIcon(graphics, icon, point, photo.getHeading());
+                } else {
+                    final ImageIcon icon = isSelected ? iconConfig.getPhotoNoHeadingSelectedIcon() :
+                            iconConfig.getPhotoNoHeadingIcon();
+                    PaintManager.drawIcon(graphics, icon, point);
+                }
+            }
+
         }
     }
 
 
-    private void drawLine(final Graphics2D graphics, final MapView mapView, final LatLon start, final LatLon end,
+    private void drawLine(final Graphics2D graphics, final RenderContext context, final LatLon start, final LatLon end,
             final Double arrowLength) {
-        if (Util.containsLatLon(mapView, start) || Util.containsLatLon(mapView, end)) {
-            final Pair<Point, Point> lineGeometry = new Pair<>(mapView.getPoint(start), mapView.getPoint(end));
+        if (context.contains(start) || context.contains(end)) {
+            final Pair<Point, Point> lineGeometry = new Pair<>(context.getPoint(start), context.getPoint(end));
             if (arrowLength == null) {
                 PaintManager.drawLine(graphics, lineGeometry);
             } else {
                 final Pair<Pair<Point, Point>, Pair<Point, Point>> arrowGeometry =
-                        getArrowGeometry(mapView, start, end, arrowLength);
+                        getArrowGeometry(context, start, end, arrowLength);
                 PaintManager.drawDirectedLine(graphics, lineGeometry, arrowGeometry);
             }
         }
     }
 
-    private Pair<Pair<Point, Point>, Pair<Point, Point>> getArrowGeometry(final MapView mapView, final LatLon start,
-            final LatLon end, final double length) {
+    private Pair<Pair<Point, Point>, Pair<Point, Point>> getArrowGeometry(final RenderContext context,
+            final LatLon start, final LatLon end, final double length) {
         final LatLon midPoint = new LatLon((start.lat() + end.lat()) / 2, (start.lon() + end.lon()) / 2);
         final double bearing = Math.toDegrees(start.bearing(midPoint));
         final Pair<Coordinate, Coordinate> arrowEndCoordinates =
                 GeometryUtil.arrowEndPoints(new Coordinate(midPoint.lat(), midPoint.lon()), bearing, -length);
-        final Pair<Point, Point> arrowLine1 = new Pair<>(mapView.getPoint(midPoint), mapView.getPoint(
+        final Pair<Point, Point> arrowLine1 = new Pair<>(context.getPoint(midPoint), context.getPoint(
                 new LatLon(arrowEndCoordinates.getFirst().getLat(), arrowEndCoordinates.getFirst().getLon())));
-        final Pair<Point, Point> arrowLine2 = new Pair<>(mapView.getPoint(midPoint), mapView.getPoint(
+        final Pair<Point, Point> arrowLine2 = new Pair<>(context.getPoint(midPoint), context.getPoint(
                 new LatLon(arrowEndCoordinates.getSecond().getLat(), arrowEndCoordinates.getSecond().getLon())));
         return new Pair<>(arrowLine1, arrowLine2);
     }
 
-    private void drawDetection(final Graphics2D graphics, final MapView mapView, final Detection detection,
+    private void drawDetection(final Graphics2D graphics, final RenderContext context, final Detection detection,
             final boolean isSelected) {
-        final Point point = mapView.getPoint(detection.getPoint());
-        final ImageIcon icon = DetectionIconFactory.INSTANCE.getIcon(detection.getSign(), isSelected);
-        if (Util.containsLatLon(mapView, detection.getPoint())) {
-            PaintManager.drawIcon(graphics, icon, point);
+        if (context.contains(detection.getPoint())) {
+            drawDetectionIcon(graphics, detection, context.getPoint(detection.getPoint()), isSelected);
         }
     }
 
-    private void drawCluster(final Graphics2D graphics, final MapView mapView, final Cluster cluster,
+    private void drawDetectionIcon(final Graphics2D graphics, final Detection detection, final Point point,
+            final boolean isSelected) {
+        final ImageIcon icon = DetectionIconFactory.INSTANCE.getIcon(detection.getSign(), isSelected);
+        PaintManager.drawIcon(graphics, icon, point);
+    }
+
+    private void drawCluster(final Graphics2D graphics, final RenderContext context, final Cluster cluster,
             final Photo selectedPhoto, final boolean isSelected) {
-        final ClusterSettings clusterSettings = PreferenceManager.getInstance().loadClusterSettings();
+        final ClusterSettings clusterSettings = context.getClusterSettings();
         if (isSelected) {
             if (clusterSettings != null && clusterSettings.isDisplayDetectionLocations()) {
                 if (cluster.getDetections() != null && cluster.getPhotos() != null) {
-                    drawClusterData(graphics, mapView, cluster, selectedPhoto);
+                    drawClusterData(graphics, context, cluster, selectedPhoto);
                 } else if (cluster.getPhotos() != null) {
-                    drawPhotos(graphics, mapView, cluster.getPhotos(), selectedPhoto, false);
+                    drawPhotos(graphics, context, cluster.getPhotos(), selectedPhoto, false);
                 }
             } else {
-                drawPhotos(graphics, mapView, cluster.getPhotos(), selectedPhoto, false);
+                drawPhotos(graphics, context, cluster.getPhotos(), selectedPhoto, false);
             }
         }
-        if (Util.containsLatLon(mapView, cluster.getPoint())) {
+        if (context.contains(cluster.getPoint())) {
             final boolean isColored = clusterSettings != null && clusterSettings.isDisplayColorCoded();
-            drawClusterIcon(graphics, mapView, cluster, isSelected, isColored);
+            drawClusterIcon(graphics, context, cluster, isSelected, isColored);
         }
     }
 
-    private void drawClusterData(final Graphics2D graphics, final MapView mapView, final Cluster cluster,
+    private void drawClusterData(final Graphics2D graphics, final RenderContext context, final Cluster cluster,
             final Photo selectedPhoto) {
-        final Map<Photo, List<Detection>> metadata = new HashMap<>();
-        for (final Photo photo : cluster.getPhotos()) {
-            final List<Detection> photoDetections =
-                    cluster.getDetections().stream()
-                    .filter(d -> d.getSequenceId().equals(photo.getSequenceId())
-                            && d.getSequenceIndex().equals(photo.getSequenceIndex()))
-                    .collect(Collectors.toList());
-            metadata.put(photo, photoDetections);
+        if (clusterDataGeometry == null || !clusterDataGeometry.isValid(context.getMapView(), cluster)) {
+            clusterDataGeometry = new ClusterDataGeometry(context.getMapView(), cluster);
         }
-        graphics.setColor(PaintUtil.lineColor(mapView, Constants.CLUSTER_DATA_LINE_COLOR));
+        graphics.setColor(context.getClusterDataLineColor());
         graphics.setStroke(Constants.CLUSTER_DATA_LINE);
-        for (final Entry<Photo, List<Detection>> entry : metadata.entrySet()) {
+        for (final Entry<Photo, List<Detection>> entry : cluster.getPhotoDetections().entrySet()) {
             // draw line
-            final Point photoPoint = mapView.getPoint(entry.getKey().getPoint());
             final Composite origComposite = graphics.getComposite();
             final boolean isPhotoSelected = selectedPhoto != null && selectedPhoto.equals(entry.getKey());
             final Composite composite = isPhotoSelected ? OPAQUE_COMPOSITE : TRANSPARENT_COMPOSITE;
             graphics.setComposite(composite);
-            for (final Detection d : entry.getValue()) {
-                final Point detectionPoint = mapView.getPoint(d.getPoint());
-                if (!photoPoint.equals(detectionPoint)) {
-                    final Pair<Point, Point> lineGeometry = new Pair<>(photoPoint, detectionPoint);
-                    PaintManager.drawLine(graphics, lineGeometry);
-                }
+            for (final Pair<Point, Point> lineGeometry : clusterDataGeometry.getLines(entry.getKey())) {
+                PaintManager.drawLine(graphics, lineGeometry);
             }
             graphics.setComposite(origComposite);
-            drawPhoto(graphics, mapView, entry.getKey(), false);
+            if (context.contains(entry.getKey().getPoint())) {
+                drawPhotoIcon(graphics, context, entry.getKey(), clusterDataGeometry.getPhotoPoint(entry.getKey()),
+                        false);
+            }
             for (final Detection detection : entry.getValue()) {
-                drawDetection(graphics, mapView, detection, isPhotoSelected);
+                if (context.contains(detection.getPoint())) {
+                    drawDetectionIcon(graphics, detection, clusterDataGeometry.getDetectionPoint(detection),
+                            isPhotoSelected);
+                }
             }
         }
     }
 
-    private void drawClusterIcon(final Graphics2D graphics, final MapView mapView, final Cluster cluster,
+    private void drawClusterIcon(final Graphics2D graphics, final RenderContext context, final Cluster cluster,
             final boolean isSelected, final boolean isColorCoded) {
         final ImageIcon backgroundIcon =
                 ClusterBackgroundIconFactory.INSTANCE.getClusterBackground(cluster, isSelected, isColorCoded);
         final ImageIcon icon = DetectionIconFactory.INSTANCE.getIcon(cluster.getSign(), false);
         double bearing = 0;
-        final Point point = mapView.getPoint(cluster.getPoint());
+        final Point point = context.getPoint(cluster.getPoint());
         if (cluster.getFacing() != null) {
             bearing = cluster.getFacing();
             PaintManager.drawIcon(graphics, backgroundIcon, point, cluster.getFacing());
@@ -429,65 +425,41 @@ class PaintHandler {
         }
         final Coordinate coord =
                 GeometryUtil.extrapolate(new Coordinate(cluster.getPoint().lat(), cluster.getPoint().lon()), bearing,
-                        mapView.getDist100Pixel() * Constants.CLUSTER_EXTRAPOLATE_DISTANCE);
-        PaintManager.drawIcon(graphics, icon, mapView.getPoint(new LatLon(coord.getLat(), coord.getLon())));
+                        context.getDist100Pixel() * Constants.CLUSTER_EXTRAPOLATE_DISTANCE);
+        PaintManager.drawIcon(graphics, icon, context.getPoint(new LatLon(coord.getLat(), coord.getLon())));
     }
 
-    private List<Point> toPoints(final MapView mapView, final List<LatLon> geometry) {
+    private List<Point> toPoints(final RenderContext context, final List<LatLon> geometry) {
         final List<Point> points = new ArrayList<>();
         for (final LatLon latLon : geometry) {
-            points.add(mapView.getPoint(latLon));
+            points.add(context.getPoint(latLon));
         }
         return points;
     }
 
-    private void drawNodeIcon(final Graphics2D graphics, final MapView mapView, final DownloadedNode node) {
-        final Point point = mapView.getPoint(new LatLon(node.getMatchedNode().lat(), node.getMatchedNode().lon()));
-        final ImageIcon icon = ImageProvider.get("data", "node.svg", ImageProvider.ImageSizes.LARGEICON);
-        PaintManager.drawIcon(graphics, icon, point);
-    }
-
-    private void drawWay(final Graphics2D graphics, final MapView mapView, final DownloadedWay way, final Color color) {
-        final ClusterSettings clusterSettings = PreferenceManager.getInstance().loadClusterSettings();
-        if (way.getType() == OsmElementType.WAY) {
-            final List<Point> geometry =
-                    way.getDownloadedNodes().stream().map(mapView::getPoint).collect(Collectors.toList());
-            PaintManager.drawSegment(graphics, geometry, color, SEQUENCE_LINE);
-        } else {
-            final List<Point> geometry = new ArrayList<>();
-            final int startIndex = way.getDownloadedNodes().indexOf(way.getMatchedFromNode());
-            final int endIndex = way.getDownloadedNodes().indexOf(way.getMatchedToNode());
-            for (int i = Math.min(startIndex, endIndex); i <= Math.max(startIndex, endIndex); i++) {
-                geometry.add(mapView.getPoint(way.getDownloadedNodes().get(i)));
-            }
-            PaintManager.drawSegment(graphics, geometry, color, SEQUENCE_LINE);
-            if (clusterSettings.isDisplayTags() && way.getTag() != null) {
-                drawTag(graphics, mapView, way);
-            }
+    private void drawWay(final Graphics2D graphics, final RenderContext context, final MatchedDataModel.WayGeometry way,
+            final boolean displayTags) {
+        final List<Point> geometry = toPoints(context, way.getGeometry());
+        PaintManager.drawSegment(graphics, geometry, way.getColor(), SEQUENCE_LINE);
+        if (way.isSection() && displayTags && way.getTag() != null) {
+            drawTag(graphics, context, way);
         }
     }
 
-    private void drawTag(final Graphics2D graphics, final MapView mapView, final DownloadedWay way) {
-        final LatLon fromPoint = new LatLon(way.getMatchedFromNode().lat(), way.getMatchedFromNode().lon());
-        final LatLon toPoint = new LatLon(way.getMatchedToNode().lat(), way.getMatchedToNode().lon());
-        Optional<LatLon> middlePoint;
-        if (way.isStraight()) {
-            middlePoint = BoundingBoxUtil.middlePointOfLineInMapViewBounds(fromPoint, toPoint);
-        } else {
-            final int middleIndex = (way.getDownloadedNodes().indexOf(way.getMatchedFromNode())
-                    + way.getDownloadedNodes().indexOf(way.getMatchedToNode())) / 2;
-            final Node middleNode = way.getDownloadedNodes().get(middleIndex);
-            middlePoint = Optional.of(new LatLon(middleNode.lat(), middleNode.lon()));
-        }
+    private void drawTag(final Graphics2D graphics, final RenderContext context,
+            final MatchedDataModel.WayGeometry way) {
+        final Optional<LatLon> middlePoint = way.isStraight()
+                ? BoundingBoxUtil.middlePointOfLineInMapViewBounds(way.getFromPoint(), way.getToPoint())
+                : Optional.of(way.getMiddlePoint());
         if (middlePoint.isPresent()) {
-            final Point textPoint = mapView.getPoint(middlePoint.get());
+            final Point textPoint = context.getPoint(middlePoint.get());
             final int textWidth = graphics.getFontMetrics().stringWidth(way.getTag());
             if (way.getTag().equals("FROM")) {
                 textPoint.translate(-textWidth, 0);
             } else if (way.getTag().equals("TO")) {
                 textPoint.translate(textWidth, 0);
             }
-            PaintManager.drawText(graphics, way.getTag(), textPoint, mapView.getFont().deriveFont(Font.BOLD),
+            PaintManager.drawText(graphics, way.getTag(), textPoint, context.getFont().deriveFont(Font.BOLD),
                     Color.WHITE, Color.BLACK, OPAQUE_COMPOSITE);
         }
     }
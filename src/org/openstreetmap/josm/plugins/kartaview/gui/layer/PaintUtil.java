@@ -77,7 +77,14 @@ final class PaintUtil {
         return transparency;
     }
 
-    static Color lineColor(final MapView mapView, final Color color) {
+    /**
+     * Verifies if the displayed imagery is one of the satellite imageries for which the lines are drawn with a
+     * brighter color. The method walks the layer list, it should be called once per paint.
+     *
+     * @param mapView the current {@code MapView}
+     * @return true if the lines should be brighter, false if they should be darker
+     */
+    static boolean hasBrightLineImagery(final MapView mapView) {
         String mapLayerName = "";
         if (mapView.getLayerManager().getActiveLayer() instanceof ImageryLayer) {
             mapLayerName = ((ImageryLayer) mapView.getLayerManager().getActiveLayer()).getInfo().getName();
@@ -89,7 +96,10 @@ final class PaintUtil {
                 }
             }
         }
-        return mapLayerName.equals(BING_LAYER_NAME) || mapLayerName.equals(MAPBOX_LAYER_NAME) ? color.brighter()
-                : color.darker();
+        return mapLayerName.equals(BING_LAYER_NAME) || mapLayerName.equals(MAPBOX_LAYER_NAME);
+    }
+
+    static Color lineColor(final Color color, final boolean isBright) {
+        return isBright ? color.brighter() : color.darker();
     }
 }
\ No newline at end of file
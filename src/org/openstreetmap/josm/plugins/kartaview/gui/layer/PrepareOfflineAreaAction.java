@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.gui.layer;
+
+import java.awt.event.ActionEvent;
+import org.openstreetmap.josm.actions.JosmAction;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.plugins.kartaview.OfflineAreaTask;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.IconConfig;
+
+
+/**
+ * Prepares the current search area for offline use.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class PrepareOfflineAreaAction extends JosmAction {
+
+    private static final long serialVersionUID = -4308713559221164085L;
+
+    PrepareOfflineAreaAction() {
+        super(GuiConfig.getInstance().getLayerOfflineAreaMenuItemLbl(), IconConfig.getInstance().getDownloadIconName(),
+                GuiConfig.getInstance().getLayerOfflineAreaMenuItemLbl(), null, true);
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent event) {
+        MainApplication.worker.execute(new OfflineAreaTask());
+    }
+}
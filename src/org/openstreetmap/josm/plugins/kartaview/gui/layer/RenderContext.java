@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.gui.layer;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Point;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.gui.MapView;
+import org.openstreetmap.josm.plugins.kartaview.DataSet;
+import org.openstreetmap.josm.plugins.kartaview.argument.ClusterSettings;
+import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
+import org.openstreetmap.josm.plugins.kartaview.argument.MapViewSettings;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.DetectionFilter;
+import org.openstreetmap.josm.plugins.kartaview.util.Util;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.IconConfig;
+import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
+
+
+/**
+ * Holds the information that is needed for painting the layer. The context is built once at the beginning of a
+ * paint, such that the preferences, the map view state and the imagery dependent colors are not recomputed for every
+ * drawn element.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class RenderContext {
+
+    private final MapView mapView;
+    private final int zoom;
+    private final Bounds visibleBounds;
+
+    /** the edit layer data source bounds; null if the elements are visible in the whole map view */
+    private final List<Bounds> dataSourceBounds;
+    private final MapViewSettings mapViewSettings;
+    private final ClusterSettings clusterSettings;
+    private final List<DataType> dataTypes;
+    private final DetectionFilter detectionFilter;
+    private final Color sequenceLineColor;
+    private final Color clusterDataLineColor;
+    private final Composite layerComposite;
+    private final IconConfig iconConfig;
+    private final Set<Photo> selectedClusterPhotos;
+
+
+    /**
+     * Builds a new context for the current paint.
+     *
+     * @param mapView the {@code MapView} that is painted
+     * @param layerComposite the {@code Composite} of the graphics before the layer is painted
+     */
+    RenderContext(final MapView mapView, final Composite layerComposite) {
+        this.mapView = mapView;
+        this.layerComposite = layerComposite;
+        this.visibleBounds = mapView.getRealBounds();
+        this.zoom = Util.zoom(visibleBounds);
+
+        final PreferenceManager preferenceManager = PreferenceManager.getInstance();
+        final SearchFilter searchFilter = preferenceManager.loadSearchFilter();
+        this.mapViewSettings = preferenceManager.loadMapViewSettings();
+        this.clusterSettings = preferenceManager.loadClusterSettings();
+        this.dataTypes = searchFilter.getDataTypes() != null
+                ? Collections.unmodifiableList(searchFilter.getDataTypes()) : Collections.emptyList();
+        this.detectionFilter = searchFilter.getDetectionFilter();
+        this.dataSourceBounds = Util.displayedDataSourceBounds(mapViewSettings);
+
+        final boolean isBrightImagery = PaintUtil.hasBrightLineImagery(mapView);
+        this.sequenceLineColor = PaintUtil.lineColor(Constants.SEQUENCE_LINE_COLOR, isBrightImagery);
+        this.clusterDataLineColor = PaintUtil.lineColor(Constants.CLUSTER_DATA_LINE_COLOR, isBrightImagery);
+        this.iconConfig = IconConfig.getInstance();
+
+        final Cluster selectedCluster = DataSet.getInstance().getSelectedCluster();
+        this.selectedClusterPhotos = selectedCluster != null && selectedCluster.getPhotos() != null
+                ? Collections.unmodifiableSet(new HashSet<>(selectedCluster.getPhotos())) : Collections.emptySet();
+    }
+
+
+    /**
+     * Verifies if the given coordinate is in the area where the layer elements are displayed.
+     *
+     * @param latLon a {@code LatLon} coordinate
+     * @return true if the coordinate is displayed, false otherwise
+     */
+    boolean contains(final LatLon latLon) {
+        return Util.containsLatLon(mapView, dataSourceBounds, latLon);
+    }
+
+    Point getPoint(final LatLon latLon) {
+        return mapView.getPoint(latLon);
+    }
+
+    MapView getMapView() {
+        return mapView;
+    }
+
+    double getScale() {
+        return mapView.getScale();
+    }
+
+    double getDist100Pixel() {
+        return mapView.getDist100Pixel();
+    }
+
+    Font getFont() {
+        return mapView.getFont();
+    }
+
+    int getZoom() {
+        return zoom;
+    }
+
+    Bounds getVisibleBounds() {
+        return visibleBounds;
+    }
+
+    List<Bounds> getDataSourceBounds() {
+        return dataSourceBounds;
+    }
+
+    MapViewSettings getMapViewSettings() {
+        return mapViewSettings;
+    }
+
+    ClusterSettings getClusterSettings() {
+        return clusterSettings;
+    }
+
+    boolean displaysDataType(final DataType dataType) {
+        return dataTypes.contains(dataType);
+    }
+
+    DetectionFilter getDetectionFilter() {
+        return detectionFilter;
+    }
+
+    Color getSequenceLineColor() {
+        return sequenceLineColor;
+    }
+
+    Color getClusterDataLineColor() {
+        return clusterDataLineColor;
+    }
+
+    Composite getLayerComposite() {
+        return layerComposite;
+    }
+
+    IconConfig getIconConfig() {
+        return iconConfig;
+    }
+
+    boolean isSelectedClusterPhoto(final Photo photo) {
+        return selectedClusterPhotos.contains(photo);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.gui.layer;
+
+import javax.swing.Timer;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.util.GuiHelper;
+
+
+/**
+ * Coordinates the repaint requests of the KartaView layer. The requests received within one frame interval are merged
+ * into a single layer invalidation, in this way the layer is painted at most once per frame even if several handlers
+ * request a repaint for the same user action.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class RepaintScheduler {
+
+    /** the interval, in milliseconds, in which the repaint requests are merged */
+    private static final int FRAME_INTERVAL = 16;
+
+    private static final RepaintScheduler INSTANCE = new RepaintScheduler();
+
+    private final Timer timer;
+
+    /** true if there is a scheduled repaint */
+    private boolean repaintPending;
+
+    /** true if the scheduled repaint needs to refresh the whole map frame, not only the map view */
+    private boolean fullRepaint;
+
+
+    private RepaintScheduler() {
+        timer = new Timer(FRAME_INTERVAL, event -> repaint());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Returns the unique instance of the repaint scheduler.
+     *
+     * @return a {@code RepaintScheduler} object
+     */
+    public static RepaintScheduler getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Requests a repaint after the layer data has changed. The layer is invalidated and the map frame is repainted
+     * at the end of the current frame interval.
+     */
+    public void requestRepaint() {
+        schedule(true);
+    }
+
+    /**
+     * Requests a repaint after only the selected elements have changed. Only the map view, which displays the
+     * selection, is refreshed; if a data repaint is requested in the same frame interval, the two are merged.
+     */
+    public void requestSelectionRepaint() {
+        schedule(false);
+    }
+
+    private void schedule(final boolean isFullRepaint) {
+        final boolean startTimer;
+        synchronized (this) {
+            fullRepaint = fullRepaint || isFullRepaint;
+            startTimer = !repaintPending;
+            repaintPending = true;
+        }
+        if (startTimer) {
+            GuiHelper.runInEDT(timer::start);
+        }
+    }
+
+    private void repaint() {
+        final boolean isFullRepaint;
+        synchronized (this) {
+            isFullRepaint = fullRepaint;
+            fullRepaint = false;
+            repaintPending = false;
+        }
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            // invalidating the layer also repaints the map view
+            KartaViewLayer.getInstance().invalidate();
+            if (isFullRepaint) {
+                MainApplication.getMap().repaint();
+            }
+        }
+    }
+}
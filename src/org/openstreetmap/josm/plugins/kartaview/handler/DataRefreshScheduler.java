@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.handler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.Timer;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import com.grab.josm.common.thread.ThreadPool;
+
+
+/**
+ * Schedules the data refresh after the map view was zoomed or panned. The data that is already in memory is displayed
+ * immediately, while the services are called only after the map view stopped moving. The time after which the map view
+ * is considered settled adapts to the recently measured service latency and to the rate of the map view changes: a
+ * fast service is called sooner, while a slow service or a slow drag, with large gaps between the map view changes,
+ * delays the refresh such that no request is sent for an intermediate position.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class DataRefreshScheduler {
+
+    private static final DataRefreshScheduler INSTANCE = new DataRefreshScheduler();
+
+    /** the weight of the most recent latency in the latency average */
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    /** the number of recent map view changes used for estimating the interaction rate */
+    private static final int CHANGE_SAMPLES = 5;
+
+    /** the refresh is delayed at least this many times the average gap between the recent map view changes */
+    private static final double CHANGE_GAP_FACTOR = 2.0;
+
+    private final Timer refreshTimer;
+
+    /** the times of the recent map view changes, the oldest first; accessed only from the event dispatch thread */
+    private final Deque<Long> changeTimes = new ArrayDeque<>();
+
+    /** the running average of the service latency, in milliseconds; negative if no latency was measured yet */
+    private double latency = -1;
+
+    /** true while the data from memory is being displayed */
+    private final AtomicBoolean isMemoryUpdateRunning = new AtomicBoolean();
+
+
+    private DataRefreshScheduler() {
+        refreshTimer = new Timer(Config.getInstance().getRefreshDelay(),
+                event -> ThreadPool.getInstance().execute(() -> new DataUpdateHandler().updateData(false)));
+        refreshTimer.setRepeats(false);
+    }
+
+    /**
+     * Returns the unique instance of the data refresh scheduler.
+     *
+     * @return a {@code DataRefreshScheduler} object
+     */
+    public static DataRefreshScheduler getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Displays the data already available in memory for the current map view, and reschedules the data refresh.
+     * Should be called from the event dispatch thread on every map view change.
+     */
+    public void viewChanged() {
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            final long now = System.currentTimeMillis();
+            if (!changeTimes.isEmpty() && now - changeTimes.peekLast() > Config.getInstance().getRefreshMaxDelay()) {
+                // the previous changes belong to an already settled interaction
+                changeTimes.clear();
+            }
+            changeTimes.addLast(now);
+            if (changeTimes.size() > CHANGE_SAMPLES) {
+                changeTimes.removeFirst();
+            }
+            if (isMemoryUpdateRunning.compareAndSet(false, true)) {
+                ThreadPool.getInstance().execute(() -> {
+                    try {
+                        new DataUpdateHandler().updateDataFromMemory();
+                    } finally {
+                        isMemoryUpdateRunning.set(false);
+                    }
+                });
+            }
+            refreshTimer.setInitialDelay(delay());
+            refreshTimer.restart();
+        }
+    }
+
+    /**
+     * Records the latency of a data refresh that called the services.
+     *
+     * @param requestLatency the time, in milliseconds, in which the services returned the data
+     */
+    synchronized void addLatency(final long requestLatency) {
+        latency = latency < 0 ? requestLatency : LATENCY_WEIGHT * requestLatency + (1 - LATENCY_WEIGHT) * latency;
+    }
+
+    private int delay() {
+        double result;
+        synchronized (this) {
+            result = latency < 0 ? Config.getInstance().getRefreshDelay() : latency;
+        }
+        if (changeTimes.size() > 1) {
+            final double averageGap = (double) (changeTimes.peekLast() - changeTimes.peekFirst())
+                    / (changeTimes.size() - 1);
+            result = Math.max(result, averageGap * CHANGE_GAP_FACTOR);
+        }
+        return (int) Math.max(Config.getInstance().getRefreshMinDelay(),
+                Math.min(result, Config.getInstance().getRefreshMaxDelay()));
+    }
+}
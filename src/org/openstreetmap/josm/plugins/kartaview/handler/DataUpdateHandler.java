@@ -6,23 +6,38 @@
  */
 package org.openstreetmap.josm.plugins.kartaview.handler;
 
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.swing.SwingUtilities;
 import org.openstreetmap.josm.plugins.kartaview.DataSet;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.detection.DetectionDetailsDialog;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.photo.PhotoDetailsDialog;
 import org.openstreetmap.josm.plugins.kartaview.gui.layer.KartaViewLayer;
+import org.openstreetmap.josm.plugins.kartaview.gui.layer.RepaintScheduler;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.DetectionFilter;
 import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
 import org.openstreetmap.josm.plugins.kartaview.util.Util;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
 import org.openstreetmap.josm.plugins.kartaview.argument.MapViewSettings;
 import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
 import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
 import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
 import com.grab.josm.common.argument.BoundingBox;
+import com.grab.josm.common.thread.ThreadPool;
 
 
 /**
@@ -75,27 +90,34 @@ public class DataUpdateHandler {
     private void updateLowZoomLevelData(final MapViewSettings mapViewSettings, final int zoom) {
         // clear previous data type
         if (DataSet.getInstance().hasPhotos()) {
+            cacheDisplayedData(null, null);
             SwingUtilities.invokeLater(() -> {
                 DataSet.getInstance().clear(false);
                 PhotoDetailsDialog.getInstance().updateUI(null, null, false);
                 DetectionDetailsDialog.getInstance().updateDetectionDetails(null);
                 KartaViewLayer.getInstance().enablePhotoDataSetDownloadActions();
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
             });
         }
 
         final List<BoundingBox> areas = BoundingBoxUtil.currentBoundingBoxes(mapViewSettings.isDataLoadFlag());
         if (!areas.isEmpty()) {
             final SearchFilter searchFilter = PreferenceManager.getInstance().loadSearchFilter();
-            final List<Segment> segments = ServiceHandler.getInstance().listMatchedTracks(areas, searchFilter, zoom);
-            if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
-                SwingUtilities.invokeLater(() -> {
-                    DataSet.getInstance().updateLowZoomLevelData(segments);
-                    KartaViewLayer.getInstance().invalidate();
-                    MainApplication.getMap().repaint();
-                });
-            }
+            // the cached segments are displayed first, the loaded ones as the pages are read and the complete list at
+            // the end
+            final List<Segment> segments = SegmentTileCache.getInstance().listMatchedTracks(areas, searchFilter, zoom,
+                    this::updateSegments);
+            updateSegments(segments);
+        }
+    }
+
+    private void updateSegments(final List<Segment> segments) {
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            final List<Segment> activeSegments = clipSegments(segments);
+            SwingUtilities.invokeLater(() -> {
+                DataSet.getInstance().updateLowZoomLevelData(activeSegments);
+                RepaintScheduler.getInstance().requestRepaint();
+            });
         }
     }
 
@@ -104,8 +126,7 @@ public class DataUpdateHandler {
         if (DataSet.getInstance().hasSegments()) {
             SwingUtilities.invokeLater(() -> {
                 DataSet.getInstance().clear(false);
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
             });
         }
 
@@ -113,30 +134,313 @@ public class DataUpdateHandler {
         final List<BoundingBox> areas = BoundingBoxUtil.currentBoundingBoxes(mapViewSettings.isDataLoadFlag());
         final int zoom = Util.zoom(MainApplication.getMap().mapView.getRealBounds());
         if (!areas.isEmpty() && zoom >= mapViewSettings.getPhotoZoom()) {
-            final HighZoomResultSet resultSet = ServiceHandler.getInstance().searchHighZoomData(areas, searchFilter);
-            updateUI(resultSet, checkSelection);
+            // after a pan only the newly exposed parts are loaded, and merged with the already displayed data
+            List<BoundingBox> exposedAreas = checkSelection ? null : exposedAreas(areas);
+            final List<BoundingBox> searchAreas = exposedAreas != null ? exposedAreas : areas;
+            // the data loaded in advance for the areas towards which the map view was panned, or displayed shortly
+            // before, is used without a search
+            HighZoomResultSet resultSet = searchAreas.isEmpty() ? new HighZoomResultSet()
+                    : ViewportDataCache.getInstance().cachedData(searchAreas, searchFilter,
+                            Config.getInstance().getPrefetchTtl());
+            final BoundingBox area = areas.size() == 1 ? areas.get(0) : null;
+            cacheDisplayedData(area, searchFilter);
+            boolean isRevalidated = true;
+            if (resultSet == null) {
+                // the cached data of a recently displayed area is displayed at once, and revalidated by the search;
+                // after a pan the cached data of the newly exposed parts is merged
+                final HighZoomResultSet cachedResultSet = cachedData(area, exposedAreas, searchFilter, checkSelection);
+                if (cachedResultSet != null) {
+                    updateUI(clip(cachedResultSet), searchFilter, false, area, exposedAreas != null,
+                            exposedAreas == null);
+                }
+                final long start = System.currentTimeMillis();
+                final Set<DataType> failedDataTypes = EnumSet.noneOf(DataType.class);
+                // the photos are displayed as the pages are loaded, the other data types are displayed at the end
+                resultSet = ServiceHandler.getInstance().searchHighZoomData(searchAreas, searchFilter,
+                        cachedResultSet == null ? this::updatePhotos : null, failedDataTypes);
+                DataRefreshScheduler.getInstance().addLatency(System.currentTimeMillis() - start);
+                if (cachedResultSet != null) {
+                    // a failed search does not tell which cached elements changed, the cached data is kept as stale
+                    isRevalidated = failedDataTypes.isEmpty();
+                    if (isRevalidated && exposedAreas != null) {
+                        removeDeletedData(cachedResultSet, resultSet, exposedAreas);
+                    }
+                    resultSet = isRevalidated ? ViewportDataCache.revalidate(cachedResultSet, resultSet) : null;
+                }
+            }
+            if (exposedAreas != null && hasNextPhotos(resultSet)) {
+                // only a part of the photos of an exposed part were loaded, the photos of the whole area are loaded
+                exposedAreas = null;
+                resultSet = ServiceHandler.getInstance().searchHighZoomData(areas, searchFilter, this::updatePhotos);
+            }
+            if (resultSet != null) {
+                updateUI(clip(resultSet), searchFilter, checkSelection, area, exposedAreas != null, false);
+            } else if (isRevalidated) {
+                // the cached data did not change
+                updateStaleData();
+            }
         }
     }
 
-    private void updateUI(final HighZoomResultSet resultSet, final boolean checkSelection) {
+    /**
+     * Removes the merged cached detections and clusters of the newly exposed parts that were not returned by the
+     * search, since they do not exist anymore. Merging the revalidated data only replaces the existing elements.
+     */
+    private static void removeDeletedData(final HighZoomResultSet cachedResultSet,
+            final HighZoomResultSet freshResultSet, final List<BoundingBox> exposedAreas) {
+        final Set<Long> detectionIds = deletedIds(cachedResultSet.getDetections(), freshResultSet.getDetections(),
+                exposedAreas, Detection::getId, Detection::getPoint);
+        final Set<Long> clusterIds = deletedIds(cachedResultSet.getClusters(), freshResultSet.getClusters(),
+                exposedAreas, Cluster::getId, Cluster::getPoint);
+        if (!detectionIds.isEmpty() || !clusterIds.isEmpty()) {
+            GuiHelper.runInEDT(() -> DataSet.getInstance().removeHighZoomLevelData(detectionIds, clusterIds));
+        }
+    }
+
+    /**
+     * Returns the identifiers of the cached items from the given areas that are missing from the fresh items. The
+     * cached data can cover more than the searched areas, the items outside them are not checked.
+     */
+    private static <T> Set<Long> deletedIds(final List<T> cachedItems, final List<T> freshItems,
+            final List<BoundingBox> areas, final Function<T, Long> id, final Function<T, LatLon> location) {
+        final Set<Long> result = cachedItems != null ? cachedItems.stream()
+                .filter(item -> areas.stream().anyMatch(area -> BoundingBoxUtil.contains(area, location.apply(item))))
+                .map(id).collect(Collectors.toCollection(HashSet::new)) : new HashSet<>();
+        if (freshItems != null) {
+            freshItems.stream().map(id).forEach(result::remove);
+        }
+        return result;
+    }
+
+    private static HighZoomResultSet cachedData(final BoundingBox area, final List<BoundingBox> exposedAreas,
+            final SearchFilter searchFilter, final boolean checkSelection) {
+        HighZoomResultSet result = null;
+        if (exposedAreas != null) {
+            result = ViewportDataCache.getInstance().cachedData(exposedAreas, searchFilter);
+        } else if (area != null && !checkSelection) {
+            result = ViewportDataCache.getInstance().cachedData(area, searchFilter);
+        }
+        return result;
+    }
+
+    /**
+     * Updates the current map view with the high zoom level data that is already available in memory. The services
+     * are not called, the newly exposed parts of the map view are displayed only if their data was loaded in advance
+     * or displayed shortly before. Should be used while the map view is moving, before the data is refreshed.
+     */
+    public void updateDataFromMemory() {
+        final int zoom = Util.zoom(MainApplication.getMap().mapView.getRealBounds());
+        final MapViewSettings mapViewSettings = PreferenceManager.getInstance().loadMapViewSettings();
+        if (zoom >= mapViewSettings.getPhotoZoom() && !DataSet.getInstance().hasSelectedSequence()
+                && !DataSet.getInstance().hasSegments()) {
+            final List<BoundingBox> areas = BoundingBoxUtil.currentBoundingBoxes(mapViewSettings.isDataLoadFlag());
+            final List<BoundingBox> exposedAreas = exposedAreas(areas);
+            if (exposedAreas != null && !exposedAreas.isEmpty()) {
+                final SearchFilter searchFilter = PreferenceManager.getInstance().loadSearchFilter();
+                final HighZoomResultSet resultSet = ViewportDataCache.getInstance().cachedData(exposedAreas,
+                        searchFilter, Config.getInstance().getPrefetchTtl());
+                // if not all the photos of an exposed part were loaded, the whole area is loaded by the refresh
+                if (resultSet != null && !hasNextPhotos(resultSet)) {
+                    updateUI(clip(resultSet), searchFilter, false, areas.get(0), true, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the current map view after the search filter changed. If the new filter narrows the filter with which
+     * the displayed high zoom level data was loaded, the displayed data is filtered in memory; otherwise the data is
+     * loaded again.
+     */
+    public void updateFilteredData() {
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            final int zoom = Util.zoom(MainApplication.getMap().mapView.getRealBounds());
+            final MapViewSettings mapViewSettings = PreferenceManager.getInstance().loadMapViewSettings();
+            final SearchFilter searchFilter = PreferenceManager.getInstance().loadSearchFilter();
+            final SearchFilter loadedFilter = DataSet.getInstance().getHighZoomLevelFilter();
+            if (zoom >= mapViewSettings.getPhotoZoom() && !DataSet.getInstance().hasSelectedSequence()
+                    && !DataSet.getInstance().isHighZoomLevelDataStale() && loadedFilter != null
+                    && searchFilter.isSubsetOf(loadedFilter)) {
+                updateUI(filter(DataSet.getInstance().highZoomLevelData(), searchFilter), searchFilter, true,
+                        DataSet.getInstance().getHighZoomLevelArea(), false, false);
+            } else {
+                updateData(true);
+            }
+        }
+    }
+
+    /**
+     * Selects the data matching the given filter. The photos are kept, since the filter selects the same photos; if
+     * the photo data type is not selected, they are not displayed.
+     */
+    private static HighZoomResultSet filter(final HighZoomResultSet resultSet, final SearchFilter searchFilter) {
+        final DetectionFilter detectionFilter = searchFilter.getDetectionFilter();
+        final List<Detection> detections = searchFilter.getDataTypes().contains(DataType.DETECTION)
+                && resultSet.getDetections() != null ? resultSet.getDetections().stream()
+                        .filter(detectionFilter::matches).collect(Collectors.toList()) : null;
+        final List<Cluster> clusters = searchFilter.getDataTypes().contains(DataType.CLUSTER)
+                && resultSet.getClusters() != null ? resultSet.getClusters().stream()
+                        .filter(detectionFilter::matches).collect(Collectors.toList()) : null;
+        return new HighZoomResultSet(resultSet.getPhotoDataSet(), detections, clusters);
+    }
+
+    /**
+     * Returns the parts of the given areas for which the data was not loaded yet. The data is loaded again for the
+     * whole area if it was loaded for other areas, if only a part of the available photos were loaded, or if the newly
+     * exposed parts are large compared to the area.
+     *
+     * @param areas the current search areas
+     * @return the newly exposed parts of the area; null if the data should be loaded for the whole area
+     */
+    private static List<BoundingBox> exposedAreas(final List<BoundingBox> areas) {
+        List<BoundingBox> result = null;
+        final BoundingBox loadedArea = DataSet.getInstance().getHighZoomLevelArea();
+        if (areas.size() == 1 && loadedArea != null && !DataSet.getInstance().getPhotoDataSet().hasNextItems()) {
+            final List<BoundingBox> difference = BoundingBoxUtil.difference(areas.get(0), loadedArea);
+            final double exposedSize = difference.stream().mapToDouble(BoundingBoxUtil::size).sum();
+            final double maxExposedSize =
+                    BoundingBoxUtil.size(areas.get(0)) * Config.getInstance().getDeltaLoadMaxExposedRatio();
+            if (exposedSize <= maxExposedSize) {
+                result = difference;
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasNextPhotos(final HighZoomResultSet resultSet) {
+        return resultSet != null && resultSet.getPhotoDataSet() != null
+                && resultSet.getPhotoDataSet().hasNextItems();
+    }
+
+    /**
+     * Removes the photos, detections and clusters that are outside the active areas. Neighbour OSM data bounds are
+     * searched together, so the searched areas can be larger than the active areas.
+     */
+    private static HighZoomResultSet clip(final HighZoomResultSet resultSet) {
+        final List<Bounds> activeAreas = BoundingBoxUtil.currentBounds();
+        // the clusters are searched in a slightly extended area
+        final List<Bounds> clusterAreas = activeAreas.stream()
+                .map(area -> new Bounds(area.getMinLat() - SearchServiceHandler.AREA_EXTEND,
+                        area.getMinLon() - SearchServiceHandler.AREA_EXTEND,
+                        area.getMaxLat() + SearchServiceHandler.AREA_EXTEND,
+                        area.getMaxLon() + SearchServiceHandler.AREA_EXTEND))
+                .collect(Collectors.toList());
+        return new HighZoomResultSet(clip(resultSet.getPhotoDataSet(), activeAreas),
+                clip(resultSet.getDetections(), activeAreas, Detection::getPoint),
+                clip(resultSet.getClusters(), clusterAreas, Cluster::getPoint));
+    }
+
+    private static PhotoDataSet clip(final PhotoDataSet photoDataSet, final List<Bounds> areas) {
+        return photoDataSet != null ? new PhotoDataSet(clip(photoDataSet.getPhotos(), areas, Photo::getPoint),
+                photoDataSet.getPage(), photoDataSet.getLastPage(), photoDataSet.getTotalItems()) : null;
+    }
+
+    private static <T> List<T> clip(final List<T> items, final List<Bounds> areas,
+            final Function<T, LatLon> location) {
+        return items != null ? items.stream()
+                .filter(item -> areas.stream().anyMatch(area -> area.contains(location.apply(item))))
+                .collect(Collectors.toList()) : null;
+    }
+
+    private static List<Segment> clipSegments(final List<Segment> segments) {
+        final List<Bounds> activeAreas = BoundingBoxUtil.currentBounds();
+        return segments != null ? segments.stream().filter(segment -> segment.getGeometry() != null
+                && !segment.getGeometry().isEmpty()
+                && activeAreas.stream().anyMatch(area -> area.intersects(segmentBounds(segment))))
+                .collect(Collectors.toList()) : null;
+    }
+
+    private static Bounds segmentBounds(final Segment segment) {
+        final Bounds bounds = new Bounds(segment.getGeometry().get(0));
+        segment.getGeometry().forEach(bounds::extend);
+        return bounds;
+    }
+
+    private void updatePhotos(final List<Photo> photos) {
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            final List<Photo> activePhotos = clip(photos, BoundingBoxUtil.currentBounds(), Photo::getPoint);
+            SwingUtilities.invokeLater(() -> {
+                DataSet.getInstance().updateHighZoomLevelPhotoData(new PhotoDataSet(activePhotos));
+                RepaintScheduler.getInstance().requestRepaint();
+            });
+        }
+    }
+
+    /**
+     * Displays the given high zoom level data.
+     *
+     * @param resultSet the data to display
+     * @param searchFilter the search filter with which the data was loaded
+     * @param checkSelection flag indicating if the previously selected elements should be checked in the new data set
+     * @param area the area of the data; null if the data was loaded for several areas
+     * @param isMerge if true the data of the newly exposed parts of the area is merged with the displayed data; if the
+     * displayed data has a different filter, the newly exposed parts are loaded again instead
+     * @param isStale true if the data was taken from the cache and it is being revalidated; used only if the data is
+     * not merged
+     */
+    private void updateUI(final HighZoomResultSet resultSet, final SearchFilter searchFilter,
+            final boolean checkSelection, final BoundingBox area, final boolean isMerge, final boolean isStale) {
         final boolean isClusterInfoInPanel = DataSet.getInstance().getSelectedCluster() != null;
         if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
             GuiHelper.runInEDT(() -> {
-                DataSet.getInstance().updateHighZoomLevelClusterData(resultSet.getClusters(), checkSelection);
-                DataSet.getInstance().updateHighZoomLevelDetectionData(resultSet.getDetections(), checkSelection);
-                DataSet.getInstance().updateHighZoomLevelPhotoData(resultSet.getPhotoDataSet());
-                updateSelection(checkSelection, isClusterInfoInPanel);
-                if (DataSet.getInstance().hasNearbyPhotos()
-                        && !PreferenceManager.getInstance().loadAutoplayStartedFlag()) {
-                    PhotoDetailsDialog.getInstance().enableClosestPhotoButton(true);
+                if (isMerge && !searchFilter.equals(DataSet.getInstance().getHighZoomLevelFilter())) {
+                    // the filter changed while the newly exposed parts were loaded, they are loaded with the new one
+                    ThreadPool.getInstance().execute(() -> updateData(false));
+                } else {
+                    if (isMerge) {
+                        DataSet.getInstance().mergeHighZoomLevelData(resultSet, area,
+                                BoundingBoxUtil.extend(area, Config.getInstance().getDeltaLoadRetainedMargin()));
+                    } else {
+                        DataSet.getInstance().updateHighZoomLevelClusterData(resultSet.getClusters(), checkSelection);
+                        DataSet.getInstance().updateHighZoomLevelDetectionData(resultSet.getDetections(),
+                                checkSelection);
+                        DataSet.getInstance().updateHighZoomLevelPhotoData(resultSet.getPhotoDataSet());
+                        DataSet.getInstance().setHighZoomLevelArea(area);
+                        DataSet.getInstance().setHighZoomLevelFilter(searchFilter);
+                        DataSet.getInstance().setHighZoomLevelDataStale(isStale);
+                    }
+                    updateSelection(checkSelection, isClusterInfoInPanel);
+                    if (DataSet.getInstance().hasNearbyPhotos()
+                            && !PreferenceManager.getInstance().loadAutoplayStartedFlag()) {
+                        PhotoDetailsDialog.getInstance().enableClosestPhotoButton(true);
+                    }
+                    KartaViewLayer.getInstance().enablePhotoDataSetDownloadActions();
+                    RepaintScheduler.getInstance().requestRepaint();
                 }
-                KartaViewLayer.getInstance().enablePhotoDataSetDownloadActions();
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
             });
         }
     }
 
+    private static void updateStaleData() {
+        if (MainApplication.getMap() != null && MainApplication.getMap().mapView != null) {
+            GuiHelper.runInEDT(() -> {
+                DataSet.getInstance().setHighZoomLevelDataStale(false);
+                RepaintScheduler.getInstance().requestRepaint();
+            });
+        }
+    }
+
+    /**
+     * Caches the displayed high zoom level data before it is replaced by the data of another area or filter; the
+     * cached data can only be used after the map view left the area. The data is cached if it is up to date and it
+     * was loaded for a single area. Should be called from a background thread, since the data is copied.
+     *
+     * @param area the area of the data that will be displayed; null if it is not a single area
+     * @param filter the search filter of the data that will be displayed; null if no high zoom level data follows
+     */
+    private static void cacheDisplayedData(final BoundingBox area, final SearchFilter filter) {
+        final BoundingBox displayedArea = DataSet.getInstance().getHighZoomLevelArea();
+        final SearchFilter displayedFilter = DataSet.getInstance().getHighZoomLevelFilter();
+        if (Config.getInstance().isViewportCacheEnabled() && displayedArea != null && displayedFilter != null
+                && (!displayedArea.equals(area) || !displayedFilter.equals(filter))) {
+            final HighZoomResultSet resultSet =
+                    DataSet.getInstance().highZoomLevelData(displayedArea, displayedFilter);
+            if (resultSet != null) {
+                ViewportDataCache.getInstance().put(displayedArea, displayedFilter, resultSet);
+            }
+        }
+    }
+
     private void updateSelection(final boolean checkSelection, final boolean isClusterInfoInPanel) {
         final SearchFilter searchFilter = PreferenceManager.getInstance().loadSearchFilter();
         if (!DataSet.getInstance().hasSelectedPhoto() && PhotoDetailsDialog.getInstance().isPhotoSelected()) {
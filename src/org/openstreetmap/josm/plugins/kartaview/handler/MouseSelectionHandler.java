@@ -12,6 +12,8 @@ import java.awt.event.MouseEvent;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import org.openstreetmap.josm.plugins.kartaview.DataSet;
@@ -26,6 +28,7 @@ import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.ClusterBuilder;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import com.grab.josm.common.entity.Pair;
 import com.grab.josm.common.thread.ThreadPool;
 
 
@@ -40,6 +43,9 @@ abstract class MouseSelectionHandler extends MouseAdapter {
     /** defines the number of mouse clicks that is considered as an un-select action */
     private static final int UNSELECT_CLICK_COUNT = 2;
 
+    /** executes the independent service requests of a selection in parallel, with the threads of the plugin */
+    private static final Executor SELECTION_EXECUTOR = command -> ThreadPool.getInstance().execute(command);
+
     /** timer used for mouse hover events */
     private Timer mouseHoverTimer;
 
@@ -64,36 +70,77 @@ abstract class MouseSelectionHandler extends MouseAdapter {
     }
 
     private void handleDataSelection(final Point point) {
-        Detection detection;
-        Photo photo;
-        detection = DataSet.getInstance().nearbyDetection(point);
-        if (detection != null) {
-            photo = loadDetectionPhoto(detection);
-            detection = ServiceHandler.getInstance().retrieveDetection(detection.getId());
-            DataSet.getInstance().setFrontFacingDisplayed(Util.checkFrontFacingDisplay(detection));
+        final Detection nearbyDetection = DataSet.getInstance().nearbyDetection(point);
+        Pair<Photo, Detection> selection = null;
+        if (nearbyDetection != null) {
+            selection = detectionSelection(nearbyDetection).join();
         } else {
-            photo = DataSet.getInstance().nearbyPhoto(point);
-            if (photo != null) {
-                enhancePhoto(photo);
-                if (DataSet.getInstance().photoBelongsToSelectedCluster(photo)) {
-                    final Optional<Detection> clusterDetection = DataSet.getInstance()
-                            .selectedClusterDetection(photo.getSequenceId(), photo.getSequenceIndex());
-                    detection = clusterDetection.isPresent() ? clusterDetection.get() : null;
-                    photo = enhanceClusterPhoto(photo, detection);
-                    DataSet.getInstance().setFrontFacingDisplayed(Util.checkFrontFacingDisplay(detection));
-                } else {
-                    updatePhotoFormatDisplayed(photo);
-                    enhancePhoto(photo);
-                    detection = photoSelectedDetection(photo);
-                }
+            final Photo nearbyPhoto = DataSet.getInstance().nearbyPhoto(point);
+            if (nearbyPhoto != null) {
+                selection = photoSelection(nearbyPhoto).join();
             }
         }
+        final Photo photo = selection != null ? selection.getFirst() : null;
+        final Detection detection = selection != null ? selection.getSecond() : null;
         DataSet.getInstance().selectNearbyPhotos(photo);
         if (photo != null || detection != null) {
             handleDataSelection(photo, detection, null, true, false);
         }
     }
 
+    /**
+     * Loads the data of a detection selected from the map. The detection details and the photo of the detection are
+     * loaded in parallel; the photo image is preloaded as soon as its name and display format are known.
+     *
+     * @param nearbyDetection the detection selected from the map
+     * @return a future (photo, detection) pair
+     */
+    private CompletableFuture<Pair<Photo, Detection>> detectionSelection(final Detection nearbyDetection) {
+        final CompletableFuture<Detection> detection = CompletableFuture.supplyAsync(
+                () -> ServiceHandler.getInstance().retrieveDetection(nearbyDetection.getId()), SELECTION_EXECUTOR);
+        final CompletableFuture<Photo> photo =
+                CompletableFuture.supplyAsync(() -> detectionPhoto(nearbyDetection), SELECTION_EXECUTOR);
+        photo.thenAcceptBothAsync(detection, (loadedPhoto, loadedDetection) -> PhotoHandler.getInstance()
+                .preloadPhoto(loadedPhoto, Util.checkFrontFacingDisplay(loadedDetection)), SELECTION_EXECUTOR);
+        return photo.thenCompose(this::enhancePhotoAsync).thenCombine(detection, (loadedPhoto, loadedDetection) -> {
+            DataSet.getInstance().setFrontFacingDisplayed(Util.checkFrontFacingDisplay(loadedDetection));
+            return new Pair<>(loadedPhoto, loadedDetection);
+        });
+    }
+
+    /**
+     * Loads the data of a photo selected from the map. The photo image is preloaded while the photo details and the
+     * selected detection are loaded.
+     *
+     * @param nearbyPhoto the photo selected from the map
+     * @return a future (photo, detection) pair
+     */
+    private CompletableFuture<Pair<Photo, Detection>> photoSelection(final Photo nearbyPhoto) {
+        final CompletableFuture<Pair<Photo, Detection>> selection;
+        if (DataSet.getInstance().photoBelongsToSelectedCluster(nearbyPhoto)) {
+            final Optional<Detection> clusterDetection = DataSet.getInstance()
+                    .selectedClusterDetection(nearbyPhoto.getSequenceId(), nearbyPhoto.getSequenceIndex());
+            final Detection detection = clusterDetection.isPresent() ? clusterDetection.get() : null;
+            final boolean isFrontFacing = Util.checkFrontFacingDisplay(detection);
+            final CompletableFuture<Photo> photoDetails = clusterPhotoDetails(nearbyPhoto);
+            photoDetails.thenAcceptAsync(photo -> PhotoHandler.getInstance().preloadPhoto(photo, isFrontFacing),
+                    SELECTION_EXECUTOR);
+            selection = enhancePhotoAsync(nearbyPhoto).thenCombine(enhanceClusterPhoto(photoDetails, detection),
+                    (enhancedPhoto, clusterPhoto) -> {
+                        DataSet.getInstance().setFrontFacingDisplayed(isFrontFacing);
+                        return new Pair<>(clusterPhoto, detection);
+                    });
+        } else {
+            updatePhotoFormatDisplayed(nearbyPhoto);
+            final boolean isFrontFacing = DataSet.getInstance().isFrontFacingDisplayed();
+            CompletableFuture.runAsync(() -> PhotoHandler.getInstance().preloadPhoto(nearbyPhoto, isFrontFacing),
+                    SELECTION_EXECUTOR);
+            selection = enhancePhotoAsync(nearbyPhoto).thenApplyAsync(
+                    photo -> new Pair<>(photo, photoSelectedDetection(photo)), SELECTION_EXECUTOR);
+        }
+        return selection;
+    }
+
     protected void updatePhotoFormatDisplayed(final Photo photo) {
         if (photo.getProjectionType().equals(Projection.SPHERE)) {
             DataSet.getInstance().setFrontFacingDisplayed(
@@ -104,21 +151,33 @@ abstract class MouseSelectionHandler extends MouseAdapter {
     }
 
     Photo enhanceClusterPhoto(final Photo clusterPhoto, final Detection detection) {
+        return enhanceClusterPhoto(clusterPhotoDetails(clusterPhoto), detection).join();
+    }
+
+    private static CompletableFuture<Photo> clusterPhotoDetails(final Photo clusterPhoto) {
         // special case we need the complete Photo object and part of it needs to be loaded from OSC
-        final Photo photo = ServiceHandler.getInstance().retrievePhotoDetails(clusterPhoto.getSequenceId(),
-                clusterPhoto.getSequenceIndex());
-        if (photo != null) {
-            photo.setHeading(clusterPhoto.getHeading());
-            enhancePhoto(photo);
-            if (detection != null) {
+        return CompletableFuture.supplyAsync(() -> {
+            final Photo photo = ServiceHandler.getInstance().retrievePhotoDetails(clusterPhoto.getSequenceId(),
+                    clusterPhoto.getSequenceIndex());
+            if (photo != null) {
+                photo.setHeading(clusterPhoto.getHeading());
+            }
+            return photo;
+        }, SELECTION_EXECUTOR);
+    }
+
+    private CompletableFuture<Photo> enhanceClusterPhoto(final CompletableFuture<Photo> photoDetails,
+            final Detection detection) {
+        return photoDetails.thenCompose(this::enhancePhotoAsync).thenApply(photo -> {
+            if (photo != null && detection != null) {
                 if (photo.getDetections() == null) {
                     photo.setDetections(Collections.singletonList(detection));
                 } else if (!photo.getDetections().contains(detection)) {
                     photo.getDetections().add(detection);
                 }
             }
-        }
-        return photo;
+            return photo;
+        });
     }
 
 
@@ -165,36 +224,56 @@ abstract class MouseSelectionHandler extends MouseAdapter {
 
 
     void enhancePhoto(final Photo photo) {
+        enhancePhotoAsync(photo).join();
+    }
+
+    /**
+     * Loads the detections and the Apollo details of the given photo in parallel, and sets them to the photo.
+     *
+     * @param photo a {@code Photo}; can be null
+     * @return a future that completes with the given photo after it was enhanced
+     */
+    private CompletableFuture<Photo> enhancePhotoAsync(final Photo photo) {
+        final CompletableFuture<Photo> result;
         if (photo != null) {
-            if (PreferenceManager.getInstance().loadSearchFilter().getDataTypes().contains(DataType.DETECTION)) {
-                final List<Detection> detections = loadPhotoDetections(photo);
-                photo.setDetections(detections);
-            } else {
-                photo.setDetections(null);
-            }
-            final Photo detailedPhoto =
-                    ServiceHandler.getInstance().retrievePhoto(photo.getSequenceId(), photo.getSequenceIndex());
-            if (detailedPhoto != null) {
-                photo.setMatching(detailedPhoto.getMatching());
-                photo.setSize(detailedPhoto.getSize());
-                photo.setRealSize(detailedPhoto.getRealSize());
-            }
+            final CompletableFuture<List<Detection>> detections =
+                    PreferenceManager.getInstance().loadSearchFilter().getDataTypes().contains(DataType.DETECTION)
+                            ? CompletableFuture.supplyAsync(() -> loadPhotoDetections(photo), SELECTION_EXECUTOR)
+                            : CompletableFuture.completedFuture(null);
+            final CompletableFuture<Photo> detailedPhoto = CompletableFuture.supplyAsync(
+                    () -> ServiceHandler.getInstance().retrievePhoto(photo.getSequenceId(), photo.getSequenceIndex()),
+                    SELECTION_EXECUTOR);
+            result = detections.thenCombine(detailedPhoto, (photoDetections, apolloPhoto) -> {
+                photo.setDetections(photoDetections);
+                if (apolloPhoto != null) {
+                    photo.setMatching(apolloPhoto.getMatching());
+                    photo.setSize(apolloPhoto.getSize());
+                    photo.setRealSize(apolloPhoto.getRealSize());
+                }
+                return photo;
+            });
+        } else {
+            result = CompletableFuture.completedFuture(null);
         }
+        return result;
     }
 
     public Photo loadDetectionPhoto(final Detection detection) {
+        final Photo photo = detectionPhoto(detection);
+        enhancePhoto(photo);
+        return photo;
+    }
+
+    private static Photo detectionPhoto(final Detection detection) {
         final Optional<Photo> dataSetPhoto =
                 DataSet.getInstance().detectionPhoto(detection.getSequenceId(), detection.getSequenceIndex());
-        Photo photo;
+        final Photo photo;
         if (dataSetPhoto.isPresent()) {
             photo = dataSetPhoto.get();
         } else {
             photo = ServiceHandler.getInstance().retrievePhotoDetails(detection.getSequenceId(),
                     detection.getSequenceIndex());
         }
-        if (photo != null) {
-            enhancePhoto(photo);
-        }
         return photo;
     }
 
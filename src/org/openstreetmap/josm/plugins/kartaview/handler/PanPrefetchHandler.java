@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.handler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.plugins.kartaview.DataSet;
+import org.openstreetmap.josm.plugins.kartaview.argument.MapViewSettings;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.service.BaseService;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestPriority;
+import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
+import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
+import org.openstreetmap.josm.plugins.kartaview.util.Util;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
+import com.grab.josm.common.argument.BoundingBox;
+import com.grab.josm.common.thread.ThreadPool;
+
+
+/**
+ * Loads in advance the high zoom level data of the area towards which the map view is panned. The pan velocity and
+ * direction are estimated from the recent map view changes; while the map view moves steadily, the data of the next
+ * map view sized area in the pan direction is loaded with low priority and put into the {@code ViewportDataCache}.
+ * When the map view arrives in that area, its data is taken from the cache instead of the services.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class PanPrefetchHandler {
+
+    private static final PanPrefetchHandler INSTANCE = new PanPrefetchHandler();
+
+    /** the time, in milliseconds, for which the map view changes are used for estimating the pan */
+    private static final long PAN_WINDOW = 1500;
+    private static final int MIN_PAN_SAMPLES = 3;
+
+    /** the minimum pan velocity, in map view sizes per second */
+    private static final double MIN_PAN_VELOCITY = 0.1;
+
+    /** the maximum relative change of the map view size during a pan; larger changes are caused by zooming */
+    private static final double MAX_SIZE_CHANGE = 0.05;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /** the recent map view areas, the oldest first */
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private boolean isPrefetching;
+
+
+    private PanPrefetchHandler() {}
+
+    /**
+     * Returns the unique instance of the pan prefetch handler.
+     *
+     * @return a {@code PanPrefetchHandler} object
+     */
+    public static PanPrefetchHandler getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Records the current map view area and, if the map view is panned steadily, starts loading the data of the next
+     * area in the pan direction. Should be called on every map view change.
+     */
+    public void viewChanged() {
+        if (Config.getInstance().isPrefetchEnabled() && Config.getInstance().isViewportCacheEnabled()
+                && MainApplication.getMap() != null
+                && MainApplication.getMap().mapView != null) {
+            final MapViewSettings mapViewSettings = PreferenceManager.getInstance().loadMapViewSettings();
+            final List<BoundingBox> areas = BoundingBoxUtil.currentBoundingBoxes(mapViewSettings.isDataLoadFlag());
+            final int zoom = Util.zoom(MainApplication.getMap().mapView.getRealBounds());
+            BoundingBox nextArea = null;
+            if (areas.size() == 1 && zoom >= mapViewSettings.getPhotoZoom()
+                    && !DataSet.getInstance().hasSelectedSequence()) {
+                nextArea = addSample(areas.get(0));
+            } else {
+                clearSamples();
+            }
+            if (nextArea != null) {
+                prefetch(nextArea);
+            }
+        }
+    }
+
+    private synchronized BoundingBox addSample(final BoundingBox area) {
+        final long now = System.currentTimeMillis();
+        samples.addLast(new Sample(now, area));
+        while (now - samples.peekFirst().time > PAN_WINDOW) {
+            samples.removeFirst();
+        }
+        BoundingBox result = null;
+        final Sample first = samples.peekFirst();
+        if (samples.size() >= MIN_PAN_SAMPLES && now > first.time && isPan(first.area, area)) {
+            final double latDistance = centerLat(area) - centerLat(first.area);
+            final double lonDistance = centerLon(area) - centerLon(first.area);
+            // the distance is measured in map view sizes, along the dominant pan axis
+            final double distance = Math.max(Math.abs(latDistance) / height(area), Math.abs(lonDistance) / width(area));
+            final double velocity = distance / ((now - first.time) / MILLIS_PER_SECOND);
+            if (velocity >= MIN_PAN_VELOCITY && isSteady(latDistance, lonDistance)) {
+                // the next area is one map view size away from the current one, in the pan direction
+                result = move(area, latDistance / height(area) / distance, lonDistance / width(area) / distance);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPan(final BoundingBox firstArea, final BoundingBox area) {
+        return Math.abs(BoundingBoxUtil.size(firstArea) / BoundingBoxUtil.size(area) - 1) <= MAX_SIZE_CHANGE;
+    }
+
+    /**
+     * Verifies that every recorded map view change moved the map view in the overall pan direction.
+     */
+    private boolean isSteady(final double latDistance, final double lonDistance) {
+        boolean result = true;
+        final Iterator<Sample> iterator = samples.iterator();
+        BoundingBox previousArea = iterator.next().area;
+        while (result && iterator.hasNext()) {
+            final BoundingBox area = iterator.next().area;
+            result = (centerLat(area) - centerLat(previousArea)) * latDistance
+                    + (centerLon(area) - centerLon(previousArea)) * lonDistance >= 0;
+            previousArea = area;
+        }
+        return result;
+    }
+
+    private synchronized void clearSamples() {
+        samples.clear();
+    }
+
+    private void prefetch(final BoundingBox area) {
+        final SearchFilter filter = PreferenceManager.getInstance().loadSearchFilter();
+        if (filter != null && filter.getDataTypes() != null && !filter.getDataTypes().isEmpty()
+                && startPrefetch(area, filter)) {
+            ThreadPool.getInstance().execute(() -> {
+                HighZoomResultSet resultSet = null;
+                try {
+                    resultSet = BaseService.executeWithPriority(RequestPriority.LOW,
+                            () -> ServiceHandler.getInstance().prefetchHighZoomData(area, filter));
+                } catch (final ServiceException e) {
+                    // the data is loaded again when the map view arrives in the area
+                } finally {
+                    endPrefetch(area, filter, resultSet);
+                }
+            });
+        }
+    }
+
+    /**
+     * Verifies if the data of the given area should be loaded. The area is loaded only if no other area is being
+     * loaded and if the center of the area has no recent cached data yet; in this way a steady pan loads a new area
+     * after every half map view.
+     */
+    private synchronized boolean startPrefetch(final BoundingBox area, final SearchFilter filter) {
+        final LatLon center = new LatLon(centerLat(area), centerLon(area));
+        isPrefetching = !isPrefetching && !ViewportDataCache.getInstance().contains(center, filter,
+                Config.getInstance().getPrefetchTtl());
+        return isPrefetching;
+    }
+
+    private synchronized void endPrefetch(final BoundingBox area, final SearchFilter filter,
+            final HighZoomResultSet resultSet) {
+        // if only a part of the photos were loaded, the data can not replace a search
+        if (resultSet != null
+                && (resultSet.getPhotoDataSet() == null || !resultSet.getPhotoDataSet().hasNextItems())) {
+            ViewportDataCache.getInstance().put(area, filter, resultSet);
+        }
+        isPrefetching = false;
+    }
+
+    private static double centerLat(final BoundingBox area) {
+        return (area.getNorth() + area.getSouth()) / 2;
+    }
+
+    private static double centerLon(final BoundingBox area) {
+        return (area.getEast() + area.getWest()) / 2;
+    }
+
+    private static double height(final BoundingBox area) {
+        return area.getNorth() - area.getSouth();
+    }
+
+    private static double width(final BoundingBox area) {
+        return area.getEast() - area.getWest();
+    }
+
+    /**
+     * Moves the given area with the given distances, measured in area heights and widths.
+     */
+    private static BoundingBox move(final BoundingBox area, final double latDistance, final double lonDistance) {
+        final double latShift = latDistance * height(area);
+        final double lonShift = lonDistance * width(area);
+        return new BoundingBox(area.getNorth() + latShift, area.getSouth() + latShift, area.getEast() + lonShift,
+                area.getWest() + lonShift);
+    }
+
+
+    private static final class Sample {
+
+        private final long time;
+        private final BoundingBox area;
+
+        private Sample(final long time, final BoundingBox area) {
+            this.time = time;
+            this.area = area;
+        }
+    }
+}
@@ -66,20 +66,13 @@ public final class PhotoHandler {
         try {
             if (type.equals(PhotoSize.THUMBNAIL)) {
                 result = loadThumbnailPhoto(photo);
-            } else if (type.equals(PhotoSize.HIGH_QUALITY)) {
-                if (DataSet.getInstance().isFrontFacingDisplayed()) {
-                    result = loadHighQualityPhoto(photo);
-                } else {
-                    result = loadPhoto(photo.getSequenceId(), photo.getLargeThumbnailWrappedName(),
-                            PhotoSize.LARGE_THUMBNAIL, false);
-                }
             } else {
-                if (DataSet.getInstance().isFrontFacingDisplayed()) {
-                    result = loadPhoto(photo.getSequenceId(), photo.getLargeThumbnailName(), PhotoSize.LARGE_THUMBNAIL,
-                            true);
+                final boolean isFrontFacing = DataSet.getInstance().isFrontFacingDisplayed();
+                if (type.equals(PhotoSize.HIGH_QUALITY) && isFrontFacing) {
+                    result = loadHighQualityPhoto(photo);
                 } else {
-                    result = loadPhoto(photo.getSequenceId(), photo.getLargeThumbnailWrappedName(),
-                            PhotoSize.LARGE_THUMBNAIL, true);
+                    result = loadPhoto(photo.getSequenceId(), displayedPhotoName(photo, type, isFrontFacing),
+                            PhotoSize.LARGE_THUMBNAIL, !type.equals(PhotoSize.HIGH_QUALITY));
                 }
             }
         } catch (final ServiceException e) {
@@ -107,9 +100,9 @@ public final class PhotoHandler {
     private Pair<BufferedImage, PhotoSize> loadHighQualityPhoto(final Photo photo)
             throws ServiceException, IOException {
         Pair<BufferedImage, PhotoSize> result;
-        final String name = photo.getName().contains(STORAGE) ? photo.getName() : photo.getOriName();
         try {
-            result = loadPhoto(photo.getSequenceId(), name, PhotoSize.HIGH_QUALITY, false);
+            result = loadPhoto(photo.getSequenceId(), displayedPhotoName(photo, PhotoSize.HIGH_QUALITY, true),
+                    PhotoSize.HIGH_QUALITY, false);
         } catch (final Exception e) {
             // try to load large thumbnail image
             result = loadPhoto(photo.getSequenceId(), photo.getLargeThumbnailName(), PhotoSize.LARGE_THUMBNAIL, true);
@@ -149,15 +142,58 @@ public final class PhotoHandler {
         }
     }
 
+    /**
+     * Loads the given photo to the cache in the size and format in which it is going to be displayed. The download
+     * can be started before the photo is selected; the photo panel reads the downloaded image from the cache, or
+     * waits for the download in progress.
+     *
+     * @param photo a {@code Photo} that is being selected; can be null if the photo could not be loaded
+     * @param isFrontFacing true if the front facing format is going to be displayed; false if the wrapped format
+     */
+    public void preloadPhoto(final Photo photo, final boolean isFrontFacing) {
+        final boolean highQualityFlag = PreferenceManager.getInstance().loadPhotoSettings().isHighQualityFlag();
+        final String photoName = photo != null ? displayedPhotoName(photo,
+                highQualityFlag ? PhotoSize.HIGH_QUALITY : PhotoSize.LARGE_THUMBNAIL, isFrontFacing) : null;
+        if (photoName != null) {
+            try {
+                loadPhotoToCache(photo.getSequenceId(), photoName, !highQualityFlag, true);
+            } catch (final ServiceException e) {
+                Logging.warn("Error preloading image:" + photoName, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the image that is displayed for the given photo in the photo panel. The high quality image
+     * is available only in front facing format; the wrapped format is displayed from the large thumbnail.
+     *
+     * @param photo a {@code Photo}
+     * @param type the {@code PhotoSize} that is displayed, other than {@code PhotoSize.THUMBNAIL}
+     * @param isFrontFacing true if the front facing format is displayed; false if the wrapped format
+     * @return the image name
+     */
+    private static String displayedPhotoName(final Photo photo, final PhotoSize type, final boolean isFrontFacing) {
+        final String result;
+        if (!isFrontFacing) {
+            result = photo.getLargeThumbnailWrappedName();
+        } else if (type.equals(PhotoSize.HIGH_QUALITY)) {
+            result = photo.getName() != null && photo.getName().contains(STORAGE) ? photo.getName()
+                    : photo.getOriName();
+        } else {
+            result = photo.getLargeThumbnailName();
+        }
+        return result;
+    }
+
     private void loadPhotoToCache(final Photo photo, final boolean highQualityFlag) {
             if (highQualityFlag) {
                 // retrieve and save high quality image
                 try {
-                    loadPhotoToCache(photo.getSequenceId(), photo.getName(), false);
+                    loadPhotoToCache(photo.getSequenceId(), photo.getName(), false, false);
                 } catch (final Exception e) {
                     // try to load large thumbnail
                     try {
-                        loadPhotoToCache(photo.getSequenceId(), photo.getLargeThumbnailName(), true);
+                        loadPhotoToCache(photo.getSequenceId(), photo.getLargeThumbnailName(), true, false);
                     } catch (final Exception e2) {
                         Logging.warn("Error loading image:" + photo.getLargeThumbnailName(), e2);
                     }
@@ -165,17 +201,18 @@ public final class PhotoHandler {
             } else {
                 // retrieve and save large thumbnail
                 try {
-                    loadPhotoToCache(photo.getSequenceId(), photo.getLargeThumbnailName(), false);
+                    loadPhotoToCache(photo.getSequenceId(), photo.getLargeThumbnailName(), false, false);
                 } catch (final Exception e2) {
                     Logging.warn("Error loading image:" + photo.getLargeThumbnailName(), e2);
                 }
             }
     }
 
-    private void loadPhotoToCache(final Long sequenceId, final String photoName, final boolean isWarning)
-            throws ServiceException {
+    private void loadPhotoToCache(final Long sequenceId, final String photoName, final boolean isWarning,
+            final boolean isSelected) throws ServiceException {
         if (!cacheManager.containsPhoto(sequenceId, photoName)) {
-            final byte[] byteImage = ServiceHandler.getInstance().retrievePhoto(photoName);
+            final byte[] byteImage = isSelected ? ServiceHandler.getInstance().retrievePhoto(photoName)
+                    : ServiceHandler.getInstance().retrieveBackgroundPhoto(photoName);
             cacheManager.putPhoto(sequenceId, photoName, byteImage, isWarning);
         }
     }
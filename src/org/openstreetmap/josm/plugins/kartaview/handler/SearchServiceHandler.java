@@ -8,15 +8,22 @@ package org.openstreetmap.josm.plugins.kartaview.handler;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.swing.JOptionPane;
 
+import org.openstreetmap.josm.plugins.kartaview.service.BaseService;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestPriority;
 import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.ApolloService;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.DetectionFilter;
@@ -25,6 +32,7 @@ import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.SearchDete
 import org.openstreetmap.josm.plugins.kartaview.service.photo.KartaViewService;
 import org.openstreetmap.josm.plugins.kartaview.service.photo.Paging;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.KartaViewServiceConfig;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
@@ -33,6 +41,7 @@ import org.openstreetmap.josm.plugins.kartaview.entity.Author;
 import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
 import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
 import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.SearchClustersFilterBuilder;
@@ -48,7 +57,8 @@ import com.grab.josm.common.argument.BoundingBox;
  */
 class SearchServiceHandler {
 
-    private static final double AREA_EXTEND = 0.004;
+    /** the clusters are searched in an area extended with this value, in degrees, on each side */
+    static final double AREA_EXTEND = 0.004;
 
     protected final KartaViewService kartaViewService;
     protected final ApolloService apolloService;
@@ -60,76 +70,111 @@ class SearchServiceHandler {
 
     /**
      * Searches for data high zoom levels. For high zoom levels depending on the selected filter the following data
-     * types are displayed: photo locations, detections and clusters (aggregated detections).
+     * types are displayed: photo locations, detections and clusters (aggregated detections). The failed searches are
+     * reported to the user.
      *
      * @param areas a list of {@code BoundingBox}s representing the search areas. If the OsmDataLayer is active, there
      * might be several bounding boxes.
      * @param filter a {@code SearchFilter} represents the currently selected search filters.
+     * @param photoPageHandler receives the photos of every page as soon as the page was loaded, such that the photos
+     * can be displayed before the search completes; the handler is called from several threads. Can be null.
      * @return a {@code HighZoomResultSet} containing the result
      */
-    HighZoomResultSet searchHighZoomData(final List<BoundingBox> areas, final SearchFilter filter) {
+    HighZoomResultSet searchHighZoomData(final List<BoundingBox> areas, final SearchFilter filter,
+            final Consumer<List<Photo>> photoPageHandler) {
+        return searchHighZoomData(areas, filter, photoPageHandler, EnumSet.noneOf(DataType.class));
+    }
+
+    /**
+     * Searches for data high zoom levels, and returns the data types whose search failed. A data type that failed has
+     * no data in the result, in the same way as a data type that has no data in the search areas.
+     *
+     * @param areas a list of {@code BoundingBox}s representing the search areas
+     * @param filter a {@code SearchFilter} represents the currently selected search filters
+     * @param photoPageHandler receives the photos of every page as soon as the page was loaded; can be null
+     * @param failedDataTypes collects the data types whose search failed; the failures are also reported to the user
+     * @return a {@code HighZoomResultSet} containing the result
+     * @see #searchHighZoomData(List, SearchFilter, Consumer)
+     */
+    HighZoomResultSet searchHighZoomData(final List<BoundingBox> areas, final SearchFilter filter,
+            final Consumer<List<Photo>> photoPageHandler, final Set<DataType> failedDataTypes) {
+        final HighZoomResultSet result = loadHighZoomData(areas, filter, photoPageHandler, failedDataTypes);
+        failedDataTypes.forEach(this::reportSearchError);
+        return result;
+    }
+
+    /**
+     * Searches for the high zoom level data of the given area without reporting the errors to the user. Should be used
+     * for loading data in advance, with a low request priority.
+     *
+     * @param area a {@code BoundingBox} representing the search area
+     * @param filter a {@code SearchFilter} represents the search filters; it should have at least one data type
+     * @return a {@code HighZoomResultSet} containing the result
+     * @throws ServiceException if any of the searches failed
+     */
+    HighZoomResultSet prefetchHighZoomData(final BoundingBox area, final SearchFilter filter)
+            throws ServiceException {
+        final Set<DataType> failedDataTypes = EnumSet.noneOf(DataType.class);
+        final HighZoomResultSet result =
+                loadHighZoomData(Collections.singletonList(area), filter, null, failedDataTypes);
+        if (!failedDataTypes.isEmpty()) {
+            throw new ServiceException("The search of the " + failedDataTypes + " data failed");
+        }
+        return result;
+    }
+
+    /**
+     * Searches for the high zoom level data of the given areas. The data types and areas are searched in parallel,
+     * with the request priority of the calling thread.
+     *
+     * @param failedDataTypes collects the data types whose search failed
+     */
+    private HighZoomResultSet loadHighZoomData(final List<BoundingBox> areas, final SearchFilter filter,
+            final Consumer<List<Photo>> photoPageHandler, final Set<DataType> failedDataTypes) {
+        final RequestPriority priority = BaseService.currentPriority();
+        final int maxPhotos = maxPhotos(Paging.NEARBY_PHOTOS_DEAFULT);
         final ExecutorService executorService = Executors.newFixedThreadPool(filter.getDataTypes().size());
         final List<Future<PhotoDataSet>> futurePhotoDataSets = new ArrayList<>();
         final List<Future<List<Detection>>> futureDetections = new ArrayList<>();
         final List<Future<List<Cluster>>> futureClusters = new ArrayList<>();
 
         for (final BoundingBox area : areas) {
-            final Future<PhotoDataSet> futurePhotoDataSet = filter.getDataTypes().contains(DataType.PHOTO) ?
-                    executorService.submit(() -> listNearbyPhotos(area, filter, Paging.NEARBY_PHOTOS_DEAFULT)) : null;
-            if (futurePhotoDataSet != null) {
-                futurePhotoDataSets.add(futurePhotoDataSet);
+            if (filter.getDataTypes().contains(DataType.PHOTO)) {
+                futurePhotoDataSets.add(executorService.submit(() -> BaseService.executeWithPriority(priority,
+                        () -> kartaViewService.listNearbyPhotos(area, filter.getDate(), filter.getOsmUserId(),
+                                Paging.NEARBY_PHOTOS_DEAFULT, maxPhotos, photoPageHandler))));
             }
-            final Future<List<Detection>> futureDetectionList = filter.getDataTypes().contains(DataType.DETECTION) ?
-                    executorService.submit(() -> searchDetections(area, filter)) : null;
-            if (futureDetectionList != null) {
-                futureDetections.add(futureDetectionList);
+            if (filter.getDataTypes().contains(DataType.DETECTION)) {
+                futureDetections.add(executorService.submit(() -> BaseService.executeWithPriority(priority,
+                        () -> apolloService.searchDetections(createDetectionsAreaFilter(area,
+                                filter.getDetectionFilter(), filter.getDate(), filter.getOsmUserId())))));
             }
-            final Future<List<Cluster>> futureClusterList = filter.getDataTypes().contains(DataType.CLUSTER) ?
-                    executorService.submit(() -> searchClusters(area, filter)) : null;
-            if (futureClusterList != null) {
-                futureClusters.add(futureClusterList);
+            if (filter.getDataTypes().contains(DataType.CLUSTER)) {
+                futureClusters.add(executorService.submit(() -> BaseService.executeWithPriority(priority,
+                        () -> apolloService.searchClusters(
+                                createClustersAreaFilter(area, filter.getDate(), filter.getDetectionFilter())))));
             }
         }
+        final List<PhotoDataSet> photoDataSets = results(futurePhotoDataSets, DataType.PHOTO, failedDataTypes);
         PhotoDataSet photoDataSet = null;
-        try {
-            if (!futurePhotoDataSets.isEmpty()) {
-                photoDataSet = futurePhotoDataSets.get(0).get();
-                for (int i = 1; i < futurePhotoDataSets.size(); i++) {
-                    photoDataSet.addPhotos(futurePhotoDataSets.get(i).get().getPhotos());
+        if (!photoDataSets.isEmpty()) {
+            // the page range of an area having more photos is kept, the caller can load the whole area again
+            photoDataSet = photoDataSets.stream().filter(PhotoDataSet::hasNextItems).findFirst()
+                    .orElse(photoDataSets.get(0));
+            for (final PhotoDataSet areaPhotoDataSet : photoDataSets) {
+                if (areaPhotoDataSet != photoDataSet) {
+                    photoDataSet.addPhotos(areaPhotoDataSet.getPhotos());
                 }
             }
-        } catch (final Exception ex) {
-            if (!PreferenceManager.getInstance().loadPhotosSearchErrorSuppressFlag()) {
-                final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoListText());
-                PreferenceManager.getInstance().savePhotosSearchErrorSuppressFlag(flag);
-            }
         }
         photoDataSet = photoDataSet != null && photoDataSet.hasItems() ? photoDataSet : null;
 
         List<Detection> detections = new ArrayList<>();
-        try {
-            for (final Future<List<Detection>> futureDetect : futureDetections) {
-                detections.addAll(futureDetect.get());
-            }
-        } catch (final Exception ex) {
-            if (!PreferenceManager.getInstance().loadDetectionsSearchErrorSuppressFlag()) {
-                final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionRetrieveText());
-                PreferenceManager.getInstance().saveDetectionsSearchErrorSuppressFlag(flag);
-            }
-        }
+        results(futureDetections, DataType.DETECTION, failedDataTypes).forEach(detections::addAll);
         detections = detections.isEmpty() ? null : detections;
 
         List<Cluster> clusters = new ArrayList<>();
-        try {
-            for (final Future<List<Cluster>> futureCluster : futureClusters) {
-                clusters.addAll(futureCluster.get());
-            }
-        } catch (final Exception ex) {
-            if (!PreferenceManager.getInstance().loadClustersSearchErrorSuppressFlag()) {
-                final boolean flag = handleException(GuiConfig.getInstance().getErrorClusterRetrieveText());
-                PreferenceManager.getInstance().saveClustersSearchErrorSuppressFlag(flag);
-            }
-        }
+        results(futureClusters, DataType.CLUSTER, failedDataTypes).forEach(clusters::addAll);
         clusters = clusters.isEmpty() ? null : clusters;
 
         if (detections != null && clusters != null) {
@@ -140,6 +185,85 @@ class SearchServiceHandler {
         return new HighZoomResultSet(photoDataSet, detections, clusters);
     }
 
+    /**
+     * Waits for the given searches and returns their non null results. If a search failed, the data type is added to
+     * the failed data types.
+     */
+    private static <T> List<T> results(final List<Future<T>> futures, final DataType dataType,
+            final Set<DataType> failedDataTypes) {
+        final List<T> result = new ArrayList<>();
+        for (final Future<T> future : futures) {
+            try {
+                final T value = future.get();
+                if (value != null) {
+                    result.add(value);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedDataTypes.add(dataType);
+            } catch (final ExecutionException e) {
+                failedDataTypes.add(dataType);
+            }
+        }
+        return result;
+    }
+
+    private void reportSearchError(final DataType dataType) {
+        switch (dataType) {
+            case PHOTO:
+                if (!PreferenceManager.getInstance().loadPhotosSearchErrorSuppressFlag()) {
+                    final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoListText());
+                    PreferenceManager.getInstance().savePhotosSearchErrorSuppressFlag(flag);
+                }
+                break;
+            case DETECTION:
+                if (!PreferenceManager.getInstance().loadDetectionsSearchErrorSuppressFlag()) {
+                    final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionRetrieveText());
+                    PreferenceManager.getInstance().saveDetectionsSearchErrorSuppressFlag(flag);
+                }
+                break;
+            default:
+                if (!PreferenceManager.getInstance().loadClustersSearchErrorSuppressFlag()) {
+                    final boolean flag = handleException(GuiConfig.getInstance().getErrorClusterRetrieveText());
+                    PreferenceManager.getInstance().saveClustersSearchErrorSuppressFlag(flag);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Searches for the high zoom level data of the given area without reporting the errors to the user. The requests
+     * are executed one after the other, from the calling thread.
+     *
+     * @param area a {@code BoundingBox} representing the search area
+     * @param filter a {@code SearchFilter} represents the search filters; it should have at least one data type
+     * @param maxPhotos the maximum number of photos to load
+     * @return a {@code HighZoomResultSet} containing the result
+     * @throws ServiceException if any of the searches failed
+     */
+    HighZoomResultSet downloadHighZoomData(final BoundingBox area, final SearchFilter filter, final int maxPhotos)
+            throws ServiceException {
+        PhotoDataSet photoDataSet = null;
+        if (filter.getDataTypes().contains(DataType.PHOTO)) {
+            photoDataSet = kartaViewService.listNearbyPhotos(area, filter.getDate(), filter.getOsmUserId(),
+                    Paging.NEARBY_PHOTOS_DEAFULT, maxPhotos, null);
+        }
+        List<Detection> detections = null;
+        if (filter.getDataTypes().contains(DataType.DETECTION)) {
+            detections = apolloService.searchDetections(createDetectionsAreaFilter(area,
+                    filter.getDetectionFilter(), filter.getDate(), filter.getOsmUserId()));
+        }
+        List<Cluster> clusters = null;
+        if (filter.getDataTypes().contains(DataType.CLUSTER)) {
+            clusters = apolloService.searchClusters(
+                    createClustersAreaFilter(area, filter.getDate(), filter.getDetectionFilter()));
+        }
+        if (detections != null && clusters != null) {
+            detections = filterClusterDetections(clusters, detections);
+        }
+        return new HighZoomResultSet(photoDataSet, detections, clusters);
+    }
+
     private List<Detection> filterClusterDetections(final List<Cluster> clusters, final List<Detection> detections) {
         final List<Detection> result = new ArrayList<>();
 
@@ -155,14 +279,27 @@ class SearchServiceHandler {
     }
 
     /**
-     * Lists the photos from the current area based on the given filters.
+     * Returns the number of photos loaded by a search starting with the given page: if the automatic paging is
+     * enabled, the configured maximum number of photos; otherwise a single page.
+     */
+    private static int maxPhotos(final Paging paging) {
+        return KartaViewServiceConfig.getInstance().isNearbyPhotosAutoPaging()
+                ? KartaViewServiceConfig.getInstance().getNearbyPhotosMaxTotalItems() : paging.getItemsPerPage();
+    }
+
+    /**
+     * Lists the photos from the current area based on the given filters, starting with the given page and loading
+     * the following pages until the given number of photos is reached.
      *
      * @param area a {@code Circle} representing the search areas.
      * @param filter a {@code Filter} represents the user's search filters. Null values are ignored.
-     * @param paging a {@code Paging} representing the pagination
+     * @param paging a {@code Paging} representing the first page and the page size
+     * @param maxItems the maximum number of photos to load
+     * @param pageHandler receives the photos of every page as soon as the page was loaded; can be null
      * @return a list of {@code Photo}s
      */
-    public PhotoDataSet listNearbyPhotos(final BoundingBox area, final SearchFilter filter, final Paging paging) {
+    public PhotoDataSet listNearbyPhotos(final BoundingBox area, final SearchFilter filter, final Paging paging,
+            final int maxItems, final Consumer<List<Photo>> pageHandler) {
         Long osmUserId = null;
         Date date = null;
         if (filter != null) {
@@ -171,9 +308,10 @@ class SearchServiceHandler {
         }
         PhotoDataSet result = new PhotoDataSet();
         try {
-            result = kartaViewService.listNearbyPhotos(area, date, osmUserId, paging);
+            result = kartaViewService.listNearbyPhotos(area, date, osmUserId, paging, maxItems, pageHandler);
         } catch (final ServiceException e) {
-            if (!PreferenceManager.getInstance().loadPhotosSearchErrorSuppressFlag()) {
+            // the cancelled downloads fail without the user being notified
+            if (!BaseService.isCancelled() && !PreferenceManager.getInstance().loadPhotosSearchErrorSuppressFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoListText());
                 PreferenceManager.getInstance().savePhotosSearchErrorSuppressFlag(flag);
             }
@@ -181,28 +319,6 @@ class SearchServiceHandler {
         return result;
     }
 
-    private List<Detection> searchDetections(final BoundingBox area, final SearchFilter filter) {
-        Long osmUserId = null;
-        Date date = null;
-        DetectionFilter detectionFilter = null;
-        if (filter != null) {
-            osmUserId = filter.getOsmUserId();
-            date = filter.getDate();
-            detectionFilter = filter.getDetectionFilter();
-        }
-        List<Detection> result = null;
-        try {
-            final SearchDetectionsAreaFilter searchAreaFilter= createDetectionsAreaFilter(area, detectionFilter, date, osmUserId);
-            result = apolloService.searchDetections(searchAreaFilter);
-        } catch (final ServiceException e) {
-            if (!PreferenceManager.getInstance().loadDetectionsSearchErrorSuppressFlag()) {
-                final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionRetrieveText());
-                PreferenceManager.getInstance().saveDetectionsSearchErrorSuppressFlag(flag);
-            }
-        }
-        return result;
-    }
-
     private SearchDetectionsAreaFilter createDetectionsAreaFilter(final BoundingBox area,
             final DetectionFilter detectionFilter, final Date date, final Long osmUserId) {
         final SearchDetectionsFilterBuilder builder = new SearchDetectionsFilterBuilder();
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import com.grab.josm.common.argument.BoundingBox;
+
+
+/**
+ * Caches the segments that have KartaView coverage per slippy map tile. A tile is identified by the zoom level of its
+ * segment geometries and by its x and y coordinates; the tiles are larger than the map tiles, the tile grid of a zoom
+ * level being the one of the zoom level decreased by the configured offset. In this way a tile has four child tiles at
+ * the next zoom level, and one parent tile at the previous one.
+ * <p>
+ * The tiles that are not cached are displayed from the cached tiles of the other zoom levels while they are loaded:
+ * after zooming in from their parent tile, and after zooming out from their child tiles. A tile is loaded only once,
+ * until it is evicted, it becomes older than the configured maximum age or the user filter changes; an expired tile is
+ * still displayed while it is loaded again.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class SegmentTileCache {
+
+    private static final SegmentTileCache INSTANCE = new SegmentTileCache();
+
+    /** the number of zoom levels below the current one from which the cached child tiles are used */
+    private static final int MAX_CHILD_DEPTH = 2;
+    private static final double MAX_LATITUDE = 85.0511287798;
+    private static final double FULL_ANGLE = 360.0;
+    private static final double HALF_ANGLE = 180.0;
+
+    /** the cached tiles, the least recently used first */
+    private final Map<Tile, CachedTile> tiles = new LinkedHashMap<Tile, CachedTile>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Tile, CachedTile> eldest) {
+            return size() > Config.getInstance().getSegmentTilesMaxTiles();
+        }
+    };
+
+    /** the OSM user identifier of the filter with which the cached tiles were loaded */
+    private Long osmUserId;
+
+
+    private SegmentTileCache() {}
+
+    /**
+     * Returns the unique instance of the segment tile cache.
+     *
+     * @return a {@code SegmentTileCache} object
+     */
+    public static SegmentTileCache getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Lists the segments that have KartaView coverage from the given areas. The segments of the cached tiles are
+     * handed to the segments handler immediately, the tiles that are not cached are loaded from the service.
+     *
+     * @param areas a list of {@code BoundingBox}s representing the search areas
+     * @param filter a {@code Filter} represents the user's search filters. Null values are ignored.
+     * @param zoom the current zoom level
+     * @param segmentsHandler receives all the segments available so far, first the cached ones and then every time a
+     * page adds new segments; can be null
+     * @return a list of {@code Segment}s
+     */
+    public List<Segment> listMatchedTracks(final List<BoundingBox> areas, final SearchFilter filter, final int zoom,
+            final Consumer<List<Segment>> segmentsHandler) {
+        // the service uses the same geometries for all the zoom levels above the maximum one
+        final int tileZoom = Math.min(zoom, Config.getInstance().getTracksMaxZoom());
+        final Map<String, Segment> segments = new LinkedHashMap<>();
+        final List<Tile> missingTiles = new ArrayList<>();
+        final Map<Tile, Collection<Segment>> provisionalSegments = new LinkedHashMap<>();
+        synchronized (this) {
+            final Long filterOsmUserId = filter != null ? filter.getOsmUserId() : null;
+            if (!Objects.equals(osmUserId, filterOsmUserId)) {
+                tiles.clear();
+                osmUserId = filterOsmUserId;
+            }
+            for (final Tile tile : tiles(areas, tileZoom)) {
+                final Collection<Segment> cachedSegments = cachedSegments(tile);
+                if (cachedSegments != null) {
+                    cachedSegments.forEach(segment -> segments.putIfAbsent(segment.getId(), segment));
+                } else {
+                    missingTiles.add(tile);
+                    provisionalSegments.put(tile, provisionalSegments(tile));
+                }
+            }
+        }
+        List<Segment> result;
+        if (missingTiles.isEmpty()) {
+            result = new ArrayList<>(segments.values());
+            if (segmentsHandler != null) {
+                segmentsHandler.accept(result);
+            }
+        } else {
+            result = loadTiles(missingTiles, filter, segments, provisionalSegments, segmentsHandler);
+        }
+        return result;
+    }
+
+    private List<Segment> loadTiles(final List<Tile> missingTiles, final SearchFilter filter,
+            final Map<String, Segment> cachedSegments, final Map<Tile, Collection<Segment>> provisionalSegments,
+            final Consumer<List<Segment>> segmentsHandler) {
+        final Map<String, Segment> displayedSegments = new LinkedHashMap<>(cachedSegments);
+        provisionalSegments.values().forEach(
+                tileSegments -> tileSegments.forEach(segment -> displayedSegments.put(segment.getId(), segment)));
+        if (segmentsHandler != null && !displayedSegments.isEmpty()) {
+            segmentsHandler.accept(new ArrayList<>(displayedSegments.values()));
+        }
+        final List<BoundingBox> tileAreas = new ArrayList<>();
+        missingTiles.forEach(tile -> tileAreas.add(tile.bounds()));
+        final long start = System.currentTimeMillis();
+        final List<List<Segment>> tileSegments = ServiceHandler.getInstance().listMatchedTrackTiles(tileAreas,
+                filter, missingTiles.get(0).zoom, page -> {
+                    synchronized (displayedSegments) {
+                        // the loaded geometries replace the provisional ones of the other zoom levels
+                        page.forEach(segment -> displayedSegments.put(segment.getId(), segment));
+                        if (segmentsHandler != null) {
+                            segmentsHandler.accept(new ArrayList<>(displayedSegments.values()));
+                        }
+                    }
+                });
+        // only the loads that called the service are measured, the cached tiles are returned at once
+        DataRefreshScheduler.getInstance().addLatency(System.currentTimeMillis() - start);
+        final Map<String, Segment> result = new LinkedHashMap<>(cachedSegments);
+        for (int i = 0; i < missingTiles.size(); i++) {
+            final List<Segment> segments = tileSegments.get(i);
+            if (segments != null) {
+                cache(missingTiles.get(i), segments);
+                segments.forEach(segment -> result.put(segment.getId(), segment));
+            } else {
+                // the tile could not be loaded, the data of the other zoom levels is kept
+                provisionalSegments.get(missingTiles.get(i))
+                        .forEach(segment -> result.putIfAbsent(segment.getId(), segment));
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private synchronized void cache(final Tile tile, final List<Segment> segments) {
+        tiles.put(tile, new CachedTile(segments, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the segments of the given tile if it is cached.
+     *
+     * @param isFresh if true, the segments are returned only if the tile is not older than the maximum age
+     * @return the segments of the tile; null if the tile is not available in the cache
+     */
+    private List<Segment> segments(final Tile tile, final boolean isFresh) {
+        final CachedTile cachedTile = tiles.get(tile);
+        return cachedTile != null && (!isFresh || cachedTile.loadTime
+                >= System.currentTimeMillis() - Config.getInstance().getSegmentTilesMaxAge()) ? cachedTile.segments
+                        : null;
+    }
+
+    /**
+     * Returns the segments of the given tile, from the tile itself or from its child tiles if all of them are cached
+     * and not expired.
+     *
+     * @return the segments of the tile; null if the tile is not available in the cache
+     */
+    private Collection<Segment> cachedSegments(final Tile tile) {
+        Collection<Segment> result = segments(tile, true);
+        if (result == null) {
+            result = childSegments(tile, MAX_CHILD_DEPTH, true);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the segments of the cached child tiles of the given tile, up to the given depth.
+     *
+     * @param isComplete if true, the segments are returned only if all the child tiles are cached and not expired
+     * @return the segments of the child tiles; null if the complete data was requested but it is not cached
+     */
+    private Collection<Segment> childSegments(final Tile tile, final int depth, final boolean isComplete) {
+        Set<Segment> result = null;
+        if (depth > 0 && tile.zoom < Config.getInstance().getTracksMaxZoom()) {
+            result = new LinkedHashSet<>();
+            for (final Tile child : tile.children()) {
+                Collection<Segment> segments = segments(child, isComplete);
+                if (segments == null) {
+                    segments = childSegments(child, depth - 1, isComplete);
+                }
+                if (segments != null) {
+                    result.addAll(segments);
+                } else if (isComplete) {
+                    result = null;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the segments that can be displayed for a tile while it is loaded: the segments of the tile itself if it
+     * expired, otherwise the segments of its nearest cached parent tile, or the segments of its cached child tiles.
+     */
+    private Collection<Segment> provisionalSegments(final Tile tile) {
+        Collection<Segment> result = segments(tile, false);
+        Tile parent = tile.parent();
+        while (result == null && parent != null && parent.zoom >= Config.getInstance().getMapSegmentZoom()) {
+            result = segments(parent, false);
+            parent = parent.parent();
+        }
+        if (result == null) {
+            result = childSegments(tile, MAX_CHILD_DEPTH, false);
+        }
+        return result != null ? result : new ArrayList<>();
+    }
+
+    private static Set<Tile> tiles(final List<BoundingBox> areas, final int zoom) {
+        final Set<Tile> result = new LinkedHashSet<>();
+        final int gridZoom = Math.max(0, zoom - Config.getInstance().getSegmentTilesZoomOffset());
+        for (final BoundingBox area : areas) {
+            final int minX = tileX(area.getWest(), gridZoom);
+            final int maxX = tileX(area.getEast(), gridZoom);
+            final int minY = tileY(area.getNorth(), gridZoom);
+            final int maxY = tileY(area.getSouth(), gridZoom);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    result.add(new Tile(zoom, x, y));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int tileX(final double lon, final int gridZoom) {
+        final int tileCount = 1 << gridZoom;
+        return Math.max(0, Math.min((int) Math.floor((lon + HALF_ANGLE) / FULL_ANGLE * tileCount), tileCount - 1));
+    }
+
+    private static int tileY(final double lat, final int gridZoom) {
+        final int tileCount = 1 << gridZoom;
+        final double latRadians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(lat, MAX_LATITUDE)));
+        final double y = (1 - Math.log(Math.tan(latRadians) + 1 / Math.cos(latRadians)) / Math.PI) / 2;
+        return Math.max(0, Math.min((int) Math.floor(y * tileCount), tileCount - 1));
+    }
+
+
+    private static final class CachedTile {
+
+        private final List<Segment> segments;
+        private final long loadTime;
+
+
+        private CachedTile(final List<Segment> segments, final long loadTime) {
+            this.segments = segments;
+            this.loadTime = loadTime;
+        }
+    }
+
+
+    private static final class Tile {
+
+        private final int zoom;
+        private final int x;
+        private final int y;
+
+
+        private Tile(final int zoom, final int x, final int y) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+
+        private Tile parent() {
+            return zoom - Config.getInstance().getSegmentTilesZoomOffset() > 0 ? new Tile(zoom - 1, x / 2, y / 2)
+                    : null;
+        }
+
+        private List<Tile> children() {
+            final List<Tile> result = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < 2; j++) {
+                    result.add(new Tile(zoom + 1, 2 * x + i, 2 * y + j));
+                }
+            }
+            return result;
+        }
+
+        private BoundingBox bounds() {
+            final double tileCount = 1 << Math.max(0, zoom - Config.getInstance().getSegmentTilesZoomOffset());
+            return new BoundingBox(latitude(y, tileCount), latitude(y + 1.0, tileCount),
+                    (x + 1) / tileCount * FULL_ANGLE - HALF_ANGLE, x / tileCount * FULL_ANGLE - HALF_ANGLE);
+        }
+
+        private static double latitude(final double tileY, final double tileCount) {
+            return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * tileY / tileCount))));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zoom, x, y);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            boolean result = false;
+            if (this == obj) {
+                result = true;
+            } else if (obj != null && obj.getClass() == this.getClass()) {
+                final Tile other = (Tile) obj;
+                result = zoom == other.zoom && x == other.x && y == other.y;
+            }
+            return result;
+        }
+    }
+}
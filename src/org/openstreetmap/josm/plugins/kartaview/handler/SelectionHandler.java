@@ -15,7 +15,7 @@ import javax.swing.Timer;
 import org.openstreetmap.josm.plugins.kartaview.DataSet;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.detection.DetectionDetailsDialog;
 import org.openstreetmap.josm.plugins.kartaview.gui.details.photo.PhotoDetailsDialog;
-import org.openstreetmap.josm.plugins.kartaview.gui.layer.KartaViewLayer;
+import org.openstreetmap.josm.plugins.kartaview.gui.layer.RepaintScheduler;
 import org.openstreetmap.josm.plugins.kartaview.observer.ClusterObserver;
 import org.openstreetmap.josm.plugins.kartaview.observer.DetectionSelectionObserver;
 import org.openstreetmap.josm.plugins.kartaview.observer.NearbyPhotoObserver;
@@ -28,7 +28,6 @@ import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.plugins.kartaview.argument.AutoplayAction;
 import org.openstreetmap.josm.plugins.kartaview.argument.AutoplaySettings;
-import org.openstreetmap.josm.plugins.kartaview.argument.CacheSettings;
 import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
 import org.openstreetmap.josm.plugins.kartaview.argument.PhotoSize;
 import org.openstreetmap.josm.plugins.kartaview.cache.CacheManager;
@@ -70,8 +69,7 @@ public final class SelectionHandler extends MouseSelectionHandler
         }
         DataSet.getInstance().clearSelection();
         DetectionDetailsDialog.getInstance().updateDetectionDetails(null);
-        KartaViewLayer.getInstance().invalidate();
-        MainApplication.getMap().repaint();
+        RepaintScheduler.getInstance().requestRepaint();
     }
 
     private void handlePhotoUnselection() {
@@ -107,7 +105,7 @@ public final class SelectionHandler extends MouseSelectionHandler
             selectDetection(detection);
             selectPhoto(photo);
         }
-        KartaViewLayer.getInstance().invalidate();
+        RepaintScheduler.getInstance().requestSelectionRepaint();
     }
 
     private void selectPhoto(final Photo photo) {
@@ -203,8 +201,7 @@ public final class SelectionHandler extends MouseSelectionHandler
                     MainApplication.getMap().mapView.zoomTo(photo.getPoint());
                 }
 
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
                 if (PhotoDetailsDialog.getInstance().getButton() != null
                         && !PhotoDetailsDialog.getInstance().getButton().isSelected()) {
                     PhotoDetailsDialog.getInstance().getButton().doClick();
@@ -215,9 +212,7 @@ public final class SelectionHandler extends MouseSelectionHandler
                             DataSet.getInstance().enablePreviousPhotoAction(),
                             DataSet.getInstance().enableNextPhotoAction(), null);
                 }
-                final CacheSettings cacheSettings = PreferenceManager.getInstance().loadCacheSettings();
-                ThreadPool.getInstance().execute(() -> PhotoHandler.getInstance().loadPhotos(DataSet.getInstance()
-                        .nearbyPhotos(cacheSettings.getPrevNextCount(), cacheSettings.getNearbyCount())));
+                DataSet.getInstance().preloadNearbyPhotos();
             });
         }
     }
@@ -243,8 +238,7 @@ public final class SelectionHandler extends MouseSelectionHandler
                     PhotoDetailsDialog.getInstance().enableSequenceActions(
                             DataSet.getInstance().enablePreviousPhotoAction(),
                             DataSet.getInstance().enableNextPhotoAction(), null);
-                    KartaViewLayer.getInstance().invalidate();
-                    MainApplication.getMap().repaint();
+                    RepaintScheduler.getInstance().requestRepaint();
                 });
             }
         });
@@ -258,8 +252,7 @@ public final class SelectionHandler extends MouseSelectionHandler
             SwingUtilities.invokeLater(() -> {
                 DataSet.getInstance().setSelectedSequence(null);
                 PhotoDetailsDialog.getInstance().enableSequenceActions(false, false, null);
-                KartaViewLayer.getInstance().invalidate();
-                MainApplication.getMap().repaint();
+                RepaintScheduler.getInstance().requestRepaint();
             });
         }
     }
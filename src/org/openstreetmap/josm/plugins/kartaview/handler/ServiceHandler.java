@@ -8,28 +8,37 @@ package org.openstreetmap.josm.plugins.kartaview.handler;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
+import org.openstreetmap.josm.plugins.kartaview.cache.OfflinePackManager;
+import org.openstreetmap.josm.plugins.kartaview.service.BaseService;
+import org.openstreetmap.josm.plugins.kartaview.service.HedgedRequests;
+import org.openstreetmap.josm.plugins.kartaview.service.MemoizedRequests;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestPriority;
 import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
+import org.openstreetmap.josm.plugins.kartaview.service.ServiceRequest;
 import org.openstreetmap.josm.plugins.kartaview.util.Util;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.KartaViewServiceConfig;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.UserIdentityManager;
 import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.plugins.kartaview.argument.DataType;
 import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
 import org.openstreetmap.josm.plugins.kartaview.entity.Author;
 import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.ClusterBuilder;
 import org.openstreetmap.josm.plugins.kartaview.entity.Contribution;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionBuilder;
 import org.openstreetmap.josm.plugins.kartaview.entity.EditStatus;
 import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
@@ -37,6 +46,7 @@ import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
 import com.grab.josm.common.argument.BoundingBox;
+import com.grab.josm.common.entity.Pair;
 
 
 /**
@@ -53,23 +63,73 @@ public final class ServiceHandler extends SearchServiceHandler {
 
     private static final ServiceHandler INSTANCE = new ServiceHandler();
 
+    /* the Apollo lookups by identifier; a selection requests the same detection and photo several times */
+    private final MemoizedRequests<Long, Detection> detectionRequests =
+            new MemoizedRequests<>(Config.getInstance().getServiceMemoTtl());
+    private final MemoizedRequests<Pair<Long, Integer>, List<Detection>> photoDetectionRequests =
+            new MemoizedRequests<>(Config.getInstance().getServiceMemoTtl());
+    private final MemoizedRequests<Pair<Long, Integer>, Photo> photoRequests =
+            new MemoizedRequests<>(Config.getInstance().getServiceMemoTtl());
+
+    /* only the concurrent downloads of an image are coalesced, the downloaded images are cached by CacheManager; the
+    displayed and the preloaded images are coalesced separately, such that a displayed image is not downloaded with the
+    low priority of a preload */
+    private final MemoizedRequests<String, byte[]> imageRequests = new MemoizedRequests<>(0);
+    private final MemoizedRequests<String, byte[]> backgroundImageRequests = new MemoizedRequests<>(0);
+
+    /* the user waits for the selected photo image and detection, the slow requests of these are hedged */
+    private final HedgedRequests imageHedging = createHedgedRequests();
+    private final HedgedRequests detectionHedging = createHedgedRequests();
+
     public static ServiceHandler getInstance() {
         return INSTANCE;
     }
 
+    private static HedgedRequests createHedgedRequests() {
+        return new HedgedRequests(Config.getInstance().getServiceHedgePercentile(),
+                Config.getInstance().getServiceHedgeBudget(), Config.getInstance().getServiceHedgeMinDelay());
+    }
+
+    private static <T> T hedge(final HedgedRequests hedgedRequests, final ServiceRequest<T> request)
+            throws ServiceException {
+        return Config.getInstance().isServiceHedgeEnabled() ? hedgedRequests.execute(request) : request.execute();
+    }
+
+    private static <T> T highPriority(final ServiceRequest<T> request) throws ServiceException {
+        return BaseService.executeWithPriority(RequestPriority.HIGH, request);
+    }
+
+    private static <T> T lowPriority(final ServiceRequest<T> request) throws ServiceException {
+        return BaseService.executeWithPriority(RequestPriority.LOW, request);
+    }
+
     @Override
-    public HighZoomResultSet searchHighZoomData(final List<BoundingBox> areas, final SearchFilter filter) {
-        return filter != null && filter.getDataTypes() != null && !filter.getDataTypes().isEmpty()
-                ? super.searchHighZoomData(areas, filter) : new HighZoomResultSet();
+    public HighZoomResultSet searchHighZoomData(final List<BoundingBox> areas, final SearchFilter filter,
+            final Consumer<List<Photo>> photoPageHandler, final Set<DataType> failedDataTypes) {
+        HighZoomResultSet result = new HighZoomResultSet();
+        if (filter != null && filter.getDataTypes() != null && !filter.getDataTypes().isEmpty()) {
+            result = OfflinePackManager.getInstance().highZoomData(areas, filter);
+            if (result == null) {
+                result = super.searchHighZoomData(areas, filter, photoPageHandler, failedDataTypes);
+            }
+        }
+        return result;
     }
 
     /**
-     * Retrieves the sequence identified by the given identifier.
+     * Retrieves the sequence identified by the given identifier. The sequences of the offline area packs are not
+     * retrieved from the services.
      *
      * @param sequenceId the identifier of the sequence
      * @return a {@code Sequence} object
      */
     public Sequence retrieveSequence(final Long sequenceId) {
+        final Sequence offlineSequence = OfflinePackManager.getInstance().sequence(sequenceId);
+        return offlineSequence != null ? new Sequence(sequenceId, offlineSequence.getPhotos(),
+                matchingDetections(offlineSequence.getDetections())) : searchSequence(sequenceId);
+    }
+
+    private Sequence searchSequence(final Long sequenceId) {
         final ExecutorService executorService = Executors.newFixedThreadPool(SEQUENCE_THREAD_POOL_SIZE);
 
         final Future<Sequence> sequenceFuture = executorService.submit(() -> retrieveSequencePhotos(sequenceId));
@@ -102,12 +162,18 @@ public final class ServiceHandler extends SearchServiceHandler {
     }
 
     /**
-     * Retrieves the details of the cluster identified by the given identifier.
+     * Retrieves the details of the cluster identified by the given identifier. The clusters of the offline area packs
+     * are not retrieved from the service.
      *
      * @param id the identifier of the cluster
      * @return a {@code Cluster} object.
      */
     public Cluster retrieveClusterDetails(final Long id) {
+        final Cluster offlineCluster = OfflinePackManager.getInstance().clusterDetails(id);
+        return offlineCluster != null ? offlineCluster : searchClusterDetails(id);
+    }
+
+    private Cluster searchClusterDetails(final Long id) {
         final ExecutorService executorService = Executors.newFixedThreadPool(CLUSTER_THREAD_POOL_SIZE);
         final Future<Cluster> clusterFuture = executorService.submit(() -> apolloService.retrieveCluster(id));
         final Future<List<Photo>> photosFuture = executorService.submit(() -> apolloService.retrieveClusterPhotos(id));
@@ -163,12 +229,7 @@ public final class ServiceHandler extends SearchServiceHandler {
     private List<Detection> retrieveSequenceDetections(final Long id) {
         List<Detection> result = null;
         try {
-            result = apolloService.retrieveSequenceDetections(id);
-            if (result != null) {
-                result = result.stream().filter(detection -> Util
-                        .isDetectionMatchingFilters(PreferenceManager.getInstance().loadSearchFilter(), detection))
-                        .collect(Collectors.toList());
-            }
+            result = matchingDetections(apolloService.retrieveSequenceDetections(id));
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadSequenceDetectionsErrorFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionRetrieveText());
@@ -178,6 +239,16 @@ public final class ServiceHandler extends SearchServiceHandler {
         return result;
     }
 
+    private static List<Detection> matchingDetections(final List<Detection> detections) {
+        List<Detection> result = null;
+        if (detections != null) {
+            final SearchFilter filter = PreferenceManager.getInstance().loadSearchFilter();
+            result = detections.stream().filter(detection -> Util.isDetectionMatchingFilters(filter, detection))
+                    .collect(Collectors.toList());
+        }
+        return result;
+    }
+
     /**
      * Retrieve the list of detections corresponding to the given sequence.
      *
@@ -186,14 +257,13 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @return a list of {@code Detection}s
      */
     public List<Detection> retrievePhotoDetections(final Long sequenceId, final Integer sequenceIndex) {
-        List<Detection> result = null;
+        List<Detection> result = OfflinePackManager.getInstance().photoDetections(sequenceId, sequenceIndex);
         try {
-            result = apolloService.retrievePhotoDetections(sequenceId, sequenceIndex);
-            if (result != null) {
-                result = result.stream().filter(detection -> Util
-                        .isDetectionMatchingFilters(PreferenceManager.getInstance().loadSearchFilter(), detection))
-                        .collect(Collectors.toList());
+            if (result == null) {
+                result = photoDetectionRequests.get(new Pair<>(sequenceId, sequenceIndex),
+                        () -> highPriority(() -> apolloService.retrievePhotoDetections(sequenceId, sequenceIndex)));
             }
+            result = matchingDetections(result);
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadSequenceDetectionsErrorFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionRetrieveText());
@@ -204,51 +274,179 @@ public final class ServiceHandler extends SearchServiceHandler {
     }
 
     /**
-     * Lists the segments that have KartaView coverage from the given area(s) corresponding to the specified zoom
-     * level.
+     * Lists the segments that have KartaView coverage from the given tiles. Every tile is searched separately, such
+     * that its segments can be cached. The tiles and their pages share the configured number of parallel requests.
      *
-     * @param areas a list of {@code BoundingBox}s representing the search areas. If the OsmDataLayer is active, there
-     * might be several bounding boxes.
+     * @param tiles a list of {@code BoundingBox}s representing the tile areas
      * @param filter a {@code Filter} represents the user's search filters. Null values are ignored.
-     * @param zoom the current zoom level
-     * @return a list of {@code Segment}s
+     * @param zoom the zoom level of the segment geometries
+     * @param pageHandler receives the segments of every page as soon as the page was read, from the loading threads;
+     * can be null
+     * @return the segments of every tile, in the order of the tiles; the list contains null for the tiles that could
+     * not be loaded
      */
-    public List<Segment> listMatchedTracks(final List<BoundingBox> areas, final SearchFilter filter, final int zoom) {
-        List<Segment> finalResult = new ArrayList<>();
+    public List<List<Segment>> listMatchedTrackTiles(final List<BoundingBox> tiles, final SearchFilter filter,
+            final int zoom, final Consumer<List<Segment>> pageHandler) {
         final Long osmUserId = filter != null ? filter.getOsmUserId() : null;
-        try {
-            if (areas.size() > 1) {
-                // special case: there are several different areas visible in the OSM data layer
-                final ExecutorService executor = Executors.newFixedThreadPool(areas.size());
-                final List<Future<List<Segment>>> futures = new ArrayList<>();
-                for (final BoundingBox bbox : areas) {
-                    final Callable<List<Segment>> callable =
-                            () -> kartaViewService.listMatchedTracks(bbox, osmUserId, zoom);
-                    futures.add(executor.submit(callable));
-                }
-                finalResult.addAll(readResult(futures));
-                executor.shutdown();
-            } else {
-                finalResult = kartaViewService.listMatchedTracks(areas.get(0), osmUserId, zoom);
-            }
-        } catch (final ServiceException e) {
-            if (!PreferenceManager.getInstance().loadSegmentsErrorSuppressFlag()) {
-                final boolean flag = handleException(GuiConfig.getInstance().getErrorSegmentListText());
-                PreferenceManager.getInstance().saveSegmentsErrorSuppressFlag(flag);
+        final int maxParallelRequests = KartaViewServiceConfig.getInstance().getTracksMaxParallelPages();
+        final int threadCount = Math.max(1, Math.min(tiles.size(), maxParallelRequests));
+        final int maxParallelPages = Math.max(1, maxParallelRequests / threadCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<List<Segment>>> futures = new ArrayList<>();
+        for (final BoundingBox tile : tiles) {
+            futures.add(executor.submit(() -> kartaViewService.listMatchedTracks(tile, osmUserId, zoom,
+                    maxParallelPages, pageHandler)));
+        }
+        final List<List<Segment>> result = new ArrayList<>();
+        boolean isFailed = false;
+        for (final Future<List<Segment>> future : futures) {
+            List<Segment> segments = null;
+            try {
+                segments = future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                isFailed = true;
+            } catch (final ExecutionException e) {
+                isFailed = true;
             }
+            result.add(segments);
         }
-        return finalResult;
+        executor.shutdown();
+        if (isFailed && !PreferenceManager.getInstance().loadSegmentsErrorSuppressFlag()) {
+            final boolean flag = handleException(GuiConfig.getInstance().getErrorSegmentListText());
+            PreferenceManager.getInstance().saveSegmentsErrorSuppressFlag(flag);
+        }
+        return result;
     }
 
     /**
-     * Retrieves the photo with the given name.
+     * Retrieves the photo with the given name. The photo is displayed to the user, if the download is slow the request
+     * is hedged.
      *
      * @param photoName the name of a photo
      * @return the photo content in byte array format
      * @throws ServiceException if the download operation fails
      */
     byte[] retrievePhoto(final String photoName) throws ServiceException {
-        return kartaViewService.retrievePhoto(photoName);
+        final byte[] offlinePhoto = OfflinePackManager.getInstance().photo(photoName);
+        return offlinePhoto != null ? offlinePhoto : imageRequests.get(photoName,
+                () -> hedge(imageHedging, () -> highPriority(() -> kartaViewService.retrievePhoto(photoName))));
+    }
+
+    /**
+     * Retrieves the photo with the given name, without hedging the request. Should be used for the photos that are
+     * loaded to the cache in advance.
+     *
+     * @param photoName the name of a photo
+     * @return the photo content in byte array format
+     * @throws ServiceException if the download operation fails
+     */
+    byte[] retrieveBackgroundPhoto(final String photoName) throws ServiceException {
+        final byte[] offlinePhoto = OfflinePackManager.getInstance().photo(photoName);
+        return offlinePhoto != null ? offlinePhoto : backgroundImageRequests.get(photoName, () -> lowPriority(
+                () -> kartaViewService.retrievePhoto(photoName)));
+    }
+
+    /**
+     * Downloads the high zoom level data of the given area, to be stored in an offline area pack. The errors are not
+     * reported to the user.
+     *
+     * @param area a {@code BoundingBox} representing the area
+     * @param filter a {@code SearchFilter} represents the search filters; it should have at least one data type
+     * @return a {@code HighZoomResultSet} containing the result
+     * @throws ServiceException if any of the searches failed
+     */
+    public HighZoomResultSet downloadOfflineAreaData(final BoundingBox area, final SearchFilter filter)
+            throws ServiceException {
+        return lowPriority(() -> downloadHighZoomData(area, filter,
+                KartaViewServiceConfig.getInstance().getNearbyPhotosMaxTotalItems()));
+    }
+
+    /**
+     * Downloads the photos and all the detections of the given sequence, to be stored in an offline area pack. The
+     * errors are not reported to the user.
+     *
+     * @param sequenceId the identifier of the sequence
+     * @return a {@code Sequence} object
+     * @throws ServiceException if the sequence or its detections could not be retrieved
+     */
+    public Sequence downloadOfflineSequence(final Long sequenceId) throws ServiceException {
+        return lowPriority(() -> {
+            final Sequence sequence = kartaViewService.retrieveSequence(sequenceId);
+            return new Sequence(sequenceId, sequence != null ? sequence.getPhotos() : null,
+                    apolloService.retrieveSequenceDetections(sequenceId));
+        });
+    }
+
+    /**
+     * Downloads the photo with the given name, to be stored in an offline area pack. The errors are not reported to
+     * the user.
+     *
+     * @param photoName the name of a photo
+     * @return the photo content in byte array format
+     * @throws ServiceException if the download operation fails
+     */
+    public byte[] downloadOfflinePhoto(final String photoName) throws ServiceException {
+        return lowPriority(() -> kartaViewService.retrievePhoto(photoName));
+    }
+
+    /**
+     * Downloads the details of the given cluster, together with its photos and detections, to be stored in an offline
+     * area pack. The errors are not reported to the user.
+     *
+     * @param clusterId the identifier of the cluster
+     * @return a {@code Cluster} object; null if the service did not return the cluster
+     * @throws ServiceException if the cluster, its photos or its detections could not be retrieved
+     */
+    public Cluster downloadOfflineClusterDetails(final Long clusterId) throws ServiceException {
+        return lowPriority(() -> {
+            final Cluster cluster = apolloService.retrieveCluster(clusterId);
+            Cluster result = null;
+            if (cluster != null) {
+                final ClusterBuilder clusterBuilder = new ClusterBuilder(cluster);
+                clusterBuilder.photos(apolloService.retrieveClusterPhotos(clusterId));
+                final List<Detection> detections = apolloService.retrieveClusterDetections(clusterId);
+                if (detections != null) {
+                    Collections.sort(detections);
+                }
+                clusterBuilder.detections(detections);
+                result = clusterBuilder.build();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Downloads the details of the given photo, to be stored in an offline area pack. The photo also holds the matching
+     * and size information returned by the Apollo service. The errors are not reported to the user.
+     *
+     * @param sequenceId the identifier of the sequence
+     * @param sequenceIndex the photo index in the given sequence
+     * @return a {@code Photo}; null if the service did not return the photo
+     * @throws ServiceException if the photo details could not be retrieved
+     */
+    public Photo downloadOfflinePhotoDetails(final Long sequenceId, final Integer sequenceIndex)
+            throws ServiceException {
+        return lowPriority(() -> {
+            final Photo photo = kartaViewService.retrievePhotoDetails(sequenceId, sequenceIndex);
+            final Photo apolloPhoto = photo != null ? apolloService.retrievePhoto(sequenceId, sequenceIndex) : null;
+            if (apolloPhoto != null) {
+                photo.setMatching(apolloPhoto.getMatching());
+                photo.setSize(apolloPhoto.getSize());
+                photo.setRealSize(apolloPhoto.getRealSize());
+            }
+            return photo;
+        });
+    }
+
+    /**
+     * Downloads the list of signs, to be stored in an offline area pack. The errors are not reported to the user.
+     *
+     * @return a list of {@code Sign}s
+     * @throws ServiceException if the signs could not be retrieved
+     */
+    public List<Sign> downloadOfflineSigns() throws ServiceException {
+        return lowPriority(apolloService::listSigns);
     }
 
     /**
@@ -259,9 +457,11 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @return a {@code Photo}
      */
     public Photo retrievePhotoDetails(final Long sequenceId, final Integer sequenceIndex) {
-        Photo result = null;
+        Photo result = OfflinePackManager.getInstance().photoDetails(sequenceId, sequenceIndex);
         try {
-            result = kartaViewService.retrievePhotoDetails(sequenceId, sequenceIndex);
+            if (result == null) {
+                result = highPriority(() -> kartaViewService.retrievePhotoDetails(sequenceId, sequenceIndex));
+            }
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadPhotosErrorSuppressFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoLoadingText());
@@ -277,10 +477,12 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @param detectionId the identifier of the detection that need to be updated
      * @param editStatus a new edit status
      * @param comment a descriptive comment for the update.
+     * @return true if the update was accepted by the service
      */
-    public void updateDetection(final Long detectionId, final EditStatus editStatus, final String comment) {
+    public boolean updateDetection(final Long detectionId, final EditStatus editStatus, final String comment) {
         final Long userId = Util.getOsmUserId();
         final String userName = UserIdentityManager.getInstance().getUserName();
+        boolean result = false;
         if (userId == null) {
             JOptionPane.showMessageDialog(MainApplication.getMap().mapView,
                     GuiConfig.getInstance().getAuthenticationNeededErrorMessage(),
@@ -290,13 +492,52 @@ public final class ServiceHandler extends SearchServiceHandler {
             try {
                 apolloService.updateDetection(new Detection(detectionId, editStatus),
                         new Contribution(author, comment));
+                result = true;
             } catch (final ServiceException e) {
                 if (!PreferenceManager.getInstance().loadDetectionUpdateErrorSuppressFlag()) {
                     final boolean flag = handleException(GuiConfig.getInstance().getErrorDetectionUpdateText());
                     PreferenceManager.getInstance().saveDetectionUpdateErrorSuppressFlag(flag);
                 }
             }
+            // a failed update might have been applied by the service, the detection is reloaded in both cases
+            invalidateDetection(detectionId);
+            updateOfflineDetection(detectionId, editStatus, result);
         }
+        return result;
+    }
+
+    /**
+     * Replaces the packed copies of the given detection with the detection returned by the service. If the detection
+     * cannot be retrieved, the accepted edit status is applied to the packed copy.
+     */
+    private void updateOfflineDetection(final Long detectionId, final EditStatus editStatus, final boolean isUpdated) {
+        final Detection offlineDetection = OfflinePackManager.getInstance().detection(detectionId);
+        if (offlineDetection != null) {
+            Detection detection = null;
+            try {
+                detection = loadDetection(detectionId);
+            } catch (final ServiceException e) {
+                if (isUpdated) {
+                    final DetectionBuilder builder = new DetectionBuilder(offlineDetection);
+                    builder.editStatus(editStatus);
+                    detection = builder.build();
+                }
+            }
+            if (detection != null) {
+                OfflinePackManager.getInstance().updateDetection(detection);
+            }
+        }
+    }
+
+    private void invalidateDetection(final Long detectionId) {
+        detectionRequests.invalidate(detectionId);
+        photoDetectionRequests.invalidateIf(detections -> containsDetection(detections, detectionId));
+        photoRequests.invalidateIf(photo -> photo != null && containsDetection(photo.getDetections(), detectionId));
+        ViewportDataCache.getInstance().clear();
+    }
+
+    private static boolean containsDetection(final List<Detection> detections, final Long detectionId) {
+        return detections != null && detections.stream().anyMatch(detection -> detectionId.equals(detection.getId()));
     }
 
     /**
@@ -306,9 +547,11 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @return a {@code Detection}
      */
     public Detection retrieveDetection(final Long detectionId) {
-        Detection result = null;
+        Detection result = OfflinePackManager.getInstance().detection(detectionId);
         try {
-            result = apolloService.retrieveDetection(detectionId);
+            if (result == null) {
+                result = loadDetection(detectionId);
+            }
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadPhotosErrorSuppressFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoLoadingText());
@@ -318,6 +561,11 @@ public final class ServiceHandler extends SearchServiceHandler {
         return result;
     }
 
+    private Detection loadDetection(final Long detectionId) throws ServiceException {
+        return detectionRequests.get(detectionId, () -> hedge(detectionHedging,
+                () -> highPriority(() -> apolloService.retrieveDetection(detectionId))));
+    }
+
     /**
      * Retrieves the photo corresponding to the given sequence identifier and sequence index.
      *
@@ -326,9 +574,12 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @return a {@code Photo} entity
      */
     public Photo retrievePhoto(final Long sequenceId, final Integer sequenceIndex) {
-        Photo result = null;
+        Photo result = OfflinePackManager.getInstance().photoDetails(sequenceId, sequenceIndex);
         try {
-            result = apolloService.retrievePhoto(sequenceId, sequenceIndex);
+            if (result == null) {
+                result = photoRequests.get(new Pair<>(sequenceId, sequenceIndex),
+                        () -> highPriority(() -> apolloService.retrievePhoto(sequenceId, sequenceIndex)));
+            }
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadPhotosErrorSuppressFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorPhotoLoadingText());
@@ -344,9 +595,11 @@ public final class ServiceHandler extends SearchServiceHandler {
      * @return a List of Sign objects
      */
     public List<Sign> listSigns() {
-        List<Sign> result = null;
+        List<Sign> result = OfflinePackManager.getInstance().signs();
         try {
-            result = apolloService.listSigns();
+            if (result == null) {
+                result = apolloService.listSigns();
+            }
         } catch (final ServiceException e) {
             if (!PreferenceManager.getInstance().loadListSignsErrorSuppressFlag()) {
                 final boolean flag = handleException(GuiConfig.getInstance().getErrorListSignsText());
@@ -373,16 +626,4 @@ public final class ServiceHandler extends SearchServiceHandler {
         }
         return result;
     }
-
-    private <T> Set<T> readResult(final List<Future<List<T>>> futures) throws ServiceException {
-        final Set<T> result = new HashSet<>();
-        for (final Future<List<T>> future : futures) {
-            try {
-                result.addAll(future.get());
-            } catch (InterruptedException | ExecutionException e) {
-                throw new ServiceException(e);
-            }
-        }
-        return result;
-    }
 }
\ No newline at end of file
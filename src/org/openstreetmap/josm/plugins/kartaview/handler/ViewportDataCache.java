@@ -0,0 +1,290 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.handler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.HighZoomResultSet;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
+import org.openstreetmap.josm.plugins.kartaview.util.BoundingBoxUtil;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
+import com.grab.josm.common.argument.BoundingBox;
+
+
+/**
+ * Keeps the high zoom level data of the recently displayed map views. When the map view returns to such an area, the
+ * cached data is displayed at once as stale data, and it is revalidated with the data returned by the services: the
+ * detections and clusters are compared by their latest change timestamp, and only the changed entries are replaced.
+ * After a pan, the cached data of the newly exposed parts of the map view is merged with the displayed data. The data
+ * loaded in advance by the {@code PanPrefetchHandler} is kept in the same cache.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class ViewportDataCache {
+
+    private static final ViewportDataCache INSTANCE = new ViewportDataCache();
+
+    /** the cached map view data, the most recent first */
+    private final List<Entry> entries = new LinkedList<>();
+
+
+    private ViewportDataCache() {}
+
+    /**
+     * Returns the unique instance of the viewport data cache.
+     *
+     * @return a {@code ViewportDataCache} object
+     */
+    public static ViewportDataCache getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Caches the data displayed for the given area. The previously cached data of the areas contained in the given
+     * area is replaced.
+     *
+     * @param area the area of the map view
+     * @param filter the search filter with which the data was loaded
+     * @param resultSet the displayed or the prefetched data; it should not be modified later
+     */
+    public synchronized void put(final BoundingBox area, final SearchFilter filter, final HighZoomResultSet resultSet) {
+        if (Config.getInstance().isViewportCacheEnabled()) {
+            entries.removeIf(entry -> Objects.equals(entry.filter, filter)
+                    && BoundingBoxUtil.difference(entry.area, area).isEmpty());
+            entries.add(0, new Entry(area, filter, resultSet, System.currentTimeMillis()));
+            while (entries.size() > Config.getInstance().getViewportCacheMaxEntries()) {
+                entries.remove(entries.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the most recent cached data that covers the given area and was loaded with the given filter.
+     *
+     * @param area the area of the map view
+     * @param filter the current search filter
+     * @return a {@code HighZoomResultSet}; null if no cached data covers the area
+     */
+    public synchronized HighZoomResultSet cachedData(final BoundingBox area, final SearchFilter filter) {
+        final Entry entry = entry(area, filter, Config.getInstance().getViewportCacheMaxAge());
+        return entry != null ? entry.resultSet.copy() : null;
+    }
+
+    /**
+     * Verifies if the given point is covered by cached data loaded with the given filter, that is not older than the
+     * given age.
+     *
+     * @param point a {@code LatLon}
+     * @param filter the current search filter
+     * @param maxAge the maximum age of the cached data, in milliseconds
+     * @return true if the point is covered
+     */
+    public synchronized boolean contains(final LatLon point, final SearchFilter filter, final long maxAge) {
+        final long minTime = System.currentTimeMillis() - maxAge;
+        return entries.stream().anyMatch(entry -> entry.time >= minTime && Objects.equals(entry.filter, filter)
+                && BoundingBoxUtil.contains(entry.area, point));
+    }
+
+    /**
+     * Returns the cached data of the given areas, loaded with the given filter. The areas can be covered by different
+     * cached map views, in this case their data is combined; the returned data might contain elements outside the
+     * given areas.
+     *
+     * @param areas the areas of the map view, for instance the newly exposed parts of the map view after a pan
+     * @param filter the current search filter
+     * @return a {@code HighZoomResultSet}; null if any of the areas is not covered by cached data
+     */
+    public HighZoomResultSet cachedData(final List<BoundingBox> areas, final SearchFilter filter) {
+        return cachedData(areas, filter, Config.getInstance().getViewportCacheMaxAge());
+    }
+
+    /**
+     * Returns the cached data of the given areas, loaded with the given filter, that is not older than the given age.
+     *
+     * @param areas the areas of the map view
+     * @param filter the current search filter
+     * @param maxAge the maximum age of the cached data, in milliseconds
+     * @return a {@code HighZoomResultSet}; null if any of the areas is not covered by cached data
+     * @see #cachedData(List, SearchFilter)
+     */
+    public synchronized HighZoomResultSet cachedData(final List<BoundingBox> areas, final SearchFilter filter,
+            final long maxAge) {
+        final Set<Entry> coveringEntries = new LinkedHashSet<>();
+        boolean isCovered = true;
+        for (final BoundingBox area : areas) {
+            final Entry entry = entry(area, filter, maxAge);
+            if (entry != null) {
+                coveringEntries.add(entry);
+            } else {
+                isCovered = false;
+                break;
+            }
+        }
+        HighZoomResultSet result = null;
+        if (isCovered && coveringEntries.size() == 1) {
+            result = coveringEntries.iterator().next().resultSet.copy();
+        } else if (isCovered && !coveringEntries.isEmpty()) {
+            final Set<Photo> photos = new LinkedHashSet<>();
+            final Map<Long, Detection> detections = new LinkedHashMap<>();
+            final Map<Long, Cluster> clusters = new LinkedHashMap<>();
+            for (final Entry entry : coveringEntries) {
+                final HighZoomResultSet resultSet = entry.resultSet;
+                if (resultSet.getPhotoDataSet() != null && resultSet.getPhotoDataSet().hasItems()) {
+                    photos.addAll(resultSet.getPhotoDataSet().getPhotos());
+                }
+                if (resultSet.getDetections() != null) {
+                    resultSet.getDetections().forEach(detection -> detections.put(detection.getId(), detection));
+                }
+                if (resultSet.getClusters() != null) {
+                    resultSet.getClusters().forEach(cluster -> clusters.put(cluster.getId(), cluster));
+                }
+            }
+            result = new HighZoomResultSet(photos.isEmpty() ? null : new PhotoDataSet(new ArrayList<>(photos)),
+                    detections.isEmpty() ? null : new ArrayList<>(detections.values()),
+                    clusters.isEmpty() ? null : new ArrayList<>(clusters.values()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the most recent cached entry that covers the given area, was loaded with the given filter and is not
+     * older than the given age. The expired entries are removed.
+     */
+    private Entry entry(final BoundingBox area, final SearchFilter filter, final long maxAge) {
+        final long now = System.currentTimeMillis();
+        final long expirationTime = now - Config.getInstance().getViewportCacheMaxAge();
+        Entry result = null;
+        final Iterator<Entry> iterator = entries.iterator();
+        while (result == null && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.time < expirationTime) {
+                iterator.remove();
+            } else if (entry.time >= now - maxAge && Objects.equals(entry.filter, filter)
+                    && BoundingBoxUtil.difference(area, entry.area).isEmpty()) {
+                result = entry;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the cached data.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Patches the cached data with the data returned by the services. The cached detections and clusters that did not
+     * change are kept, the changed and the new ones are taken from the fresh data, and the ones that do not exist
+     * anymore are removed. The fresh data should be the result of a successful search: a data type without data
+     * means that the cached elements of that type do not exist anymore.
+     *
+     * @param cachedData the cached data, displayed while the data was revalidated
+     * @param freshData the data returned by the services
+     * @return the patched data; null if the fresh data has no changes compared to the cached data
+     */
+    static HighZoomResultSet revalidate(final HighZoomResultSet cachedData, final HighZoomResultSet freshData) {
+        final List<Detection> detections = patch(cachedData.getDetections(), freshData.getDetections(),
+                Detection::getId, Detection::getLatestChangeTimestamp);
+        final List<Cluster> clusters = patch(cachedData.getClusters(), freshData.getClusters(), Cluster::getId,
+                Cluster::getLatestChangeTimestamp);
+        final boolean isPhotoDataChanged = isChanged(cachedData.getPhotoDataSet(), freshData.getPhotoDataSet());
+        return detections != null || clusters != null || isPhotoDataChanged
+                ? new HighZoomResultSet(isPhotoDataChanged ? freshData.getPhotoDataSet()
+                        : cachedData.getPhotoDataSet(),
+                        detections != null ? nullIfEmpty(detections) : cachedData.getDetections(),
+                        clusters != null ? nullIfEmpty(clusters) : cachedData.getClusters())
+                : null;
+    }
+
+    private static <T> List<T> nullIfEmpty(final List<T> items) {
+        return items.isEmpty() ? null : items;
+    }
+
+    /**
+     * Replaces the cached items that have a different latest change timestamp than the fresh ones.
+     *
+     * @return the patched items, empty if all the cached items were removed; null if none of the items changed
+     */
+    private static <T> List<T> patch(final List<T> cachedItems, final List<T> freshItems, final Function<T, Long> id,
+            final Function<T, Long> latestChangeTimestamp) {
+        // the search returns no list instead of an empty list
+        final boolean isCachedEmpty = cachedItems == null || cachedItems.isEmpty();
+        final boolean isFreshEmpty = freshItems == null || freshItems.isEmpty();
+        List<T> result = null;
+        if (isCachedEmpty || isFreshEmpty) {
+            if (!isCachedEmpty || !isFreshEmpty) {
+                result = isFreshEmpty ? new ArrayList<>() : freshItems;
+            }
+        } else {
+            final Map<Long, T> cachedItemsById =
+                    cachedItems.stream().collect(Collectors.toMap(id, item -> item, (item1, item2) -> item1));
+            final List<T> patchedItems = new ArrayList<>();
+            int unchangedItems = 0;
+            for (final T freshItem : freshItems) {
+                final T cachedItem = cachedItemsById.get(id.apply(freshItem));
+                if (cachedItem != null && Objects.equals(latestChangeTimestamp.apply(cachedItem),
+                        latestChangeTimestamp.apply(freshItem))) {
+                    patchedItems.add(cachedItem);
+                    unchangedItems++;
+                } else {
+                    patchedItems.add(freshItem);
+                }
+            }
+            if (unchangedItems != freshItems.size() || freshItems.size() != cachedItemsById.size()) {
+                result = patchedItems;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isChanged(final PhotoDataSet cachedPhotos, final PhotoDataSet freshPhotos) {
+        final boolean result;
+        if (cachedPhotos == null || freshPhotos == null) {
+            result = cachedPhotos != freshPhotos;
+        } else {
+            result = !Objects.equals(cachedPhotos.getTotalItems(), freshPhotos.getTotalItems())
+                    || !new HashSet<>(cachedPhotos.getPhotos()).equals(new HashSet<>(freshPhotos.getPhotos()));
+        }
+        return result;
+    }
+
+
+    private static final class Entry {
+
+        private final BoundingBox area;
+        private final SearchFilter filter;
+        private final HighZoomResultSet resultSet;
+        private final long time;
+
+        private Entry(final BoundingBox area, final SearchFilter filter, final HighZoomResultSet resultSet,
+                final long time) {
+            this.area = area;
+            this.filter = filter;
+            this.resultSet = resultSet;
+            this.time = time;
+        }
+    }
+}
@@ -6,16 +6,18 @@
  */
 package org.openstreetmap.josm.plugins.kartaview.service;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
 import org.openstreetmap.josm.plugins.kartaview.service.entity.BaseResponse;
 import org.openstreetmap.josm.plugins.kartaview.service.photo.entity.ListResponse;
 import org.openstreetmap.josm.plugins.kartaview.util.cnf.GuiConfig;
@@ -24,10 +26,12 @@ import org.openstreetmap.josm.plugins.PluginException;
 import org.openstreetmap.josm.plugins.PluginInformation;
 import org.openstreetmap.josm.plugins.kartaview.argument.UserAgent;
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.grab.josm.common.http.ContentType;
-import com.grab.josm.common.http.HttpConnector;
-import com.grab.josm.common.http.HttpConnectorException;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.grab.josm.common.entity.Status;
+import com.grab.josm.common.http.HttpUtil;
 import javax.swing.JOptionPane;
 
 
@@ -43,6 +47,26 @@ public abstract class BaseService {
     private static final String PLUGIN_VERSION = "Plugin-Version";
     private static final ClientLogger logger = new ClientLogger("error");
     private static final String SPACE = " ";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final String STATUS = "status";
+    private static final String TOTAL_FILTERED_ITEMS = "totalFilteredItems";
+    private static final String CURRENT_PAGE_ITEMS = "currentPageItems";
+    private static final Type INTEGER_LIST_TYPE = new TypeToken<List<Integer>>() {}.getType();
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final String PATH_START = "/?#";
+
+    /** the concurrency limiters of the servers, identified by host and port */
+    private static final Map<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    /** the priority of the requests executed by the current thread */
+    private static final ThreadLocal<RequestPriority> PRIORITY = ThreadLocal.withInitial(() -> RequestPriority.NORMAL);
+
+    /** cancels the requests executed by the current thread; null if the requests cannot be cancelled */
+    private static final ThreadLocal<RequestCancellation> CANCELLATION = new ThreadLocal<>();
+
+    /** the request headers, shared by all the services */
+    private static Map<String, String> headers;
 
     private final Gson gson;
 
@@ -53,7 +77,84 @@ public abstract class BaseService {
     protected abstract Gson createGson();
 
     /**
-     * Executes a HTTP POST method and reads the service response. The response is transformed to the specified type.
+     * Executes the given request with the given priority. If a server is overloaded, the service requests executed
+     * by the current thread are queued with this priority.
+     *
+     * @param <T> represents the type of the request result
+     * @param priority a {@code RequestPriority}
+     * @param request executes one or more service requests
+     * @return the request result
+     * @throws ServiceException if the request failed
+     */
+    public static <T> T executeWithPriority(final RequestPriority priority, final ServiceRequest<T> request)
+            throws ServiceException {
+        final RequestPriority previousPriority = PRIORITY.get();
+        PRIORITY.set(priority);
+        final T result;
+        try {
+            result = request.execute();
+        } finally {
+            PRIORITY.set(previousPriority);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the priority of the requests executed by the current thread. Should be used for executing the requests
+     * of a task that are sent from other threads with the same priority.
+     *
+     * @return a {@code RequestPriority}
+     */
+    public static RequestPriority currentPriority() {
+        return PRIORITY.get();
+    }
+
+    /**
+     * Executes the given request such that it can be cancelled: cancelling it aborts the connections opened by the
+     * current thread.
+     *
+     * @param <T> represents the type of the request result
+     * @param cancellation cancels the request
+     * @param request executes one or more service requests
+     * @return the request result
+     * @throws ServiceException if the request failed or it was cancelled
+     */
+    public static <T> T executeCancellable(final RequestCancellation cancellation, final ServiceRequest<T> request)
+            throws ServiceException {
+        final RequestCancellation previousCancellation = CANCELLATION.get();
+        CANCELLATION.set(cancellation);
+        final T result;
+        try {
+            result = request.execute();
+        } finally {
+            CANCELLATION.set(previousCancellation);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cancellation of the requests executed by the current thread.
+     *
+     * @return a {@code RequestCancellation}; null if the requests cannot be cancelled
+     */
+    protected static RequestCancellation currentCancellation() {
+        return CANCELLATION.get();
+    }
+
+    /**
+     * Verifies if the requests executed by the current thread were cancelled. The failures of the cancelled requests
+     * should not be reported to the user.
+     *
+     * @return true if the requests were cancelled
+     */
+    public static boolean isCancelled() {
+        final RequestCancellation cancellation = CANCELLATION.get();
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    /**
+     * Executes a HTTP POST method and reads the service response. The response is parsed to the specified type while
+     * it is read from the connection.
      *
      * @param <T> represents the type the objects that will be returned by the POST method
      * @param url represents the service URL
@@ -65,66 +166,226 @@ public abstract class BaseService {
     protected <T> T executePost(final String url, final Map<String, String> arguments, final Type responseType,
             final ClientLogger serviceLogger, final String componentName)
             throws ServiceException {
-        final String response;
-        try {
-            final HttpConnector connector = new HttpConnector(url, getHeaders());
-            final Instant startTime = Instant.now();
-            response = connector.post(arguments, ContentType.X_WWW_FORM_URLENCODED);
-            final Instant endTime = Instant.now();
-            serviceLogger
-                    .log(componentName + SPACE + url + " with arguments: " + arguments + " responded in " + Duration
-                            .between(startTime, endTime).toMillis() + "ms", null);
-        } catch (final HttpConnectorException e) {
-            logger.log("Error calling " + url, e);
-            throw new ServiceException(e);
-        }
-        return parseResponse(response, responseType);
+        final String content = arguments != null ? HttpUtil.utf8Encode(arguments) : null;
+        return execute(url, getHeaders(), content, FORM_CONTENT_TYPE, reader -> gson.fromJson(reader, responseType),
+                serviceLogger, componentName, componentName + SPACE + url + " with arguments: " + arguments);
     }
 
     protected <T> T executePost(final String url, final String content, final Class<T> responseType,
             final ClientLogger serviceLogger, final String componentName)
             throws ServiceException {
-        String response;
+        return execute(url, null, content, JSON_CONTENT_TYPE, reader -> gson.fromJson(reader, responseType),
+                serviceLogger, componentName, componentName + SPACE + url + " with content: " + content);
+    }
+
+    protected <T> T executeGet(final String url, final Class<T> responseType, final ClientLogger serviceLogger,
+            final String componentName) throws ServiceException {
+        return execute(url, getHeaders(), null, null, reader -> gson.fromJson(reader, responseType), serviceLogger,
+                componentName, componentName + SPACE + url);
+    }
+
+    /**
+     * Executes a HTTP POST method that returns a list response. The current page items are collected into the
+     * returned response.
+     *
+     * @param <T> represents the type of the current page items
+     * @param url represents the service URL
+     * @param arguments represents the request's body
+     * @param itemType represents the type of the current page items
+     * @return a {@code ListResponse} object
+     * @throws ServiceException if the operation failed
+     */
+    protected <T> ListResponse<T> executeListPost(final String url, final Map<String, String> arguments,
+            final Type itemType, final ClientLogger serviceLogger, final String componentName)
+            throws ServiceException {
+        final String content = arguments != null ? HttpUtil.utf8Encode(arguments) : null;
+        return execute(url, getHeaders(), content, FORM_CONTENT_TYPE, reader -> readListResponse(reader, itemType),
+                serviceLogger, componentName, componentName + SPACE + url + " with arguments: " + arguments);
+    }
+
+    /**
+     * Executes a HTTP GET method that returns binary content, for instance an image.
+     *
+     * @param url represents the service URL
+     * @return the response body
+     * @throws ServiceException if the operation failed
+     */
+    protected byte[] executeGetBytes(final String url, final ClientLogger serviceLogger, final String componentName)
+            throws ServiceException {
+        final byte[] result;
+        final ConcurrencyLimiter limiter = acquireLimiter(url);
+        final Instant startTime = Instant.now();
+        final long sendTime = System.nanoTime();
+        HttpStreamConnector connector = null;
         try {
-            final Instant startTime = Instant.now();
-            response = new HttpConnector(url).post(content, ContentType.JSON);
-            final Instant endTime = Instant.now();
-            serviceLogger.log(componentName + SPACE + url + " with content: " + content + " responded in " + Duration
-                    .between(startTime, endTime).toMillis() + "ms", null);
-        } catch (final HttpConnectorException e) {
+            connector = new HttpStreamConnector(url, getHeaders());
+            register(connector);
+            result = connector.getBytes();
+        } catch (final IOException e) {
             logger.log("Error calling " + url, e);
             throw new ServiceException(e);
+        } finally {
+            release(limiter, componentName, sendTime, connector);
         }
-        return parseResponse(response, responseType);
+        final Instant endTime = Instant.now();
+        serviceLogger.log(componentName + SPACE + url + " responded in " + Duration.between(startTime, endTime)
+                .toMillis() + "ms", null);
+        return result;
     }
 
-    protected <T> T executeGet(final String url, final Class<T> responseType, final ClientLogger serviceLogger,
-            final String componentName) throws ServiceException {
-        String response;
+    /**
+     * Executes a HTTP request and parses the response body directly from the connection.
+     *
+     * @param contentType the request content type; if null a GET method is executed, otherwise a POST
+     * @param componentName identifies the operation, the server latency is tracked per operation
+     */
+    private <T> T execute(final String url, final Map<String, String> headers, final String content,
+            final String contentType, final ResponseParser<T> parser, final ClientLogger serviceLogger,
+            final String componentName, final String requestDescription) throws ServiceException {
+        T result = null;
+        final ConcurrencyLimiter limiter = acquireLimiter(url);
+        final Instant startTime = Instant.now();
+        final long sendTime = System.nanoTime();
+        HttpStreamConnector connector = null;
         try {
-            final Instant startTime = Instant.now();
-            response = new HttpConnector(url, getHeaders()).get();
-            final Instant endTime = Instant.now();
-            serviceLogger.log(componentName + SPACE + url + " responded in " + Duration.between(startTime, endTime)
-                    .toMillis() + "ms", null);
-        } catch (final HttpConnectorException e) {
+            connector = new HttpStreamConnector(url, headers);
+            register(connector);
+            final Reader body = contentType != null ? connector.post(content, contentType) : connector.get();
+            if (body != null) {
+                try (JsonReader reader = new JsonReader(body)) {
+                    // error responses are extended with an unquoted response code, same as in HttpConnector
+                    reader.setLenient(true);
+                    if (hasContent(reader)) {
+                        result = parser.parse(reader);
+                    }
+                }
+            }
+        } catch (final IOException e) {
             logger.log("Error calling " + url, e);
             throw new ServiceException(e);
+        } catch (final JsonParseException e) {
+            logger.log("Error parsing json for " + url, e);
+            throw new ServiceException(e);
+        } finally {
+            release(limiter, componentName, sendTime, connector);
         }
-        return parseResponse(response, responseType);
+        final Instant endTime = Instant.now();
+        serviceLogger.log(requestDescription + " responded in " + Duration.between(startTime, endTime).toMillis()
+                + "ms", null);
+        return result;
     }
 
-    private <T> T parseResponse(final String response, final Type responseType) throws ServiceException {
-        T root = null;
-        if (response != null) {
-            try {
-                root = gson.fromJson(response, responseType);
-            } catch (final JsonSyntaxException e) {
-                logger.log("Error parsing json for" + responseType.getTypeName(), e);
-                throw new ServiceException(e);
+    /**
+     * Waits until the server of the given URL accepts a new request, based on the priority of the current thread.
+     *
+     * @param url the request URL
+     * @return the {@code ConcurrencyLimiter} of the server
+     * @throws ServiceException if the thread was interrupted while waiting
+     */
+    private static ConcurrencyLimiter acquireLimiter(final String url) throws ServiceException {
+        final ConcurrencyLimiter limiter = LIMITERS.computeIfAbsent(endpoint(url), key -> new ConcurrencyLimiter());
+        try {
+            limiter.acquire(PRIORITY.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(e);
+        }
+        return limiter;
+    }
+
+    /**
+     * Registers the connection to the cancellation of the current thread.
+     *
+     * @param connector a {@code HttpStreamConnector}
+     * @throws IOException if the request was already cancelled
+     */
+    private static void register(final HttpStreamConnector connector) throws IOException {
+        final RequestCancellation cancellation = CANCELLATION.get();
+        if (cancellation != null && !cancellation.register(connector)) {
+            connector.abort();
+            throw new IOException("The request was cancelled");
+        }
+    }
+
+    private static void release(final ConcurrencyLimiter limiter, final String operation, final long startTime,
+            final HttpStreamConnector connector) {
+        if (connector != null) {
+            final RequestCancellation cancellation = CANCELLATION.get();
+            if (cancellation != null) {
+                cancellation.unregister(connector);
             }
+            connector.close();
+        }
+        limiter.release(operation, startTime, connector != null ? connector.getResponseLatency() : -1,
+                connector == null || connector.isOverloaded());
+    }
+
+    private static String endpoint(final String url) {
+        final int schemeEnd = url.indexOf(SCHEME_SEPARATOR);
+        final int start = schemeEnd >= 0 ? schemeEnd + SCHEME_SEPARATOR.length() : 0;
+        int end = start;
+        while (end < url.length() && PATH_START.indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return url.substring(start, end);
+    }
+
+    private static boolean hasContent(final JsonReader reader) throws IOException {
+        boolean result = true;
+        try {
+            reader.peek();
+        } catch (final EOFException e) {
+            // an empty body is handled as an empty response, same as Gson does
+            result = false;
+        }
+        return result;
+    }
+
+    private <T> ListResponse<T> readListResponse(final JsonReader reader, final Type itemType) throws IOException {
+        ListResponse<T> result = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            Status status = null;
+            List<Integer> totalFilteredItems = null;
+            final List<T> items = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case STATUS:
+                        status = gson.fromJson(reader, Status.class);
+                        break;
+                    case TOTAL_FILTERED_ITEMS:
+                        totalFilteredItems = gson.fromJson(reader, INTEGER_LIST_TYPE);
+                        break;
+                    case CURRENT_PAGE_ITEMS:
+                        readItems(reader, itemType, items);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            result = new ListResponse<>(status, totalFilteredItems, items);
+        }
+        return result;
+    }
+
+    private <T> void readItems(final JsonReader reader, final Type itemType, final List<T> items)
+            throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final T item = gson.fromJson(reader, itemType);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+            reader.endArray();
         }
-        return root;
     }
 
     /**
@@ -140,37 +401,27 @@ public abstract class BaseService {
     }
 
     /**
-     * Read the results from the given list of {@code Future}s.
+     * Returns the headers sent with the service requests. The headers do not change while the plugin is running, they
+     * are computed only once.
      *
-     * @param <T> represents the type the objects that will be read
-     * @param futures a list of {@code Future}s containing the result of parallel executed threads
-     * @return a set of objects of the {@code T}
-     * @throws ServiceException if the thread execution failed or if the process was interrupted.
+     * @return an unmodifiable map of header names and values
      */
-    protected <T> Set<T> readResult(final List<Future<ListResponse<T>>> futures) throws ServiceException {
-        final Set<T> result = new HashSet<>();
-        for (final Future<ListResponse<T>> future : futures) {
-            try {
-                result.addAll(future.get().getCurrentPageItems());
-            } catch (InterruptedException | ExecutionException e) {
-                logger.log("Error reading result (readResult).", e);
-                throw new ServiceException(e);
-            }
-        }
-        return result;
-    }
-
     protected Map<String, String> getHeaders() {
-        final Map<String, String> headers = new HashMap<>();
-        headers.put(USER_AGENT, new UserAgent().toString());
-        final String version = this.getPluginVersion();
-        if (version != null && !version.isEmpty()) {
-            headers.put(PLUGIN_VERSION, version);
+        synchronized (BaseService.class) {
+            if (headers == null) {
+                final Map<String, String> requestHeaders = new HashMap<>();
+                requestHeaders.put(USER_AGENT, new UserAgent().toString());
+                final String version = getPluginVersion();
+                if (version != null && !version.isEmpty()) {
+                    requestHeaders.put(PLUGIN_VERSION, version);
+                }
+                headers = Collections.unmodifiableMap(requestHeaders);
+            }
         }
         return headers;
     }
 
-    private String getPluginVersion() {
+    private static String getPluginVersion() {
         PluginInformation pluginInfo = null;
         try {
             pluginInfo = PluginInformation.findPlugin(GuiConfig.getInstance().getPluginShortName());
@@ -194,4 +445,16 @@ public abstract class BaseService {
     protected void logResponseSize(final ClientLogger logger, final String componentName, final int size) {
         logger.log(componentName + " returned:  " + size + " elements.", null);
     }
+
+
+    /**
+     * Parses a response body from the given reader.
+     *
+     * @param <T> the type of the parsed response
+     */
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+
+        T parse(JsonReader reader) throws IOException;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+
+/**
+ * Limits the number of concurrent requests sent to a server. The limit is adapted to the server responses in an
+ * additive increase/multiplicative decrease manner: it grows slowly while the requests succeed without delay, it is
+ * reduced a little when the latency grows compared to the lowest observed latency, and it is halved when the request
+ * fails or the server reports that it is overloaded.
+ * <p>
+ * The latency is the time until the server sent the response headers, and the lowest latency is kept per operation,
+ * since the endpoints of a server have different response times. The limit is decreased at most once per round trip:
+ * the requests that were sent before the previous decrease do not reflect it, so they do not decrease it again.
+ * <p>
+ * The requests exceeding the limit wait in a queue, ordered by priority and then by arrival.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class ConcurrencyLimiter {
+
+    private static final double INITIAL_LIMIT = 8;
+    /** a single slow request should not block the other requests to the server */
+    private static final double MIN_LIMIT = 2;
+    private static final double MAX_LIMIT = 64;
+    private static final double FAILURE_DECREASE = 0.5;
+    private static final double LATENCY_DECREASE = 0.9;
+    /** a request is considered delayed if its latency exceeds the lowest latency with this ratio and delay */
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final long MIN_QUEUEING_DELAY = 200;
+    /** the lowest latency is increased slowly, such that it follows the changes of the server */
+    private static final double MIN_LATENCY_DRIFT = 1.01;
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing((final Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.order));
+    private double limit = INITIAL_LIMIT;
+    private int inFlight;
+    /** the lowest latency of each operation, in milliseconds */
+    private final Map<String, Double> minLatencies = new HashMap<>();
+    /** the time of the last decrease of the limit, in nanoseconds */
+    private long lastDecreaseTime = System.nanoTime();
+    private long nextOrder;
+
+
+    /**
+     * Waits until the request with the given priority can be sent.
+     *
+     * @param priority the priority of the request
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    synchronized void acquire(final RequestPriority priority) throws InterruptedException {
+        final Waiter waiter = new Waiter(priority, nextOrder++);
+        waiters.add(waiter);
+        try {
+            while (waiters.peek() != waiter || inFlight >= (int) limit) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            waiters.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+        waiters.poll();
+        inFlight++;
+        // the next waiter might also fit into the limit
+        notifyAll();
+    }
+
+    /**
+     * Releases a request sent after a successful {@code acquire}, and adapts the limit to the request outcome.
+     *
+     * @param operation identifies the called endpoint of the server
+     * @param startTime the time when the request was sent, as returned by {@code System.nanoTime}
+     * @param latency the time until the server responded, in milliseconds; negative if the server did not respond
+     * @param isOverloaded true if the request failed or the server reported that it is overloaded
+     */
+    synchronized void release(final String operation, final long startTime, final long latency,
+            final boolean isOverloaded) {
+        if (isOverloaded) {
+            decrease(startTime, FAILURE_DECREASE);
+        } else if (latency >= 0) {
+            final Double previousMinLatency = minLatencies.get(operation);
+            final double minLatency = previousMinLatency != null
+                    ? Math.min(latency, previousMinLatency * MIN_LATENCY_DRIFT) : latency;
+            minLatencies.put(operation, minLatency);
+            if (latency > minLatency * LATENCY_TOLERANCE && latency - minLatency > MIN_QUEUEING_DELAY) {
+                decrease(startTime, LATENCY_DECREASE);
+            } else if (inFlight >= limit / 2) {
+                // the limit is increased only if it is used, otherwise it would grow without being verified
+                limit = Math.min(MAX_LIMIT, limit + 1 / limit);
+            }
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    private void decrease(final long startTime, final double factor) {
+        if (startTime - lastDecreaseTime > 0) {
+            limit = Math.max(MIN_LIMIT, limit * factor);
+            lastDecreaseTime = System.nanoTime();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final RequestPriority priority;
+        private final long order;
+
+        private Waiter(final RequestPriority priority, final long order) {
+            this.priority = priority;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Executes latency sensitive requests with hedging. If a request did not respond within a given percentile of the
+ * recently observed latencies, a second identical request is sent and the first successful response is used. The
+ * number of hedged requests is limited by a budget, representing the maximum ratio of additional requests. Once a
+ * response arrives, the slower request is cancelled and its connection is aborted.
+ * <p>
+ * No request is hedged until enough latencies were observed. The elapsed time of a cancelled request is recorded as
+ * its latency, since its real latency is at least that long; otherwise only the fast responses would be sampled.
+ * <p>
+ * The requests of all the instances are executed by a shared pool with a bounded number of threads.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class HedgedRequests {
+
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final double MAX_HEDGE_TOKENS = 5;
+    private static final double PERCENT = 100.0;
+    private static final int MAX_THREADS = 8;
+    private static final long THREAD_KEEP_ALIVE = 60;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final double percentile;
+    private final double budget;
+    private final long minDelay;
+
+    /** the latencies, in milliseconds, of the most recent successful or cancelled requests */
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int nextLatencyIndex;
+
+    /** every request adds 'budget' tokens, every hedged request consumes one token */
+    private double hedgeTokens;
+
+
+    /**
+     * Builds a new object.
+     *
+     * @param percentile the latency percentile after which a request is hedged, for instance 95
+     * @param budget the maximum ratio of hedged requests, for instance 0.1 allows one hedged request in ten requests
+     * @param minDelay the minimum time, in milliseconds, after which a request is hedged
+     */
+    public HedgedRequests(final double percentile, final double budget, final long minDelay) {
+        this.percentile = percentile;
+        this.budget = budget;
+        this.minDelay = minDelay;
+    }
+
+    private static ExecutorService createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, THREAD_KEEP_ALIVE,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+
+    /**
+     * Executes the given request. The request is executed a second time if the first execution is slow and the hedging
+     * budget allows it.
+     *
+     * @param request the request to execute; it should not have side effects, since it might be executed twice
+     * @return the result of the first successful execution
+     * @throws ServiceException if all the executions of the request failed
+     */
+    public <V> V execute(final ServiceRequest<V> request) throws ServiceException {
+        final CompletionService<V> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        final long hedgeDelay = hedgeDelay();
+        final List<Attempt<V>> attempts = new ArrayList<>();
+        attempts.add(new Attempt<>(completionService, request));
+        V result = null;
+        try {
+            Future<V> completed = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (completed == null && acquireHedgeToken()) {
+                attempts.add(new Attempt<>(completionService, request));
+            }
+            int pending = attempts.size();
+            boolean isSuccessful = false;
+            ServiceException failure = null;
+            while (!isSuccessful && pending > 0) {
+                if (completed == null) {
+                    completed = completionService.take();
+                }
+                pending--;
+                try {
+                    result = completed.get();
+                    isSuccessful = true;
+                } catch (final ExecutionException e) {
+                    failure = e.getCause() instanceof ServiceException ? (ServiceException) e.getCause()
+                            : new ServiceException(e.getCause());
+                }
+                completed = null;
+            }
+            if (!isSuccessful) {
+                throw failure;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(e);
+        } finally {
+            // the response of the slower request is not needed anymore
+            attempts.forEach(Attempt::cancel);
+        }
+        return result;
+    }
+
+    private synchronized void addLatency(final long latency) {
+        latencies[nextLatencyIndex] = latency;
+        nextLatencyIndex = (nextLatencyIndex + 1) % LATENCY_SAMPLES;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+    }
+
+    private synchronized long hedgeDelay() {
+        hedgeTokens = Math.min(hedgeTokens + budget, MAX_HEDGE_TOKENS);
+        long delay = Long.MAX_VALUE;
+        if (latencyCount >= MIN_LATENCY_SAMPLES) {
+            final long[] samples = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(samples);
+            final int index = (int) Math.ceil(percentile / PERCENT * latencyCount) - 1;
+            delay = Math.max(samples[Math.max(0, Math.min(index, latencyCount - 1))], minDelay);
+        }
+        return delay;
+    }
+
+    private synchronized boolean acquireHedgeToken() {
+        final boolean result = hedgeTokens >= 1;
+        if (result) {
+            hedgeTokens--;
+        }
+        return result;
+    }
+
+
+    /**
+     * One execution of a hedged request.
+     */
+    private final class Attempt<V> {
+
+        private final ServiceRequest<V> request;
+        private final RequestCancellation cancellation = new RequestCancellation();
+        private final long startTime = System.nanoTime();
+        /** true if the execution ended or it was cancelled; the latency is recorded at most once */
+        private final AtomicBoolean isFinished = new AtomicBoolean();
+        private final Future<V> future;
+
+        private Attempt(final CompletionService<V> completionService, final ServiceRequest<V> request) {
+            this.request = request;
+            future = completionService.submit(this::execute);
+        }
+
+        private V execute() throws ServiceException {
+            final V result;
+            try {
+                result = BaseService.executeCancellable(cancellation, request);
+            } catch (final ServiceException e) {
+                isFinished.set(true);
+                throw e;
+            }
+            if (isFinished.compareAndSet(false, true)) {
+                addLatency(elapsedTime());
+            }
+            return result;
+        }
+
+        private void cancel() {
+            if (isFinished.compareAndSet(false, true)) {
+                addLatency(elapsedTime());
+                cancellation.cancel();
+                future.cancel(true);
+            }
+        }
+
+        private long elapsedTime() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        }
+    }
+}
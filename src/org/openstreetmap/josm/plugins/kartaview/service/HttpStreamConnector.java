@@ -0,0 +1,260 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+
+/**
+ * Executes HTTP requests and exposes the response body as a character stream, such that the response can be parsed
+ * while it is read from the connection. The connection settings and the error response handling are the same as the
+ * ones of the {@code HttpConnector}.
+ * <p>
+ * Unlike the {@code HttpConnector}, the connector does not disconnect after the response was read. Closing the
+ * response stream returns the socket to the keep-alive cache of the JDK, which holds the idle connections per host;
+ * in this way the following requests to the Apollo service, to the KartaView API or to the image storage reuse the
+ * already opened TCP/TLS connections.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class HttpStreamConnector implements Closeable {
+
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String COMPRESSED_ENCODINGS = "gzip, deflate";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+    private static final int CONNECT_TIMEOUT = 10000;
+    /** a server that does not send data for this long is considered unavailable */
+    private static final int READ_TIMEOUT = 30000;
+    private static final int BUFFER_SIZE = 1024;
+    private static final String OBJECT_END = "}";
+    private static final String RESPONSE_CODE = ",responseCode:";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final HttpURLConnection connection;
+
+    /** the stream of a successful response; null if the response was not read */
+    private InputStream responseStream;
+
+    /** true if the service responded, false if the request failed before receiving the response */
+    private boolean isCompleted;
+
+    /** the HTTP response code; -1 if the service did not respond */
+    private int responseCode = -1;
+
+    /** true if the connection was aborted because the response is not needed anymore */
+    private volatile boolean isAborted;
+
+    /** the time when the request was created, in nanoseconds */
+    private final long startTime = System.nanoTime();
+
+    /** the time until the service sent the response headers, in milliseconds; -1 if the service did not respond */
+    private long responseLatency = -1;
+
+
+    /**
+     * Opens a new connection to the given URL.
+     *
+     * @param url the request URL
+     * @param headers the request headers; can be null
+     * @throws IOException if the connection could not be opened
+     */
+    HttpStreamConnector(final String url, final Map<String, String> headers) throws IOException {
+        connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setInstanceFollowRedirects(true);
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                connection.addRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+
+    /**
+     * Executes a HTTP GET method. The JSON response can be compressed by the service.
+     *
+     * @return a {@code Reader} over the response body; null if the service did not return a body
+     * @throws IOException if the request failed
+     */
+    Reader get() throws IOException {
+        connection.setRequestMethod(GET);
+        connection.setRequestProperty(ACCEPT_ENCODING, COMPRESSED_ENCODINGS);
+        return read();
+    }
+
+    /**
+     * Executes a HTTP GET method and reads the whole response body. Should be used for binary content, for instance
+     * images, which is not compressed.
+     *
+     * @return the response body
+     * @throws IOException if the request failed or if the service returned an error
+     */
+    byte[] getBytes() throws IOException {
+        connection.setRequestMethod(GET);
+        readResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            final InputStream errorStream = connection.getErrorStream();
+            if (errorStream != null) {
+                // the error body is read such that the connection can be reused
+                readContent(errorStream);
+            }
+            throw new IOException("Server returned HTTP response code: " + responseCode);
+        }
+        responseStream = connection.getInputStream();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(Math.max(connection.getContentLength(), 0));
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = responseStream.read(buffer)) != -1) {
+            content.write(buffer, 0, length);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Executes a HTTP POST method.
+     *
+     * @param content the request body; can be null
+     * @param contentType the value of the content type header
+     * @return a {@code Reader} over the response body; null if the service did not return a body
+     * @throws IOException if the request failed
+     */
+    Reader post(final String content, final String contentType) throws IOException {
+        connection.setRequestMethod(POST);
+        connection.setDoOutput(true);
+        connection.setRequestProperty(CONTENT_TYPE, contentType);
+        connection.setRequestProperty(ACCEPT_ENCODING, COMPRESSED_ENCODINGS);
+        if (content != null) {
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+                writer.write(content);
+            }
+        }
+        return read();
+    }
+
+    private Reader read() throws IOException {
+        readResponseCode();
+        Reader reader = null;
+        if (responseCode == HttpURLConnection.HTTP_OK || responseCode == HttpURLConnection.HTTP_CREATED
+                || responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            responseStream = decode(connection.getInputStream());
+            reader = new BufferedReader(new InputStreamReader(responseStream, StandardCharsets.UTF_8));
+        } else {
+            // error responses are small, the response code is added to them in the same way as HttpConnector does
+            final InputStream errorStream = connection.getErrorStream();
+            if (errorStream != null) {
+                final String content = readContent(decode(errorStream));
+                reader = new StringReader(content.replace(OBJECT_END, RESPONSE_CODE + responseCode + OBJECT_END));
+            }
+        }
+        return reader;
+    }
+
+    private void readResponseCode() throws IOException {
+        responseCode = connection.getResponseCode();
+        responseLatency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        isCompleted = true;
+    }
+
+    /**
+     * Returns the time until the service sent the response headers. Unlike the duration of the whole request, it does
+     * not depend on the size of the response or on the time spent parsing it.
+     *
+     * @return the latency in milliseconds; -1 if the service did not respond
+     */
+    long getResponseLatency() {
+        return responseLatency;
+    }
+
+    /**
+     * Verifies if the service did not respond, or reported that it is overloaded or that it failed. An aborted request
+     * does not tell anything about the service.
+     *
+     * @return true if there is no response, or the response code is 429 or a server error (5xx); false otherwise
+     */
+    boolean isOverloaded() {
+        return (!isCompleted && !isAborted) || responseCode == TOO_MANY_REQUESTS
+                || responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+
+    private InputStream decode(final InputStream stream) throws IOException {
+        final String encoding = connection.getContentEncoding();
+        InputStream result = stream;
+        // an empty body, for instance of a 204 response, has no compression header
+        if (connection.getContentLength() != 0) {
+            if (GZIP.equalsIgnoreCase(encoding)) {
+                result = new GZIPInputStream(stream);
+            } else if (DEFLATE.equalsIgnoreCase(encoding)) {
+                result = new InflaterInputStream(stream);
+            }
+        }
+        return result;
+    }
+
+    private static String readContent(final InputStream stream) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            final char[] buffer = new char[BUFFER_SIZE];
+            int length;
+            while ((length = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, length);
+            }
+        }
+        return content.toString();
+    }
+
+    /**
+     * Aborts the request; the thread that waits for the response fails with an {@code IOException}. Can be called from
+     * any thread.
+     */
+    void abort() {
+        isAborted = true;
+        connection.disconnect();
+    }
+
+    /**
+     * Releases the connection. If the service responded, the response stream is closed and the connection is kept
+     * alive for reuse; otherwise the connection is disconnected.
+     */
+    @Override
+    public void close() {
+        boolean isReleased = isCompleted;
+        if (responseStream != null) {
+            try {
+                responseStream.close();
+            } catch (final IOException e) {
+                isReleased = false;
+            }
+        }
+        if (!isReleased) {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+
+/**
+ * Coalesces the identical service requests and memoizes their results for a short time. If a request is executed
+ * for a key that has a request in progress, the caller waits for the result of that request instead of calling the
+ * service again; the successful results are reused until their time to live expires. Failed requests are not
+ * memoized. The expired results are not reused; they are removed from the memory at most once per time to live,
+ * when a request is made.
+ *
+ * @author beataj
+ * @version $Revision$
+ * @param <K> the type of the request key, for instance an identifier
+ * @param <V> the type of the request result
+ */
+public final class MemoizedRequests<K, V> {
+
+    private final long timeToLive;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /** the time after which the expired results are removed by the next request */
+    private final AtomicLong nextEvictionTime = new AtomicLong();
+
+
+    /**
+     * Builds a new object.
+     *
+     * @param timeToLive the time, in milliseconds, for which a result is reused
+     */
+    public MemoizedRequests(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+
+    /**
+     * Returns the result of the request identified by the given key. The request is executed only if there is no
+     * memoized result and no request in progress for the key.
+     *
+     * @param key the request key
+     * @param request executes the service request
+     * @return the request result
+     * @throws ServiceException if the request failed
+     */
+    public V get(final K key, final ServiceRequest<V> request) throws ServiceException {
+        final long now = System.currentTimeMillis();
+        evictExpired(now);
+        final Entry<V> newEntry = new Entry<>();
+        final Entry<V> entry = entries.compute(key,
+                (entryKey, existingEntry) -> existingEntry != null && !existingEntry.isExpired(now) ? existingEntry
+                        : newEntry);
+        final V result;
+        if (entry == newEntry) {
+            result = execute(key, entry, request);
+        } else {
+            result = entry.await();
+        }
+        return result;
+    }
+
+    private void evictExpired(final long now) {
+        final long evictionTime = nextEvictionTime.get();
+        if (now >= evictionTime && nextEvictionTime.compareAndSet(evictionTime, now + timeToLive)) {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    private V execute(final K key, final Entry<V> entry, final ServiceRequest<V> request) throws ServiceException {
+        final V result;
+        try {
+            result = request.execute();
+        } catch (final ServiceException | RuntimeException e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.expirationTime = System.currentTimeMillis() + timeToLive;
+        entry.future.complete(result);
+        return result;
+    }
+
+    /**
+     * Removes the result, or the request in progress, of the given key. A request that is in progress is not
+     * cancelled, but its result is not reused.
+     *
+     * @param key the request key
+     */
+    public void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the results that match the given predicate. The requests in progress are also removed, since their
+     * results are not known yet.
+     *
+     * @param predicate a {@code Predicate} applied on the memoized results
+     */
+    public void invalidateIf(final Predicate<V> predicate) {
+        entries.values().removeIf(entry -> !entry.future.isDone() || entry.future.isCompletedExceptionally()
+                || predicate.test(entry.future.getNow(null)));
+    }
+
+    /**
+     * Removes all the memoized results.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /** the time until the result is reused; the entries of the requests in progress do not expire */
+        private volatile long expirationTime = Long.MAX_VALUE;
+
+
+        private boolean isExpired(final long now) {
+            return now > expirationTime;
+        }
+
+        private V await() throws ServiceException {
+            final V result;
+            try {
+                result = future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException(e);
+            } catch (final ExecutionException e) {
+                throw e.getCause() instanceof ServiceException ? (ServiceException) e.getCause()
+                        : new ServiceException(e.getCause());
+            }
+            return result;
+        }
+    }
+}
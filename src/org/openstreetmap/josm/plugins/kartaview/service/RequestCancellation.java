@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Cancels the service requests executed by a task. The connections opened by the task are registered while they are
+ * in use; cancelling the task disconnects them, in this way a request blocked while reading the response fails at once
+ * instead of waiting for the server. The requests of a task are executed by {@code BaseService.executeCancellable}.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class RequestCancellation {
+
+    private final Set<HttpStreamConnector> connectors = new HashSet<>();
+    private boolean isCancelled;
+
+
+    /**
+     * Registers a connection opened by the task.
+     *
+     * @param connector a {@code HttpStreamConnector}
+     * @return false if the task was already cancelled, in this case the connection should not be used
+     */
+    synchronized boolean register(final HttpStreamConnector connector) {
+        if (!isCancelled) {
+            connectors.add(connector);
+        }
+        return !isCancelled;
+    }
+
+    synchronized void unregister(final HttpStreamConnector connector) {
+        connectors.remove(connector);
+    }
+
+    /**
+     * Cancels the task and aborts the connections that are in use.
+     */
+    public synchronized void cancel() {
+        isCancelled = true;
+        connectors.forEach(HttpStreamConnector::abort);
+        connectors.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return isCancelled;
+    }
+}
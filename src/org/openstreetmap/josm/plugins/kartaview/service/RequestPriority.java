@@ -0,0 +1,27 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+
+/**
+ * Defines the priorities of the service requests. If a service is overloaded, the requests with higher priority are
+ * sent first.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public enum RequestPriority {
+
+    /** the requests the user is waiting for, for instance the data of the selected photo */
+    HIGH,
+
+    /** the requests loading the map data */
+    NORMAL,
+
+    /** the requests loading data in advance, for instance the nearby photos */
+    LOW
+}
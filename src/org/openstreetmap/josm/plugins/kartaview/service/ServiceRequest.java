@@ -0,0 +1,27 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service;
+
+
+/**
+ * Executes a service request.
+ *
+ * @author beataj
+ * @version $Revision$
+ * @param <V> the type of the request result
+ */
+@FunctionalInterface
+public interface ServiceRequest<V> {
+
+    /**
+     * Executes the request.
+     *
+     * @return the request result
+     * @throws ServiceException if the request failed
+     */
+    V execute() throws ServiceException;
+}
@@ -10,6 +10,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.openstreetmap.josm.plugins.kartaview.entity.OcrValue;
 import org.openstreetmap.josm.plugins.kartaview.service.ClientLogger;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.ApolloTypeAdapterFactory;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.Request;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.Response;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.SearchClustersAreaFilter;
@@ -54,12 +55,24 @@ public class ApolloService extends BaseService {
 
 	@Override
 	public Gson createGson() {
+		final GsonBuilder builder = gsonBuilder();
+		builder.registerTypeAdapterFactory(new ApolloTypeAdapterFactory());
+		return builder.create();
+	}
+
+	/**
+	 * Creates a builder having the custom deserializers of the Apollo value objects. The entities are read by
+	 * reflection unless the streaming type adapters are registered.
+	 *
+	 * @return a {@code GsonBuilder}
+	 */
+	static GsonBuilder gsonBuilder() {
 		final GsonBuilder builder = new GsonBuilder();
 		builder.registerTypeAdapter(EditStatus.class, new EditStatusTypeAdapter());
 		builder.registerTypeAdapter(LatLon.class, new LatLonDeserializer());
 		builder.registerTypeAdapter(ClusterConfidenceLevel.class, new ClusterConfidenceLevelDeserializer());
 		builder.registerTypeAdapter(OcrValue.class, new OcrValueDeserializer());
-		return builder.create();
+		return builder;
 	}
 
 	public List<Detection> searchDetections(final SearchDetectionsAreaFilter searchFilter) throws ServiceException {
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.ConfidenceLevelFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionMode;
+import org.openstreetmap.josm.plugins.kartaview.entity.EditStatus;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmComparison;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+
+
+/**
+ * The criteria of a {@code DetectionFilter} in a form that can be matched against many detections and clusters: the
+ * edit statuses, modes and OSM comparisons are kept in enum sets, and the sign types and sign names in hash sets. A
+ * null criterion does not restrict the matched items.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class CompiledDetectionFilter {
+
+    private final Set<EditStatus> editStatuses;
+    private final Set<DetectionMode> modes;
+    private final Set<OsmComparison> osmComparisons;
+
+    /** the sign criteria; both null if the signs are not restricted */
+    private final Set<String> signTypes;
+    private final Set<String> signInternalNames;
+
+    private final double minConfidenceLevel;
+    private final double maxConfidenceLevel;
+    private final boolean isConfidenceRestricted;
+
+
+    CompiledDetectionFilter(final DetectionFilter filter) {
+        editStatuses = enumSet(filter.getEditStatuses(), EditStatus.class);
+        modes = enumSet(filter.getModes(), DetectionMode.class);
+        osmComparisons = enumSet(filter.getOsmComparisons(), OsmComparison.class);
+        if (filter.getSignTypes() != null || filter.getSpecificSigns() != null) {
+            signTypes = filter.getSignTypes() != null ? new HashSet<>(filter.getSignTypes()) : new HashSet<>();
+            signInternalNames = filter.getSignInternalNames() != null ? new HashSet<>(filter.getSignInternalNames())
+                    : new HashSet<>();
+        } else {
+            signTypes = null;
+            signInternalNames = null;
+        }
+        final ConfidenceLevelFilter confidenceLevelFilter = filter.getConfidenceLevelFilter();
+        isConfidenceRestricted = confidenceLevelFilter != null;
+        minConfidenceLevel = confidenceLevelFilter != null && confidenceLevelFilter.getMinConfidenceLevel() != null
+                ? confidenceLevelFilter.getMinConfidenceLevel() : Double.NEGATIVE_INFINITY;
+        maxConfidenceLevel = confidenceLevelFilter != null && confidenceLevelFilter.getMaxConfidenceLevel() != null
+                ? confidenceLevelFilter.getMaxConfidenceLevel() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the given values as an enum set.
+     *
+     * @return an {@code EnumSet}; null if the values do not restrict the matched items
+     */
+    private static <T extends Enum<T>> Set<T> enumSet(final List<T> values, final Class<T> type) {
+        Set<T> result = null;
+        if (values != null && !values.isEmpty()) {
+            result = EnumSet.noneOf(type);
+            for (final T value : values) {
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+
+    boolean matches(final Detection detection) {
+        return contains(editStatuses, detection.getEditStatus()) && contains(modes, detection.getMode())
+                && contains(osmComparisons, detection.getOsmComparison()) && matchesSign(detection.getSign());
+    }
+
+    boolean matches(final Cluster cluster) {
+        boolean result = contains(osmComparisons, cluster.getOsmComparison()) && matchesSign(cluster.getSign());
+        if (result && isConfidenceRestricted) {
+            final Double confidence =
+                    cluster.getConfidenceLevel() != null ? cluster.getConfidenceLevel().getOverallConfidence() : null;
+            result = confidence != null && confidence >= minConfidenceLevel && confidence <= maxConfidenceLevel;
+        }
+        return result;
+    }
+
+    private boolean matchesSign(final Sign sign) {
+        return signTypes == null || (sign != null
+                && (signTypes.contains(sign.getType()) || signInternalNames.contains(sign.getInternalName())));
+    }
+
+    private static <T> boolean contains(final Collection<T> values, final T value) {
+        return values == null || value == null || values.contains(value);
+    }
+}
@@ -12,7 +12,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.plugins.kartaview.entity.Author;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.ConfidenceLevelFilter;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
 import org.openstreetmap.josm.plugins.kartaview.entity.DetectionMode;
 import org.openstreetmap.josm.plugins.kartaview.entity.EditStatus;
 import org.openstreetmap.josm.plugins.kartaview.entity.OsmComparison;
@@ -40,6 +42,9 @@ public class DetectionFilter {
     private final Date date;
     private final Author author;
 
+    /** the criteria in matching form; built when the filter is first matched */
+    private transient CompiledDetectionFilter compiledFilter;
+
 
     public DetectionFilter(final List<OsmComparison> osmComparisons, final List<EditStatus> editStatuses,
             final List<String> signTypes, final List<Sign> specificSigns, final List<DetectionMode> modes,
@@ -97,8 +102,84 @@ public class DetectionFilter {
         return author;
     }
 
-    public boolean containsEditStatus(final EditStatus editStatus) {
-        return editStatuses != null && editStatuses.contains(editStatus);
+    /**
+     * Verifies if the detections and clusters matching this filter are a subset of the ones matching the given
+     * filter. The sign and region criteria have to be the same, while the edit statuses, modes, OSM comparisons and the
+     * confidence level range can be narrower; the data matching the narrower criteria can be selected with the
+     * {@code matches} methods.
+     *
+     * @param other the filter with which the data was loaded
+     * @return true if this filter is the same or narrower than the given one
+     */
+    public boolean isSubsetOf(final DetectionFilter other) {
+        return EntityUtil.bothNullOrEqual(signTypes, other.getSignTypes())
+                && EntityUtil.bothNullOrEqual(specificSigns, other.getSpecificSigns())
+                && EntityUtil.bothNullOrEqual(region, other.getRegion())
+                && isSubset(editStatuses, other.getEditStatuses()) && isSubset(modes, other.getModes())
+                && isSubset(osmComparisons, other.getOsmComparisons())
+                && isSubset(confidenceLevelFilter, other.getConfidenceLevelFilter());
+    }
+
+    /**
+     * Verifies if this filter selects the same clusters as the given filter.
+     *
+     * @param other a {@code DetectionFilter}
+     * @return true if the criteria applied to the clusters are the same
+     */
+    public boolean hasSameClusterCriteria(final DetectionFilter other) {
+        return EntityUtil.bothNullOrEqual(osmComparisons, other.getOsmComparisons())
+                && EntityUtil.bothNullOrEqual(confidenceLevelFilter, other.getConfidenceLevelFilter());
+    }
+
+    /**
+     * Verifies if the given detection matches the edit status, mode, OSM comparison and sign criteria of the filter.
+     * A null or empty criterion does not restrict the detections; the specific signs are matched by internal name.
+     *
+     * @param detection a {@code Detection}
+     * @return true if the detection matches the filter
+     */
+    public boolean matches(final Detection detection) {
+        return compiledFilter().matches(detection);
+    }
+
+    /**
+     * Verifies if the given cluster matches the OSM comparison, sign and confidence level criteria of the filter.
+     *
+     * @param cluster a {@code Cluster}
+     * @return true if the cluster matches the filter
+     */
+    public boolean matches(final Cluster cluster) {
+        return compiledFilter().matches(cluster);
+    }
+
+    /**
+     * Returns the criteria of the filter in matching form. The filter is immutable, so the criteria are built only
+     * once; a concurrent first call might build them twice, which is harmless.
+     */
+    private CompiledDetectionFilter compiledFilter() {
+        CompiledDetectionFilter result = compiledFilter;
+        if (result == null) {
+            result = new CompiledDetectionFilter(this);
+            compiledFilter = result;
+        }
+        return result;
+    }
+
+    /**
+     * Verifies if the given values are a subset of the other values. A null or empty list does not restrict the values.
+     */
+    private static <T> boolean isSubset(final List<T> values, final List<T> otherValues) {
+        return otherValues == null || otherValues.isEmpty()
+                || (values != null && !values.isEmpty() && otherValues.containsAll(values));
+    }
+
+    private static boolean isSubset(final ConfidenceLevelFilter range, final ConfidenceLevelFilter otherRange) {
+        final Double min = range != null ? range.getMinConfidenceLevel() : null;
+        final Double max = range != null ? range.getMaxConfidenceLevel() : null;
+        final Double otherMin = otherRange != null ? otherRange.getMinConfidenceLevel() : null;
+        final Double otherMax = otherRange != null ? otherRange.getMaxConfidenceLevel() : null;
+        return (otherMin == null || (min != null && min >= otherMin))
+                && (otherMax == null || (max != null && max <= otherMax));
     }
 
     @Override
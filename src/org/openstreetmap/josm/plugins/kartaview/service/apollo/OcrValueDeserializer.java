@@ -40,11 +40,11 @@ public class OcrValueDeserializer implements JsonDeserializer<OcrValue> {
             text = obj.get(TEXT).getAsString();
             if (obj.has(LANGUAGE)) {
                 final JsonObject languageObj = (JsonObject) obj.get(LANGUAGE);
-                language = languageObj.get(NAME).getAsString();
+                language = intern(languageObj.get(NAME).getAsString());
             }
             if (obj.has(CHARACTER_SET)) {
                 final JsonObject characterSetObj = (JsonObject) obj.get(CHARACTER_SET);
-                characterSet = characterSetObj.get(NAME).getAsString();
+                characterSet = intern(characterSetObj.get(NAME).getAsString());
             }
         } else {
             final JsonPrimitive obj = (JsonPrimitive) jsonElement;
@@ -54,4 +54,12 @@ public class OcrValueDeserializer implements JsonDeserializer<OcrValue> {
         return text != null || language != null || characterSet != null ? new OcrValue(text, language, characterSet) :
                 null;
     }
+
+    /**
+     * The OCR languages and character sets come from a small set of values that is repeated in many detections, for
+     * this reason they are shared. The OCR texts are free text, they are not shared.
+     */
+    private static String intern(final String value) {
+        return value != null ? value.intern() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionShape;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+
+/**
+ * Creates the streaming type adapters of the Apollo entities. The entities are read without reflection; they are
+ * written with the reflection based adapters, such that the request format does not change.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public class ApolloTypeAdapterFactory implements TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        final Class<? super T> rawType = type.getRawType();
+        TypeAdapter<?> adapter = null;
+        if (rawType == Detection.class) {
+            adapter = new DetectionTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Detection.class)));
+        } else if (rawType == Cluster.class) {
+            adapter = new ClusterTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Cluster.class)));
+        } else if (rawType == Sign.class) {
+            adapter = new SignTypeAdapter(gson.getDelegateAdapter(this, TypeToken.get(Sign.class)));
+        } else if (rawType == OsmElement.class) {
+            adapter = new OsmElementTypeAdapter(gson.getDelegateAdapter(this, TypeToken.get(OsmElement.class)));
+        } else if (rawType == DetectionShape.class) {
+            adapter = new DetectionShapeTypeAdapter(
+                    gson.getDelegateAdapter(this, TypeToken.get(DetectionShape.class)));
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+}
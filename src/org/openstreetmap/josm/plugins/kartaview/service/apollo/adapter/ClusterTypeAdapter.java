@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.CONFIDENCE_LEVEL;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.DETECTIONS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.DETECTION_IDS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.FACING;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.LANE_COUNT;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.LATEST_CHANGE_TIMESTAMP;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OCR_VALUE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OSM_COMPARISON;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OSM_ELEMENTS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.PHOTOS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.POINT;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.SIGN;
+import java.io.IOException;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
+import org.openstreetmap.josm.plugins.kartaview.entity.ClusterBuilder;
+import org.openstreetmap.josm.plugins.kartaview.entity.ClusterConfidenceLevel;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.OcrValue;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmComparison;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.ReaderUtil;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * Custom type adapter for the {@code Cluster} object. The cluster is created with the {@code ClusterBuilder}, in this
+ * way the photo detections of the cluster are also computed when the cluster is read.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class ClusterTypeAdapter extends TypeAdapter<Cluster> {
+
+    private final TypeAdapter<Cluster> delegate;
+    private final TypeAdapter<Sign> signAdapter;
+    private final TypeAdapter<OsmElement> osmElementAdapter;
+    private final TypeAdapter<Detection> detectionAdapter;
+    private final TypeAdapter<Photo> photoAdapter;
+    private final TypeAdapter<ClusterConfidenceLevel> confidenceLevelAdapter;
+    private final TypeAdapter<OcrValue> ocrValueAdapter;
+    private final TypeAdapter<Long> longAdapter;
+    private final TypeAdapter<LatLon> pointAdapter;
+
+
+    ClusterTypeAdapter(final Gson gson, final TypeAdapter<Cluster> delegate) {
+        this.delegate = delegate;
+        this.signAdapter = gson.getAdapter(Sign.class);
+        this.osmElementAdapter = gson.getAdapter(OsmElement.class);
+        this.detectionAdapter = gson.getAdapter(Detection.class);
+        this.photoAdapter = gson.getAdapter(Photo.class);
+        this.confidenceLevelAdapter = gson.getAdapter(ClusterConfidenceLevel.class);
+        this.ocrValueAdapter = gson.getAdapter(OcrValue.class);
+        this.longAdapter = gson.getAdapter(Long.class);
+        this.pointAdapter = gson.getAdapter(LatLon.class);
+    }
+
+
+    @Override
+    public Cluster read(final JsonReader reader) throws IOException {
+        Cluster cluster = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            final ClusterBuilder builder = new ClusterBuilder();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                readField(reader, builder);
+            }
+            reader.endObject();
+            cluster = builder.build();
+        }
+        return cluster;
+    }
+
+    private void readField(final JsonReader reader, final ClusterBuilder builder) throws IOException {
+        switch (reader.nextName()) {
+            case ID:
+                builder.id(ReaderUtil.readLong(reader));
+                break;
+            case LATEST_CHANGE_TIMESTAMP:
+                builder.latestChangeTimestamp(ReaderUtil.readLong(reader));
+                break;
+            case POINT:
+                builder.point(pointAdapter.read(reader));
+                break;
+            case FACING:
+                builder.facing(ReaderUtil.readDouble(reader));
+                break;
+            case SIGN:
+                builder.sign(signAdapter.read(reader));
+                break;
+            case CONFIDENCE_LEVEL:
+                builder.confidenceLevel(confidenceLevelAdapter.read(reader));
+                break;
+            case DETECTION_IDS:
+                builder.detectionIds(EntityReader.readList(reader, longAdapter));
+                break;
+            case OSM_COMPARISON:
+                builder.osmComparison(ReaderUtil.readEnum(reader, OsmComparison.class));
+                break;
+            case OSM_ELEMENTS:
+                builder.osmElements(EntityReader.readList(reader, osmElementAdapter));
+                break;
+            case DETECTIONS:
+                builder.detections(EntityReader.readList(reader, detectionAdapter));
+                break;
+            case PHOTOS:
+                builder.photos(EntityReader.readList(reader, photoAdapter));
+                break;
+            case OCR_VALUE:
+                builder.ocrValue(ocrValueAdapter.read(reader));
+                break;
+            case LANE_COUNT:
+                final Integer laneCount = ReaderUtil.readInt(reader);
+                builder.laneCount(laneCount != null ? laneCount.shortValue() : null);
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    @Override
+    public void write(final JsonWriter writer, final Cluster cluster) throws IOException {
+        delegate.write(writer, cluster);
+    }
+}
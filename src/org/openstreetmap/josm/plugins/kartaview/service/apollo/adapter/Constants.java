@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+
+/**
+ * Holds the Apollo object field names.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class Constants {
+
+    /* detection object fields */
+    static final String SEQUENCE_ID = "sequenceId";
+    static final String SEQUENCE_INDEX = "sequenceIndex";
+    static final String CREATION_TIMESTAMP = "creationTimestamp";
+    static final String LOCATION_ON_PHOTO = "locationOnPhoto";
+    static final String VALIDATION_STATUS = "validationStatus";
+    static final String EDIT_STATUS = "editStatus";
+    static final String MODE = "mode";
+    static final String AUTHOR = "author";
+    static final String DISTANCE = "distance";
+    static final String ORIENTATION = "orientation";
+    static final String SHAPE_ON_PHOTO = "shapeOnPhoto";
+    static final String TRACKING_ID = "trackingId";
+    static final String AUTOMATIC_OCR_VALUE = "automaticOcrValue";
+    static final String MANUAL_OCR_VALUE = "manualOcrValue";
+
+    /* cluster object fields */
+    static final String DETECTION_IDS = "detectionIds";
+    static final String DETECTIONS = "detections";
+    static final String PHOTOS = "photos";
+    static final String LANE_COUNT = "laneCount";
+
+    /* sign object fields */
+    static final String NAME = "name";
+    static final String INTERNAL_NAME = "internalName";
+    static final String ICON_NAME = "iconName";
+    static final String REGION = "region";
+    static final String TYPE = "type";
+
+    /* OSM element object fields */
+    static final String OSM_ID = "osmId";
+    static final String FROM_ID = "fromId";
+    static final String TO_ID = "toId";
+    static final String TAG = "tag";
+    static final String MEMBERS = "members";
+
+    /* detection shape object fields */
+    static final String EQUIRECTANGULAR_POLYGON = "equirectangularPolygon";
+
+    /* rectangle and pixel point object fields */
+    static final String X = "x";
+    static final String Y = "y";
+    static final String WIDTH = "width";
+    static final String HEIGHT = "height";
+
+    /* commonly used fields */
+    static final String ID = "id";
+    static final String LATEST_CHANGE_TIMESTAMP = "latestChangeTimestamp";
+    static final String POINT = "point";
+    static final String SIGN = "sign";
+    static final String OSM_COMPARISON = "osmComparison";
+    static final String OSM_ELEMENTS = "osmElements";
+    static final String FACING = "facing";
+    static final String CONFIDENCE_LEVEL = "confidenceLevel";
+    static final String OCR_VALUE = "ocrValue";
+
+    private Constants() {}
+}
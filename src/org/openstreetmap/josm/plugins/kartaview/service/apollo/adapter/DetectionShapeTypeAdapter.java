@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.EQUIRECTANGULAR_POLYGON;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionShape;
+import org.openstreetmap.josm.plugins.kartaview.entity.PixelPoint;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * Custom type adapter for the {@code DetectionShape} object. Only the equirectangular polygon is read, the plane and
+ * sphere polygons are not used by the plugin and they are skipped.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class DetectionShapeTypeAdapter extends TypeAdapter<DetectionShape> {
+
+    private final TypeAdapter<DetectionShape> delegate;
+
+
+    DetectionShapeTypeAdapter(final TypeAdapter<DetectionShape> delegate) {
+        this.delegate = delegate;
+    }
+
+
+    @Override
+    public DetectionShape read(final JsonReader reader) throws IOException {
+        DetectionShape shape = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            List<PixelPoint> equirectangularPolygon = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (EQUIRECTANGULAR_POLYGON.equals(reader.nextName())) {
+                    equirectangularPolygon = readPolygon(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            shape = new DetectionShape(null, equirectangularPolygon, null);
+        }
+        return shape;
+    }
+
+    private static List<PixelPoint> readPolygon(final JsonReader reader) throws IOException {
+        List<PixelPoint> polygon = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            polygon = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                polygon.add(EntityReader.readPixelPoint(reader));
+            }
+            reader.endArray();
+        }
+        return polygon;
+    }
+
+    @Override
+    public void write(final JsonWriter writer, final DetectionShape shape) throws IOException {
+        delegate.write(writer, shape);
+    }
+}
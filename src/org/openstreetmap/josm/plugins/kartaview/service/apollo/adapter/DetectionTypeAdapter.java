@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.AUTHOR;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.AUTOMATIC_OCR_VALUE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.CONFIDENCE_LEVEL;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.CREATION_TIMESTAMP;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.DISTANCE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.EDIT_STATUS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.FACING;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.LATEST_CHANGE_TIMESTAMP;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.LOCATION_ON_PHOTO;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.MANUAL_OCR_VALUE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.MODE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OCR_VALUE;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.ORIENTATION;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OSM_COMPARISON;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OSM_ELEMENTS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.POINT;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.SEQUENCE_ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.SEQUENCE_INDEX;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.SHAPE_ON_PHOTO;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.SIGN;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.TRACKING_ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.VALIDATION_STATUS;
+import java.io.IOException;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.plugins.kartaview.entity.Author;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionBuilder;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionConfidenceLevel;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionMode;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionShape;
+import org.openstreetmap.josm.plugins.kartaview.entity.EditStatus;
+import org.openstreetmap.josm.plugins.kartaview.entity.OcrValue;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmComparison;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.entity.ValidationStatus;
+import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.ReaderUtil;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * Custom type adapter for the {@code Detection} object. The fields that are not used by the plugin are skipped; the
+ * point and the rarely returned nested objects are read with the adapters registered to the {@code Gson} object, such
+ * that they are read in the same way as by the reflection based adapter.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class DetectionTypeAdapter extends TypeAdapter<Detection> {
+
+    private final TypeAdapter<Detection> delegate;
+    private final TypeAdapter<Sign> signAdapter;
+    private final TypeAdapter<OsmElement> osmElementAdapter;
+    private final TypeAdapter<DetectionShape> shapeAdapter;
+    private final TypeAdapter<EditStatus> editStatusAdapter;
+    private final TypeAdapter<Author> authorAdapter;
+    private final TypeAdapter<DetectionConfidenceLevel> confidenceLevelAdapter;
+    private final TypeAdapter<OcrValue> ocrValueAdapter;
+    private final TypeAdapter<LatLon> pointAdapter;
+
+
+    DetectionTypeAdapter(final Gson gson, final TypeAdapter<Detection> delegate) {
+        this.delegate = delegate;
+        this.signAdapter = gson.getAdapter(Sign.class);
+        this.osmElementAdapter = gson.getAdapter(OsmElement.class);
+        this.shapeAdapter = gson.getAdapter(DetectionShape.class);
+        this.editStatusAdapter = gson.getAdapter(EditStatus.class);
+        this.authorAdapter = gson.getAdapter(Author.class);
+        this.confidenceLevelAdapter = gson.getAdapter(DetectionConfidenceLevel.class);
+        this.ocrValueAdapter = gson.getAdapter(OcrValue.class);
+        this.pointAdapter = gson.getAdapter(LatLon.class);
+    }
+
+
+    @Override
+    public Detection read(final JsonReader reader) throws IOException {
+        Detection detection = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            final DetectionBuilder builder = new DetectionBuilder();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                readField(reader, builder);
+            }
+            reader.endObject();
+            detection = builder.build();
+        }
+        return detection;
+    }
+
+    private void readField(final JsonReader reader, final DetectionBuilder builder) throws IOException {
+        switch (reader.nextName()) {
+            case ID:
+                builder.id(ReaderUtil.readLong(reader));
+                break;
+            case SEQUENCE_ID:
+                builder.sequenceId(ReaderUtil.readLong(reader));
+                break;
+            case SEQUENCE_INDEX:
+                builder.sequenceIndex(ReaderUtil.readInt(reader));
+                break;
+            case CREATION_TIMESTAMP:
+                builder.creationTimestamp(ReaderUtil.readLong(reader));
+                break;
+            case LATEST_CHANGE_TIMESTAMP:
+                builder.latestChangeTimestamp(ReaderUtil.readLong(reader));
+                break;
+            case POINT:
+                builder.point(pointAdapter.read(reader));
+                break;
+            case SIGN:
+                builder.sign(signAdapter.read(reader));
+                break;
+            case LOCATION_ON_PHOTO:
+                builder.locationOnPhoto(EntityReader.readRectangle(reader));
+                break;
+            case VALIDATION_STATUS:
+                builder.validationStatus(ReaderUtil.readEnum(reader, ValidationStatus.class));
+                break;
+            case EDIT_STATUS:
+                builder.editStatus(editStatusAdapter.read(reader));
+                break;
+            case OSM_COMPARISON:
+                builder.osmComparison(ReaderUtil.readEnum(reader, OsmComparison.class));
+                break;
+            case OSM_ELEMENTS:
+                builder.osmElements(EntityReader.readList(reader, osmElementAdapter));
+                break;
+            case MODE:
+                builder.mode(ReaderUtil.readEnum(reader, DetectionMode.class));
+                break;
+            case AUTHOR:
+                builder.author(authorAdapter.read(reader));
+                break;
+            case FACING:
+                builder.facing(ReaderUtil.readDouble(reader));
+                break;
+            case DISTANCE:
+                builder.distance(ReaderUtil.readFloat(reader));
+                break;
+            case ORIENTATION:
+                builder.orientation(ReaderUtil.readFloat(reader));
+                break;
+            case CONFIDENCE_LEVEL:
+                builder.confidenceLevel(confidenceLevelAdapter.read(reader));
+                break;
+            case OCR_VALUE:
+                builder.ocrValue(ocrValueAdapter.read(reader));
+                break;
+            case SHAPE_ON_PHOTO:
+                builder.shapeOnPhoto(shapeAdapter.read(reader));
+                break;
+            case TRACKING_ID:
+                builder.trackingId(ReaderUtil.readString(reader));
+                break;
+            case AUTOMATIC_OCR_VALUE:
+                builder.automaticOcrValue(ReaderUtil.readString(reader));
+                break;
+            case MANUAL_OCR_VALUE:
+                builder.manualOcrValue(ReaderUtil.readString(reader));
+                break;
+            default:
+                // angleFromCenter and the fields added later to the service response are not used
+                reader.skipValue();
+                break;
+        }
+    }
+
+    @Override
+    public void write(final JsonWriter writer, final Detection detection) throws IOException {
+        // the update detection request has the same format as the reflection based serialization
+        delegate.write(writer, detection);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.HEIGHT;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.WIDTH;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.X;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.Y;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.openstreetmap.josm.plugins.kartaview.entity.PixelPoint;
+import org.openstreetmap.josm.plugins.kartaview.entity.Rectangle;
+import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.ReaderUtil;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+
+/**
+ * Utility class, reads the small value objects that are nested in the Apollo entities from {@code JsonReader}.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+final class EntityReader {
+
+    private EntityReader() {}
+
+    static Rectangle readRectangle(final JsonReader reader) throws IOException {
+        Rectangle rectangle = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            Double x = null;
+            Double y = null;
+            Double width = null;
+            Double height = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case X:
+                        x = ReaderUtil.readDouble(reader);
+                        break;
+                    case Y:
+                        y = ReaderUtil.readDouble(reader);
+                        break;
+                    case WIDTH:
+                        width = ReaderUtil.readDouble(reader);
+                        break;
+                    case HEIGHT:
+                        height = ReaderUtil.readDouble(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            rectangle = new Rectangle(x, y, width, height);
+        }
+        return rectangle;
+    }
+
+    static PixelPoint readPixelPoint(final JsonReader reader) throws IOException {
+        PixelPoint pixelPoint = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            double x = 0;
+            double y = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case X:
+                        x = reader.nextDouble();
+                        break;
+                    case Y:
+                        y = reader.nextDouble();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            pixelPoint = new PixelPoint(x, y);
+        }
+        return pixelPoint;
+    }
+
+    /**
+     * Reads a list of elements using the given adapter.
+     *
+     * @param reader a {@code JsonReader} object
+     * @param adapter the {@code TypeAdapter} of the list elements
+     * @return a list of elements; null if the list is null
+     * @throws IOException if the read operation failed
+     */
+    static <T> List<T> readList(final JsonReader reader, final TypeAdapter<T> adapter) throws IOException {
+        List<T> list = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            list = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(adapter.read(reader));
+            }
+            reader.endArray();
+        }
+        return list;
+    }
+}
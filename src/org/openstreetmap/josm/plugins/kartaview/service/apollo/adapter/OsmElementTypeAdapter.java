@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.FROM_ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.MEMBERS;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.OSM_ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.TAG;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.TO_ID;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.TYPE;
+import java.io.IOException;
+import java.util.List;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElement;
+import org.openstreetmap.josm.plugins.kartaview.entity.OsmElementType;
+import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.ReaderUtil;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * Custom type adapter for the {@code OsmElement} object. The relation members are read with the same adapter.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class OsmElementTypeAdapter extends TypeAdapter<OsmElement> {
+
+    private final TypeAdapter<OsmElement> delegate;
+
+
+    OsmElementTypeAdapter(final TypeAdapter<OsmElement> delegate) {
+        this.delegate = delegate;
+    }
+
+
+    @Override
+    public OsmElement read(final JsonReader reader) throws IOException {
+        OsmElement osmElement = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            Long osmId = null;
+            Long fromId = null;
+            Long toId = null;
+            OsmElementType type = null;
+            String tag = null;
+            List<OsmElement> members = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case OSM_ID:
+                        osmId = ReaderUtil.readLong(reader);
+                        break;
+                    case FROM_ID:
+                        fromId = ReaderUtil.readLong(reader);
+                        break;
+                    case TO_ID:
+                        toId = ReaderUtil.readLong(reader);
+                        break;
+                    case TYPE:
+                        type = ReaderUtil.readEnum(reader, OsmElementType.class);
+                        break;
+                    case TAG:
+                        // the tags are relation roles, only a few distinct values are used
+                        tag = ReaderUtil.readInternedString(reader);
+                        break;
+                    case MEMBERS:
+                        members = EntityReader.readList(reader, this);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            osmElement = new OsmElement(osmId, type, members, fromId, toId, tag);
+        }
+        return osmElement;
+    }
+
+    @Override
+    public void write(final JsonWriter writer, final OsmElement osmElement) throws IOException {
+        delegate.write(writer, osmElement);
+    }
+}
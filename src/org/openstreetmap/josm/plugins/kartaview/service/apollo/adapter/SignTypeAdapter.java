@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
+
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.ICON_NAME;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.INTERNAL_NAME;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.NAME;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.REGION;
+import static org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.Constants.TYPE;
+import java.io.IOException;
+import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.entity.SignCatalog;
+import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.ReaderUtil;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+
+/**
+ * Custom type adapter for the {@code Sign} object. The read signs are resolved against the {@code SignCatalog}, such
+ * that the detections and clusters of the same sign share the sign object of the catalog.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+class SignTypeAdapter extends TypeAdapter<Sign> {
+
+    private final TypeAdapter<Sign> delegate;
+
+
+    SignTypeAdapter(final TypeAdapter<Sign> delegate) {
+        this.delegate = delegate;
+    }
+
+
+    @Override
+    public Sign read(final JsonReader reader) throws IOException {
+        Sign sign = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            String name = null;
+            String internalName = null;
+            String iconName = null;
+            String region = null;
+            String type = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case NAME:
+                        name = ReaderUtil.readString(reader);
+                        break;
+                    case INTERNAL_NAME:
+                        internalName = ReaderUtil.readString(reader);
+                        break;
+                    case ICON_NAME:
+                        iconName = ReaderUtil.readString(reader);
+                        break;
+                    case REGION:
+                        region = ReaderUtil.readString(reader);
+                        break;
+                    case TYPE:
+                        type = ReaderUtil.readString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            sign = SignCatalog.getInstance().resolve(new Sign(name, internalName, iconName, region, type));
+        }
+        return sign;
+    }
+
+    @Override
+    public void write(final JsonWriter writer, final Sign sign) throws IOException {
+        delegate.write(writer, sign);
+    }
+}
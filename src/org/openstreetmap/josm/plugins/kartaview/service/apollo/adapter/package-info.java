@@ -0,0 +1,4 @@
+/**
+ * Holds the streaming Gson type adapters of the Apollo service entities.
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter;
@@ -6,19 +6,20 @@
  */
 package org.openstreetmap.josm.plugins.kartaview.service.photo;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.openstreetmap.josm.plugins.kartaview.service.ClientLogger;
 import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.PhotoTypeAdapter;
 import org.openstreetmap.josm.plugins.kartaview.service.photo.adapter.SegmentTypeAdapter;
@@ -31,13 +32,12 @@ import org.openstreetmap.josm.plugins.kartaview.entity.PhotoDataSet;
 import org.openstreetmap.josm.plugins.kartaview.entity.Segment;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sequence;
 import org.openstreetmap.josm.plugins.kartaview.service.BaseService;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestCancellation;
+import org.openstreetmap.josm.plugins.kartaview.service.RequestPriority;
 import org.openstreetmap.josm.plugins.kartaview.service.ServiceException;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.grab.josm.common.argument.BoundingBox;
-import com.grab.josm.common.http.HttpConnector;
-import com.grab.josm.common.http.HttpConnectorException;
 
 
 /**
@@ -75,23 +75,61 @@ public class KartaViewService extends BaseService {
      */
     public PhotoDataSet listNearbyPhotos(final BoundingBox area, final Date date, final Long osmUserId,
             final Paging paging) throws ServiceException {
-        final Map<String, String> arguments = new HttpContentBuilder(area, date, osmUserId, paging).getContent();
-        final String url =
-                KartaViewServiceConfig.getInstance().getServiceUrl().concat(RequestConstants.LIST_NEARBY_PHOTOS);
-        final ListResponse<Photo> listPhotoResponse = executePost(url, arguments,
-                new TypeToken<ListResponse<Photo>>() {}.getType(), logger, RequestConstants.LIST_NEARBY_PHOTOS);
-        verifyResponseStatus(listPhotoResponse);
+        return listNearbyPhotos(area, date, osmUserId, paging, paging.getItemsPerPage(), null);
+    }
+
+    /**
+     * Retrieves KartaView photos from the given area based on the specified filters. Starting with the given page, the
+     * pages are loaded until the given number of photos is reached or there are no more photos; the pages following
+     * the first one are loaded in parallel.
+     *
+     * @param area a {@code BoundingBox} defines the searching area
+     * @param date a {@code Date} if not null, then the method returns the photos that were uploaded after the specified
+     * date
+     * @param osmUserId a {@code Long} specifies the user's OSM identifier; if not null return only the photos that were
+     * uploaded by the logged in user
+     * @param paging a {@code Paging} represents the first page to load and the page size
+     * @param maxItems the maximum number of photos to load; at least one page is loaded
+     * @param pageHandler receives the photos of every page as soon as the page was read; the pages are handed one by
+     * one, from the calling thread. Can be null.
+     * @return a {@code PhotoDataSet} containing the photos of the loaded pages
+     * @throws ServiceException if the operation fails
+     */
+    public PhotoDataSet listNearbyPhotos(final BoundingBox area, final Date date, final Long osmUserId,
+            final Paging paging, final int maxItems, final Consumer<List<Photo>> pageHandler)
+            throws ServiceException {
+        final ListResponse<Photo> listPhotoResponse = listNearbyPhotosPage(area, date, osmUserId, paging);
         int size = 0;
         PhotoDataSet dataSet = new PhotoDataSet();
         if (listPhotoResponse != null) {
             size = listPhotoResponse.getTotalItems();
-            dataSet = new PhotoDataSet(listPhotoResponse.getCurrentPageItems(), paging.getPage(),
-                    listPhotoResponse.getTotalItems());
+            final List<Photo> photos = new ArrayList<>();
+            addPage(photos, listPhotoResponse.getCurrentPageItems(), pageHandler);
+            final int itemsPerPage = paging.getItemsPerPage();
+            final int availablePages = (int) Math.ceil((double) size / itemsPerPage);
+            final int lastPage = Math.max(paging.getPage(),
+                    Math.min(availablePages, paging.getPage() + maxItems / itemsPerPage - 1));
+            loadPages(paging.getPage() + 1, lastPage, itemsPerPage,
+                    KartaViewServiceConfig.getInstance().getNearbyPhotosMaxParallelPages(),
+                    pagePaging -> listNearbyPhotosPage(area, date, osmUserId, pagePaging),
+                    page -> addPage(photos, page, pageHandler));
+            dataSet = new PhotoDataSet(photos, paging.getPage(), lastPage, size);
         }
         logResponseSize(logger, RequestConstants.LIST_NEARBY_PHOTOS, size);
         return dataSet;
     }
 
+    private ListResponse<Photo> listNearbyPhotosPage(final BoundingBox area, final Date date, final Long osmUserId,
+            final Paging paging) throws ServiceException {
+        final Map<String, String> arguments = new HttpContentBuilder(area, date, osmUserId, paging).getContent();
+        final String url =
+                KartaViewServiceConfig.getInstance().getServiceUrl().concat(RequestConstants.LIST_NEARBY_PHOTOS);
+        final ListResponse<Photo> listPhotoResponse =
+                executeListPost(url, arguments, Photo.class, logger, RequestConstants.LIST_NEARBY_PHOTOS);
+        verifyResponseStatus(listPhotoResponse);
+        return listPhotoResponse;
+    }
+
     /**
      * Retrieves the sequence associated with the given identifier.
      *
@@ -126,20 +164,7 @@ public class KartaViewService extends BaseService {
      */
     public byte[] retrievePhoto(final String photoName) throws ServiceException {
         final String url = KartaViewServiceConfig.getInstance().getServiceBaseUrl().concat(photoName);
-        byte[] image;
-        try {
-            final HttpConnector connector = new HttpConnector(url, getHeaders());
-            final Instant startTime = Instant.now();
-            image = connector.getBytes();
-            final Instant endTime = Instant.now();
-            logger.log(
-                    "retrievePhoto " + url + " responded in " + Duration.between(startTime, endTime).toMillis() + "ms",
-                    null);
-        } catch (final HttpConnectorException e) {
-            logger.log("Error calling " + url, e);
-            throw new ServiceException(e);
-        }
-        return image;
+        return executeGetBytes(url, logger, "retrievePhoto");
     }
 
     /**
@@ -149,44 +174,89 @@ public class KartaViewService extends BaseService {
      * @param osmUserId a {@code Long} specifies the user's OSM identifier; if not null return only the photos that were
      * uploaded by the logged in user
      * @param zoom represents the current zoom level
+     * @param maxParallelPages the maximum number of pages that are loaded in parallel; if 1, the pages are loaded from
+     * the calling thread
+     * @param pageHandler receives the segments of every page as soon as the page was read; the pages are handed one
+     * by one, from the calling thread. Can be null.
      * @return a list of {@code Segment}s
      * @throws ServiceException if the operation fails
      */
-    public List<Segment> listMatchedTracks(final BoundingBox area, final Long osmUserId, final int zoom)
-            throws ServiceException {
+    public List<Segment> listMatchedTracks(final BoundingBox area, final Long osmUserId, final int zoom,
+            final int maxParallelPages, final Consumer<List<Segment>> pageHandler) throws ServiceException {
+        final Set<Segment> segments = new LinkedHashSet<>();
         final ListResponse<Segment> listSegmentResponse =
                 listMatchedTacks(area, osmUserId, zoom, Paging.TRACKS_DEFAULT);
-        final Set<Segment> segments = new HashSet<>();
         if (listSegmentResponse != null) {
-            segments.addAll(listSegmentResponse.getCurrentPageItems());
-            if (listSegmentResponse.getTotalItems() > KartaViewServiceConfig.getInstance().getTracksMaxItems()) {
-                final int pages = listSegmentResponse.getTotalItems() > KartaViewServiceConfig.getInstance()
-                        .getTracksMaxItems()
-                                ? (listSegmentResponse.getTotalItems()
-                                        / KartaViewServiceConfig.getInstance().getTracksMaxItems()) + 1
-                                : SECOND_PAGE;
-                final ExecutorService executor = Executors.newFixedThreadPool(pages);
-                final List<Future<ListResponse<Segment>>> futures = new ArrayList<>();
-                for (int i = SECOND_PAGE; i <= pages; i++) {
-                    final Paging paging = new Paging(i, KartaViewServiceConfig.getInstance().getTracksMaxItems());
-                    final Callable<ListResponse<Segment>> callable =
-                            () -> listMatchedTacks(area, osmUserId, zoom, paging);
-                    futures.add(executor.submit(callable));
-                }
-                segments.addAll(readResult(futures));
-                executor.shutdown();
+            addPage(segments, listSegmentResponse.getCurrentPageItems(), pageHandler);
+            final int maxItems = KartaViewServiceConfig.getInstance().getTracksMaxItems();
+            if (listSegmentResponse.getTotalItems() > maxItems) {
+                final int pages = listSegmentResponse.getTotalItems() / maxItems + 1;
+                loadPages(SECOND_PAGE, pages, maxItems, maxParallelPages,
+                        paging -> listMatchedTacks(area, osmUserId, zoom, paging),
+                        page -> addPage(segments, page, pageHandler));
             }
         }
         return new ArrayList<>(segments);
     }
 
+    private static <T> void addPage(final Collection<T> items, final List<T> page,
+            final Consumer<List<T>> pageHandler) {
+        if (page != null) {
+            items.addAll(page);
+            if (pageHandler != null) {
+                pageHandler.accept(page);
+            }
+        }
+    }
+
+    /**
+     * Loads the pages from the given range by a bounded number of threads. The pages are handed to the page consumer
+     * in the order they are read, from the calling thread. The page requests have the priority of the calling thread,
+     * and cancelling the requests of the calling thread also cancels them. If at most one page can be loaded at a
+     * time, the pages are loaded from the calling thread.
+     */
+    private static <T> void loadPages(final int firstPage, final int lastPage, final int itemsPerPage,
+            final int maxParallelPages, final PageRequest<T> pageRequest, final Consumer<List<T>> pageConsumer)
+            throws ServiceException {
+        if (maxParallelPages <= 1) {
+            for (int i = firstPage; i <= lastPage; i++) {
+                pageConsumer.accept(pageRequest.load(new Paging(i, itemsPerPage)).getCurrentPageItems());
+            }
+        } else if (firstPage <= lastPage) {
+            final ExecutorService executor =
+                    Executors.newFixedThreadPool(Math.max(1, Math.min(lastPage - firstPage + 1, maxParallelPages)));
+            final CompletionService<ListResponse<T>> completionService = new ExecutorCompletionService<>(executor);
+            final RequestCancellation cancellation = currentCancellation();
+            final RequestPriority priority = currentPriority();
+            for (int i = firstPage; i <= lastPage; i++) {
+                final Paging paging = new Paging(i, itemsPerPage);
+                completionService.submit(() -> executeWithPriority(priority,
+                        () -> executeCancellable(cancellation, () -> pageRequest.load(paging))));
+            }
+            try {
+                for (int i = firstPage; i <= lastPage; i++) {
+                    pageConsumer.accept(completionService.take().get().getCurrentPageItems());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException(e);
+            } catch (final ExecutionException e) {
+                throw e.getCause() instanceof ServiceException ? (ServiceException) e.getCause()
+                        : new ServiceException(e.getCause());
+            } finally {
+                // the remaining pages are not needed if a page failed
+                executor.shutdownNow();
+            }
+        }
+    }
+
     private ListResponse<Segment> listMatchedTacks(final BoundingBox area, final Long osmUserId, final int zoom,
             final Paging paging) throws ServiceException {
         final Map<String, String> arguments = new HttpContentBuilder(area, osmUserId, zoom, paging).getContent();
         final String url = KartaViewServiceConfig.getInstance().getServiceBaseUrl()
                 .concat(RequestConstants.LIST_MATCHED_TRACKS);
-        final ListResponse<Segment> listSegmentResponse = executePost(url, arguments,
-                new TypeToken<ListResponse<Segment>>() {}.getType(), logger, RequestConstants.LIST_MATCHED_TRACKS);
+        final ListResponse<Segment> listSegmentResponse = executeListPost(url, arguments, Segment.class, logger,
+                RequestConstants.LIST_MATCHED_TRACKS);
         verifyResponseStatus(listSegmentResponse);
         logResponseSize(logger, RequestConstants.LIST_MATCHED_TRACKS, listSegmentResponse.getTotalItems());
         return listSegmentResponse;
@@ -201,4 +271,14 @@ public class KartaViewService extends BaseService {
         verifyResponseStatus(result);
         return result != null && result.getOsv() != null ? result.getOsv().getPhotoObject() : null;
     }
+
+
+    /**
+     * Loads one page of a paginated list.
+     */
+    @FunctionalInterface
+    private interface PageRequest<T> {
+
+        ListResponse<T> load(Paging paging) throws ServiceException;
+    }
 }
\ No newline at end of file
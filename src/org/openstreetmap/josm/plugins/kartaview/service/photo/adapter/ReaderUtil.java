@@ -20,11 +20,11 @@ import com.google.gson.stream.JsonToken;
  * @author beataj
  * @version $Revision$
  */
-final class ReaderUtil {
+public final class ReaderUtil {
 
     private ReaderUtil() {}
 
-    static Double readDouble(final JsonReader reader) throws IOException {
+    public static Double readDouble(final JsonReader reader) throws IOException {
         Double value = null;
         if (reader.peek() == JsonToken.NULL) {
             reader.nextNull();
@@ -34,7 +34,7 @@ final class ReaderUtil {
         return value;
     }
 
-    static Long readLong(final JsonReader reader) throws IOException {
+    public static Long readLong(final JsonReader reader) throws IOException {
         Long value = null;
         if (reader.peek() == JsonToken.NULL) {
             reader.nextNull();
@@ -44,7 +44,7 @@ final class ReaderUtil {
         return value;
     }
 
-    static Integer readInt(final JsonReader reader) throws IOException {
+    public static Integer readInt(final JsonReader reader) throws IOException {
         Integer value = null;
         if (reader.peek() == JsonToken.NULL) {
             reader.nextNull();
@@ -54,7 +54,17 @@ final class ReaderUtil {
         return value;
     }
 
-    static String readString(final JsonReader reader) throws IOException {
+    public static Float readFloat(final JsonReader reader) throws IOException {
+        Float value = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            value = (float) reader.nextDouble();
+        }
+        return value;
+    }
+
+    public static String readString(final JsonReader reader) throws IOException {
         String value = null;
         if (reader.peek() == JsonToken.NULL) {
             reader.nextNull();
@@ -64,6 +74,42 @@ final class ReaderUtil {
         return value;
     }
 
+    /**
+     * Reads a string value that is repeated in many objects of the same response, for instance a relation role. The
+     * returned value is interned, such that the objects share the same string instance; use it only for values from a
+     * small set of known values, not for free text.
+     *
+     * @param reader a {@code JsonReader} object
+     * @return the interned value; null if the value is null
+     * @throws IOException if the read operation failed
+     */
+    public static String readInternedString(final JsonReader reader) throws IOException {
+        final String value = readString(reader);
+        return value != null ? value.intern() : null;
+    }
+
+    /**
+     * Reads an enum constant from its name.
+     *
+     * @param reader a {@code JsonReader} object
+     * @param enumType the type of the enum
+     * @return the enum constant having the read name; null if the value is null or it is not a known constant
+     * @throws IOException if the read operation failed
+     */
+    public static <E extends Enum<E>> E readEnum(final JsonReader reader, final Class<E> enumType)
+            throws IOException {
+        E value = null;
+        final String name = readString(reader);
+        if (name != null) {
+            try {
+                value = Enum.valueOf(enumType, name);
+            } catch (final IllegalArgumentException e) {
+                // unknown constants are read as null, same as the Gson enum adapter does
+            }
+        }
+        return value;
+    }
+
     /**
      * Reads a geometry that has the following format: [[lat1,lon1], [lat2,lon2],...[latn,lonn]].
      *
@@ -71,7 +117,7 @@ final class ReaderUtil {
      * @return a list of {@code LatLon} objects
      * @throws IOException if the read operation failed
      */
-    static List<LatLon> readGeometry(final JsonReader reader) throws IOException {
+    public static List<LatLon> readGeometry(final JsonReader reader) throws IOException {
         final List<LatLon> geometry = new ArrayList<>();
         if (reader.peek() == JsonToken.NULL) {
             reader.nextNull();
@@ -7,8 +7,11 @@
 package org.openstreetmap.josm.plugins.kartaview.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.ProjectionBounds;
@@ -71,12 +74,16 @@ public final class BoundingBoxUtil {
         } else {
             final List<Bounds> osmDataLayerBounds = editLayerDataBounds();
             if (osmDataLayerBounds != null && !osmDataLayerBounds.isEmpty()) {
+                final List<BoundingBox> areas = new ArrayList<>();
                 for (final Bounds osmBounds : osmDataLayerBounds) {
                     if (MainApplication.getMap().mapView.getRealBounds().intersects(osmBounds)) {
-                        result.add(new BoundingBox(osmBounds.getMax().lat(), osmBounds.getMin().lat(),
+                        areas.add(new BoundingBox(osmBounds.getMax().lat(), osmBounds.getMin().lat(),
                                 osmBounds.getMax().lon(), osmBounds.getMin().lon()));
                     }
                 }
+                // a layer built from many downloads has many overlapping bounds, each bound would be a new search
+                result.addAll(mergeAreas(areas,
+                        size(mapViewBounds()) * Config.getInstance().getDataBoundsRequestCost()));
             } else {
                 result.add(mapViewBounds());
             }
@@ -84,6 +91,67 @@ public final class BoundingBoxUtil {
         return result;
     }
 
+    /**
+     * Merges the given areas into a small set of areas that do not overlap. The areas that overlap are split, such that
+     * no part is searched twice; an area can be split into several parts, each of them needing one more request. Two
+     * areas are replaced by their bounding box if the part of the bounding box that is not covered by any of them is
+     * smaller than the cost of the requests saved by merging, including the parts that splitting would produce. The
+     * searches of the merged areas might return data from outside the given areas, which should be removed by the
+     * caller.
+     *
+     * @param areas a list of {@code BoundingBox}es
+     * @param requestCost the cost of a request, expressed as the size of an area; loading an uncovered area that is
+     * smaller than this is cheaper than sending one more request
+     * @return a list of {@code BoundingBox}es that do not overlap and cover the given areas
+     */
+    public static List<BoundingBox> mergeAreas(final List<BoundingBox> areas, final double requestCost) {
+        final List<BoundingBox> mergedAreas = new ArrayList<>(areas);
+        boolean isMerged = true;
+        while (isMerged) {
+            isMerged = false;
+            for (int i = 0; i < mergedAreas.size() && !isMerged; i++) {
+                for (int j = i + 1; j < mergedAreas.size() && !isMerged; j++) {
+                    final BoundingBox union = union(mergedAreas.get(i), mergedAreas.get(j));
+                    // kept separately, the second area is searched in the parts not covered by the first one
+                    final int savedRequests = difference(mergedAreas.get(j), mergedAreas.get(i)).size();
+                    if (size(union) - coveredSize(mergedAreas.get(i), mergedAreas.get(j))
+                            <= requestCost * savedRequests) {
+                        mergedAreas.set(i, union);
+                        mergedAreas.remove(j);
+                        isMerged = true;
+                    }
+                }
+            }
+        }
+        final List<BoundingBox> result = new ArrayList<>();
+        for (int i = 0; i < mergedAreas.size(); i++) {
+            List<BoundingBox> parts = Collections.singletonList(mergedAreas.get(i));
+            for (int j = 0; j < i; j++) {
+                final BoundingBox coveredArea = mergedAreas.get(j);
+                parts = parts.stream().flatMap(part -> difference(part, coveredArea).stream())
+                        .collect(Collectors.toList());
+            }
+            result.addAll(parts);
+        }
+        return result;
+    }
+
+    private static BoundingBox union(final BoundingBox area, final BoundingBox otherArea) {
+        return new BoundingBox(Math.max(area.getNorth(), otherArea.getNorth()),
+                Math.min(area.getSouth(), otherArea.getSouth()), Math.max(area.getEast(), otherArea.getEast()),
+                Math.min(area.getWest(), otherArea.getWest()));
+    }
+
+    private static double coveredSize(final BoundingBox area, final BoundingBox otherArea) {
+        final double intersectionHeight = Math.min(area.getNorth(), otherArea.getNorth())
+                - Math.max(area.getSouth(), otherArea.getSouth());
+        final double intersectionWidth = Math.min(area.getEast(), otherArea.getEast())
+                - Math.max(area.getWest(), otherArea.getWest());
+        final double intersectionSize = intersectionHeight > 0 && intersectionWidth > 0
+                ? intersectionHeight * intersectionWidth : 0;
+        return size(area) + size(otherArea) - intersectionSize;
+    }
+
     /**
      * Returns a list of Bounds objects, representing the current active area. If no area is active, The whole map is
      * returned.
@@ -102,6 +170,80 @@ public final class BoundingBoxUtil {
         return result;
     }
 
+    /**
+     * Returns the parts of the given area that are not covered by the other area. After a pan there are at most two
+     * such parts: a strip above or below the covered area spanning the whole width, and a strip on its left or right
+     * side spanning only the height they have in common.
+     *
+     * @param area a {@code BoundingBox}
+     * @param coveredArea a {@code BoundingBox} that is already covered
+     * @return at most four {@code BoundingBox}es that do not overlap; empty if the area is completely covered
+     */
+    public static List<BoundingBox> difference(final BoundingBox area, final BoundingBox coveredArea) {
+        final List<BoundingBox> result = new ArrayList<>();
+        final double north = Math.min(area.getNorth(), coveredArea.getNorth());
+        final double south = Math.max(area.getSouth(), coveredArea.getSouth());
+        final double east = Math.min(area.getEast(), coveredArea.getEast());
+        final double west = Math.max(area.getWest(), coveredArea.getWest());
+        if (north <= south || east <= west) {
+            result.add(area);
+        } else {
+            if (area.getNorth() > north) {
+                result.add(new BoundingBox(area.getNorth(), north, area.getEast(), area.getWest()));
+            }
+            if (area.getSouth() < south) {
+                result.add(new BoundingBox(south, area.getSouth(), area.getEast(), area.getWest()));
+            }
+            if (area.getEast() > east) {
+                result.add(new BoundingBox(north, south, area.getEast(), east));
+            }
+            if (area.getWest() < west) {
+                result.add(new BoundingBox(north, south, west, area.getWest()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the given area, in square degrees. Should be used only for comparing areas that are close to
+     * each other.
+     *
+     * @param area a {@code BoundingBox}
+     * @return the area size
+     */
+    public static double size(final BoundingBox area) {
+        return (area.getNorth() - area.getSouth()) * (area.getEast() - area.getWest());
+    }
+
+    /**
+     * Extends the given area on each side with the given ratio of its height and width. The result is limited to the
+     * world bounds.
+     *
+     * @param area a {@code BoundingBox}
+     * @param margin the ratio of the area height and width that is added on each side
+     * @return a new {@code BoundingBox}
+     */
+    public static BoundingBox extend(final BoundingBox area, final double margin) {
+        final double latMargin = (area.getNorth() - area.getSouth()) * margin;
+        final double lonMargin = (area.getEast() - area.getWest()) * margin;
+        return new BoundingBox(Math.min(area.getNorth() + latMargin, WORLD_BOUNDS.getMaxLat()),
+                Math.max(area.getSouth() - latMargin, WORLD_BOUNDS.getMinLat()),
+                Math.min(area.getEast() + lonMargin, WORLD_BOUNDS.getMaxLon()),
+                Math.max(area.getWest() - lonMargin, WORLD_BOUNDS.getMinLon()));
+    }
+
+    /**
+     * Verifies if the given area contains the given point.
+     *
+     * @param area a {@code BoundingBox}
+     * @param point a {@code LatLon}
+     * @return true if the point is inside the area or on its border; false otherwise
+     */
+    public static boolean contains(final BoundingBox area, final LatLon point) {
+        return point != null && point.lat() <= area.getNorth() && point.lat() >= area.getSouth()
+                && point.lon() <= area.getEast() && point.lon() >= area.getWest();
+    }
+
     /**
      * The method returns the middle point of the visible part of the line represented by the given points inside the
      * mapview area.
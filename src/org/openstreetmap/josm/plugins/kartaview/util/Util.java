@@ -11,10 +11,14 @@ import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.openstreetmap.josm.plugins.kartaview.util.cnf.Config;
 import org.openstreetmap.josm.plugins.kartaview.util.pref.PreferenceManager;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.UserIdentityManager;
@@ -30,7 +34,6 @@ import org.openstreetmap.josm.plugins.kartaview.argument.SearchFilter;
 import org.openstreetmap.josm.plugins.kartaview.entity.Cluster;
 import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
 import org.openstreetmap.josm.plugins.kartaview.entity.Photo;
-import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
 import org.openstreetmap.josm.plugins.kartaview.service.apollo.DetectionFilter;
 
 
@@ -92,6 +95,59 @@ public final class Util {
         return result;
     }
 
+    /**
+     * Aggregates the photos that are visible in the given map view into screen-space grid cells. For each non-empty
+     * cell the first photo from the list is returned as the cell representative, together with the number of photos
+     * that fall into that cell. If the number of visible photos does not exceed the configured threshold, every
+     * visible photo is returned as its own representative. The same result is used for drawing and for hit-testing,
+     * in this way only the displayed photos can be selected.
+     *
+     * @param mapView the current {@code MapView}
+     * @param photos a list of {@code Photo}s
+     * @return a map of (representative {@code Photo}, number of aggregated photos) pairs, in drawing order
+     */
+    public static Map<Photo, Integer> declutterPhotos(final MapView mapView, final List<Photo> photos) {
+        final List<Bounds> dataSourceBounds =
+                displayedDataSourceBounds(PreferenceManager.getInstance().loadMapViewSettings());
+        return declutterPhotos(mapView, photos, latLon -> containsLatLon(mapView, dataSourceBounds, latLon));
+    }
+
+    /**
+     * Aggregates the photos into screen-space grid cells, see {@link #declutterPhotos(MapView, List)}. The visibility
+     * of the photos is verified with the given predicate.
+     *
+     * @param mapView the current {@code MapView}
+     * @param photos a list of {@code Photo}s
+     * @param isVisible verifies if a coordinate is displayed or not
+     * @return a map of (representative {@code Photo}, number of aggregated photos) pairs, in drawing order
+     */
+    public static Map<Photo, Integer> declutterPhotos(final MapView mapView, final List<Photo> photos,
+            final Predicate<LatLon> isVisible) {
+        final List<Photo> visiblePhotos =
+                photos.stream().filter(photo -> isVisible.test(photo.getPoint())).collect(Collectors.toList());
+        final Map<Photo, Integer> result = new LinkedHashMap<>();
+        if (visiblePhotos.size() <= Config.getInstance().getPhotoDeclutterThreshold()) {
+            for (final Photo photo : visiblePhotos) {
+                result.put(photo, 1);
+            }
+        } else {
+            final int cellSize = Config.getInstance().getPhotoDeclutterCellSize();
+            final Map<Long, Photo> cellRepresentatives = new HashMap<>();
+            for (final Photo photo : visiblePhotos) {
+                final Point point = mapView.getPoint(photo.getPoint());
+                final long cell = ((long) Math.floorDiv(point.x, cellSize) << Integer.SIZE)
+                        | (Math.floorDiv(point.y, cellSize) & 0xFFFFFFFFL);
+                final Photo representative = cellRepresentatives.putIfAbsent(cell, photo);
+                if (representative == null) {
+                    result.put(photo, 1);
+                } else {
+                    result.merge(representative, 1, Integer::sum);
+                }
+            }
+        }
+        return result;
+    }
+
     public static Detection nearbyDetection(final List<Detection> detections, final Point point) {
         final double maxDist = MainApplication.getLayerManager().getEditLayer() != null && MainApplication
                 .getLayerManager().getActiveLayer().equals(MainApplication.getLayerManager().getEditLayer())
@@ -172,12 +228,23 @@ public final class Util {
      * @return boolean
      */
     public static boolean containsLatLon(final MapView mapView, final LatLon latLon) {
+        return containsLatLon(mapView,
+                displayedDataSourceBounds(PreferenceManager.getInstance().loadMapViewSettings()), latLon);
+    }
+
+    /**
+     * Verifies if the given mapView contains or not the given coordinate, see {@link #containsLatLon(MapView, LatLon)}.
+     *
+     * @param mapView the current {@code MapView}
+     * @param dataSourceBounds the bounds returned by {@link #displayedDataSourceBounds(MapViewSettings)}
+     * @param latLon the coordinate to be checked
+     * @return boolean
+     */
+    public static boolean containsLatLon(final MapView mapView, final List<Bounds> dataSourceBounds,
+            final LatLon latLon) {
         boolean contains = false;
-        final MapViewSettings mapViewSettings = PreferenceManager.getInstance().loadMapViewSettings();
-        final OsmDataLayer osmDataLayer = MainApplication.getLayerManager().getEditLayer();
-        if (mapViewSettings.isDataLoadFlag() && (MainApplication.getLayerManager().getActiveLayer() instanceof OsmDataLayer) && osmDataLayer != null
-                && !osmDataLayer.data.getDataSourceBounds().isEmpty() && osmDataLayer.isVisible()) {
-            for (final Bounds bounds : MainApplication.getLayerManager().getEditLayer().data.getDataSourceBounds()) {
+        if (dataSourceBounds != null) {
+            for (final Bounds bounds : dataSourceBounds) {
                 if (bounds.contains(latLon)) {
                     contains = true;
                     break;
@@ -190,6 +257,24 @@ public final class Util {
         return contains;
     }
 
+    /**
+     * Returns the edit layer data source bounds, if the preference for loading data only inside the active area is
+     * selected and {@code OsmDataLayer} is active, visible and has data.
+     *
+     * @param mapViewSettings the current map view settings
+     * @return a list of {@code Bounds}; null if the elements are visible in the whole map view
+     */
+    public static List<Bounds> displayedDataSourceBounds(final MapViewSettings mapViewSettings) {
+        List<Bounds> result = null;
+        final OsmDataLayer osmDataLayer = MainApplication.getLayerManager().getEditLayer();
+        if (mapViewSettings.isDataLoadFlag()
+                && (MainApplication.getLayerManager().getActiveLayer() instanceof OsmDataLayer) && osmDataLayer != null
+                && !osmDataLayer.data.getDataSourceBounds().isEmpty() && osmDataLayer.isVisible()) {
+            result = Collections.unmodifiableList(new ArrayList<>(osmDataLayer.data.getDataSourceBounds()));
+        }
+        return result;
+    }
+
 
     /**
      * Checks if the edit layer contains or not the given way. A way is complete if the edit layer contains the way
@@ -224,56 +309,11 @@ public final class Util {
      * @return a new list of detections remained after filtering
      */
     public static List<Detection> filterDetections(final List<Detection> detections, final DetectionFilter filter) {
-        final List<Detection> filteredDetections = new ArrayList<>();
-        for (final Detection detection : detections) {
-            final boolean osmComparisons = filter.getOsmComparisons() == null || filter.getOsmComparisons()
-                    .contains(detection.getOsmComparison());
-            final boolean editStatus =
-                    filter.getEditStatuses() == null || filter.getEditStatuses().contains(detection.getEditStatus());
-            final boolean signType =
-                    filter.getSignTypes() != null && filter.getSignTypes().contains(detection.getSign().getType());
-            final boolean specificSigns =
-                    filter.getSpecificSigns() != null && filter.getSpecificSigns().contains(detection.getSign());
-            final boolean allDetections = filter.getSignTypes() == null && filter.getSpecificSigns() == null;
-            final boolean modes = filter.getModes() == null || filter.getModes().contains(detection.getMode());
-            if (osmComparisons && editStatus && (allDetections || signType || specificSigns) && modes) {
-                filteredDetections.add(detection);
-            }
-        }
-        return filteredDetections;
+        return detections.stream().filter(filter::matches).collect(Collectors.toList());
     }
 
     public static boolean isDetectionMatchingFilters(final SearchFilter filter, final Detection selectedDetection) {
-        boolean isCorresponding = true;
-        if (selectedDetection != null) {
-            if (filter.getDetectionFilter().getEditStatuses() != null && !filter.getDetectionFilter().getEditStatuses()
-                    .isEmpty() && selectedDetection.getEditStatus() != null && !filter.getDetectionFilter()
-                    .getEditStatuses().contains(selectedDetection.getEditStatus())) {
-                isCorresponding = false;
-            } else if (filter.getDetectionFilter().getOsmComparisons() != null
-                    && selectedDetection.getOsmComparison() != null && !filter.getDetectionFilter().getOsmComparisons()
-                    .isEmpty() && !filter.getDetectionFilter().getOsmComparisons()
-                    .contains(selectedDetection.getOsmComparison())) {
-                isCorresponding = false;
-            } else if (filter.getDetectionFilter().getModes() != null && selectedDetection.getMode() != null && !filter
-                    .getDetectionFilter().getModes().isEmpty() && !filter.getDetectionFilter().getModes()
-                    .contains(selectedDetection.getMode())) {
-                isCorresponding = false;
-            } else if (filter.getDetectionFilter().getSignTypes() != null) {
-                final List<String> matchedSignNames = filter.getDetectionFilter().getSignTypes().stream().
-                        filter(s -> s.equals(selectedDetection.getSign().getType())).collect(Collectors.toList());
-                if (matchedSignNames.size() != 1)
-                    isCorresponding = false;
-            } else if (filter.getDetectionFilter().getSpecificSigns() != null) {
-                final List<Sign> matchedSignNames = filter.getDetectionFilter().getSpecificSigns().stream().
-                        filter(s -> s.getName().equals(selectedDetection.getSign().getName()))
-                        .collect(Collectors.toList());
-                if (matchedSignNames.isEmpty())
-                    isCorresponding = false;
-            }
-        }
-
-        return isCorresponding;
+        return selectedDetection == null || filter.getDetectionFilter().matches(selectedDetection);
     }
 
     public static boolean checkFrontFacingDisplay(final Detection detection) {
@@ -30,6 +30,33 @@ public final class Config extends BaseConfig {
     private static final int AUTOPLAY_MAX_DELAY = 2000;
     private static final double FACING_THRESHOLD = 30.0;
     private static final double DISTANCE_THRESHOLD = 30.0;
+    private static final int PHOTO_DECLUTTER_CELL_SIZE = 24;
+    private static final int PHOTO_DECLUTTER_THRESHOLD = 500;
+    private static final double DELTA_LOAD_MAX_EXPOSED_RATIO = 0.5;
+    private static final double DELTA_LOAD_RETAINED_MARGIN = 0.5;
+    private static final double DATA_BOUNDS_REQUEST_COST = 0.25;
+    private static final boolean PREFETCH_ENABLED = true;
+    private static final int PREFETCH_TTL = 60000;
+    private static final int REFRESH_DELAY = 1000;
+    private static final int REFRESH_MIN_DELAY = 200;
+    private static final int REFRESH_MAX_DELAY = 2000;
+    private static final int SEGMENT_TILES_ZOOM_OFFSET = 3;
+    private static final int SEGMENT_TILES_MAX_TILES = 256;
+    private static final int SEGMENT_TILES_MAX_AGE = 600000;
+    private static final int VIEWPORT_CACHE_MAX_ENTRIES = 8;
+    private static final int VIEWPORT_CACHE_MAX_AGE = 600000;
+    private static final int SERVICE_MEMO_TTL = 30000;
+    private static final boolean SERVICE_HEDGE_ENABLED = true;
+    private static final double SERVICE_HEDGE_PERCENTILE = 95.0;
+    private static final double SERVICE_HEDGE_BUDGET = 0.1;
+    private static final int SERVICE_HEDGE_MIN_DELAY = 100;
+    private static final double OFFLINE_TILE_SIZE = 0.02;
+    private static final int OFFLINE_MAX_TILES = 100;
+    private static final int OFFLINE_MAX_PARALLEL_REQUESTS = 4;
+    private static final int OFFLINE_MAX_SEQUENCES = 200;
+    private static final int OFFLINE_MAX_CLUSTERS = 500;
+    private static final int OFFLINE_MAX_PHOTOS = 2000;
+    private static final int OFFLINE_MAX_AGE = 604800000;
 
 
     private final int closestPhotosMaxItems;
@@ -43,6 +70,34 @@ public final class Config extends BaseConfig {
     private final int autoplayMaxDelay;
     private final double clusterFacingThreshold;
     private final double clusterDistanceThreshold;
+    private final int photoDeclutterCellSize;
+    private final int photoDeclutterThreshold;
+    private final double deltaLoadMaxExposedRatio;
+    private final double deltaLoadRetainedMargin;
+    private final double dataBoundsRequestCost;
+    private final boolean prefetchEnabled;
+    private final int prefetchTtl;
+    private final int refreshDelay;
+    private final int refreshMinDelay;
+    private final int refreshMaxDelay;
+    private final int segmentTilesZoomOffset;
+    private final int segmentTilesMaxTiles;
+    private final int segmentTilesMaxAge;
+    private final boolean viewportCacheEnabled;
+    private final int viewportCacheMaxEntries;
+    private final int viewportCacheMaxAge;
+    private final int serviceMemoTtl;
+    private final boolean serviceHedgeEnabled;
+    private final double serviceHedgePercentile;
+    private final double serviceHedgeBudget;
+    private final int serviceHedgeMinDelay;
+    private final double offlineTileSize;
+    private final int offlineMaxTiles;
+    private final int offlineMaxParallelRequests;
+    private final int offlineMaxSequences;
+    private final int offlineMaxClusters;
+    private final int offlineMaxPhotos;
+    private final int offlineMaxAge;
     private final boolean debugLoggingEnabled;
 
 
@@ -62,6 +117,39 @@ public final class Config extends BaseConfig {
         clusterFacingThreshold = readDoubleProperty("cluster.facing.threshold", FACING_THRESHOLD);
         clusterDistanceThreshold = readDoubleProperty("cluster.distance.threshold", DISTANCE_THRESHOLD);
 
+        photoDeclutterCellSize = readIntegerProperty("map.photoDeclutter.cellSize", PHOTO_DECLUTTER_CELL_SIZE);
+        photoDeclutterThreshold = readIntegerProperty("map.photoDeclutter.threshold", PHOTO_DECLUTTER_THRESHOLD);
+
+        deltaLoadMaxExposedRatio =
+                readDoubleProperty("map.deltaLoad.maxExposedRatio", DELTA_LOAD_MAX_EXPOSED_RATIO);
+        deltaLoadRetainedMargin = readDoubleProperty("map.deltaLoad.retainedMargin", DELTA_LOAD_RETAINED_MARGIN);
+        dataBoundsRequestCost = readDoubleProperty("map.dataBounds.requestCost", DATA_BOUNDS_REQUEST_COST);
+        prefetchEnabled = readBooleanProperty("map.prefetch.enabled", PREFETCH_ENABLED);
+        prefetchTtl = readIntegerProperty("map.prefetch.ttl", PREFETCH_TTL);
+        refreshDelay = readIntegerProperty("map.refresh.delay", REFRESH_DELAY);
+        refreshMinDelay = readIntegerProperty("map.refresh.minDelay", REFRESH_MIN_DELAY);
+        refreshMaxDelay = readIntegerProperty("map.refresh.maxDelay", REFRESH_MAX_DELAY);
+        segmentTilesZoomOffset = readIntegerProperty("map.segmentTiles.zoomOffset", SEGMENT_TILES_ZOOM_OFFSET);
+        segmentTilesMaxTiles = readIntegerProperty("map.segmentTiles.maxTiles", SEGMENT_TILES_MAX_TILES);
+        segmentTilesMaxAge = readIntegerProperty("map.segmentTiles.maxAge", SEGMENT_TILES_MAX_AGE);
+        viewportCacheEnabled = Boolean.parseBoolean(readProperty("map.viewportCache.enabled"));
+        viewportCacheMaxEntries = readIntegerProperty("map.viewportCache.maxEntries", VIEWPORT_CACHE_MAX_ENTRIES);
+        viewportCacheMaxAge = readIntegerProperty("map.viewportCache.maxAge", VIEWPORT_CACHE_MAX_AGE);
+
+        serviceMemoTtl = readIntegerProperty("service.memo.ttl", SERVICE_MEMO_TTL);
+        serviceHedgeEnabled = readBooleanProperty("service.hedge.enabled", SERVICE_HEDGE_ENABLED);
+        serviceHedgePercentile = readDoubleProperty("service.hedge.percentile", SERVICE_HEDGE_PERCENTILE);
+        serviceHedgeBudget = readDoubleProperty("service.hedge.budget", SERVICE_HEDGE_BUDGET);
+        serviceHedgeMinDelay = readIntegerProperty("service.hedge.minDelay", SERVICE_HEDGE_MIN_DELAY);
+
+        offlineTileSize = readDoubleProperty("offline.tileSize", OFFLINE_TILE_SIZE);
+        offlineMaxTiles = readIntegerProperty("offline.maxTiles", OFFLINE_MAX_TILES);
+        offlineMaxParallelRequests = readIntegerProperty("offline.maxParallelRequests", OFFLINE_MAX_PARALLEL_REQUESTS);
+        offlineMaxSequences = readIntegerProperty("offline.maxSequences", OFFLINE_MAX_SEQUENCES);
+        offlineMaxClusters = readIntegerProperty("offline.maxClusters", OFFLINE_MAX_CLUSTERS);
+        offlineMaxPhotos = readIntegerProperty("offline.maxPhotos", OFFLINE_MAX_PHOTOS);
+        offlineMaxAge = readIntegerProperty("offline.maxAge", OFFLINE_MAX_AGE);
+
         debugLoggingEnabled = Boolean.parseBoolean(readProperty("debug.log.enabled"));
     }
 
@@ -70,6 +158,11 @@ public final class Config extends BaseConfig {
         return INSTANCE;
     }
 
+    private boolean readBooleanProperty(final String key, final boolean defaultValue) {
+        final String value = readProperty(key);
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+
 
     public int getTracksMaxZoom() {
         return tracksMaxZoom;
@@ -115,6 +208,118 @@ public final class Config extends BaseConfig {
         return clusterDistanceThreshold;
     }
 
+    public int getPhotoDeclutterCellSize() {
+        return photoDeclutterCellSize;
+    }
+
+    public int getPhotoDeclutterThreshold() {
+        return photoDeclutterThreshold;
+    }
+
+    public double getDeltaLoadMaxExposedRatio() {
+        return deltaLoadMaxExposedRatio;
+    }
+
+    public double getDeltaLoadRetainedMargin() {
+        return deltaLoadRetainedMargin;
+    }
+
+    public double getDataBoundsRequestCost() {
+        return dataBoundsRequestCost;
+    }
+
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    public int getPrefetchTtl() {
+        return prefetchTtl;
+    }
+
+    public int getRefreshDelay() {
+        return refreshDelay;
+    }
+
+    public int getRefreshMinDelay() {
+        return refreshMinDelay;
+    }
+
+    public int getRefreshMaxDelay() {
+        return refreshMaxDelay;
+    }
+
+    public int getSegmentTilesZoomOffset() {
+        return segmentTilesZoomOffset;
+    }
+
+    public int getSegmentTilesMaxTiles() {
+        return segmentTilesMaxTiles;
+    }
+
+    public int getSegmentTilesMaxAge() {
+        return segmentTilesMaxAge;
+    }
+
+    public boolean isViewportCacheEnabled() {
+        return viewportCacheEnabled;
+    }
+
+    public int getViewportCacheMaxEntries() {
+        return viewportCacheMaxEntries;
+    }
+
+    public int getViewportCacheMaxAge() {
+        return viewportCacheMaxAge;
+    }
+
+    public int getServiceMemoTtl() {
+        return serviceMemoTtl;
+    }
+
+    public boolean isServiceHedgeEnabled() {
+        return serviceHedgeEnabled;
+    }
+
+    public double getServiceHedgePercentile() {
+        return serviceHedgePercentile;
+    }
+
+    public double getServiceHedgeBudget() {
+        return serviceHedgeBudget;
+    }
+
+    public int getServiceHedgeMinDelay() {
+        return serviceHedgeMinDelay;
+    }
+
+    public double getOfflineTileSize() {
+        return offlineTileSize;
+    }
+
+    public int getOfflineMaxTiles() {
+        return offlineMaxTiles;
+    }
+
+    public int getOfflineMaxParallelRequests() {
+        return offlineMaxParallelRequests;
+    }
+
+    public int getOfflineMaxSequences() {
+        return offlineMaxSequences;
+    }
+
+    public int getOfflineMaxClusters() {
+        return offlineMaxClusters;
+    }
+
+    public int getOfflineMaxPhotos() {
+        return offlineMaxPhotos;
+    }
+
+    public int getOfflineMaxAge() {
+        return offlineMaxAge;
+    }
+
     public boolean isDebugLoggingEnabled() {
         return debugLoggingEnabled;
     }
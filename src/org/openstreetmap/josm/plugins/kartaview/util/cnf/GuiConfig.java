@@ -124,6 +124,7 @@ public final class GuiConfig extends BaseConfig {
     private final String errorClusterRetrieveText;
     private final String errorListSignsText;
     private final String errorListRegionsText;
+    private final String errorOfflineAreaText;
 
     private final String incorrectConfidenceFilterText;
     private final String unacceptedConfidenceFilterText;
@@ -134,6 +135,7 @@ public final class GuiConfig extends BaseConfig {
     private final String warningLoadingPhoto;
     private final String warningPhotoCanNotBeLoaded;
     private final String warningDetectionCanNotBeLoaded;
+    private final String warningOfflineAreaTooLarge;
 
     private final String layerDeleteMenuItemLbl;
     private final String layerDeleteMenuItemTlt;
@@ -143,10 +145,13 @@ public final class GuiConfig extends BaseConfig {
     private final String layerNextMenuItemLbl;
     private final String layerPreferenceMenuItemLbl;
     private final String layerSaveSequenceMenuItemLbl;
+    private final String layerStaleDataLbl;
+    private final String layerOfflineAreaMenuItemLbl;
 
     private final String infoMatchedWayTitle;
     private final String infoDownloadNextPhotosTitle;
     private final String infoDownloadPreviousPhotosTitle;
+    private final String infoOfflineAreaTitle;
     private final String infoFileExistsTitle;
     private final String infoFileExistsText;
     private final String gpxTrackDescription;
@@ -316,6 +321,7 @@ public final class GuiConfig extends BaseConfig {
         errorClusterRetrieveText = readProperty("error.cluster.retrieve");
         errorListSignsText = readProperty("error.sign.list");
         errorListRegionsText = readProperty("error.sign.region.list");
+        errorOfflineAreaText = readProperty("error.offlineArea.prepare");
         errorDownloadOsmData = readProperty("error.osmData.download");
         unacceptedDateFilterText = readProperty("error.dateFilter.unaccepted");
         errorPluginVersionText= readProperty("error.plugin.version");
@@ -327,6 +333,7 @@ public final class GuiConfig extends BaseConfig {
         warningDetectionCanNotBeLoaded = readProperty("warning.detection.can.not.be.loaded");
         warningHighQualityPhoto = readProperty("warning.photo.highQuality");
         warningLoadingPhoto = readProperty("warning.photo.loading");
+        warningOfflineAreaTooLarge = readProperty("warning.offlineArea.tooLarge");
 
         layerDeleteMenuItemLbl = readProperty("layer.menu.delete.lbl");
         layerDeleteMenuItemTlt = readProperty("layer.menu.delete.tlt");
@@ -336,10 +343,13 @@ public final class GuiConfig extends BaseConfig {
         layerNextMenuItemLbl = readProperty("layer.menu.next.lbl");
         layerPreferenceMenuItemLbl = readProperty("layer.menu.preference.lbl");
         layerSaveSequenceMenuItemLbl = readProperty("layer.menu.sequence.save");
+        layerStaleDataLbl = readProperty("layer.staleData.lbl");
+        layerOfflineAreaMenuItemLbl = readProperty("layer.menu.offlineArea.lbl");
 
         infoMatchedWayTitle = readProperty("info.matchedWay.title");
         infoDownloadNextPhotosTitle = readProperty("info.download.next.title");
         infoDownloadPreviousPhotosTitle = readProperty("info.download.previous.title");
+        infoOfflineAreaTitle = readProperty("info.offlineArea.title");
         infoFileExistsTitle = readProperty("info.file.exists.title");
         infoFileExistsText = readProperty("info.file.exists.text");
 
@@ -662,6 +672,10 @@ public final class GuiConfig extends BaseConfig {
         return warningPhotoCanNotBeLoaded;
     }
 
+    public String getWarningOfflineAreaTooLarge() {
+        return warningOfflineAreaTooLarge;
+    }
+
     public String getWarningDetectionCanNotBeLoaded() {
         return warningDetectionCanNotBeLoaded;
     }
@@ -738,6 +752,10 @@ public final class GuiConfig extends BaseConfig {
         return errorSequenceSaveText;
     }
 
+    public String getErrorOfflineAreaText() {
+        return errorOfflineAreaText;
+    }
+
     public String getErrorSegmentListText() {
         return errorSegmentListText;
     }
@@ -854,6 +872,10 @@ public final class GuiConfig extends BaseConfig {
         return infoDownloadPreviousPhotosTitle;
     }
 
+    public String getInfoOfflineAreaTitle() {
+        return infoOfflineAreaTitle;
+    }
+
     public String getLayerPreferenceMenuItemLbl() {
         return layerPreferenceMenuItemLbl;
     }
@@ -862,6 +884,14 @@ public final class GuiConfig extends BaseConfig {
         return layerSaveSequenceMenuItemLbl;
     }
 
+    public String getLayerStaleDataLbl() {
+        return layerStaleDataLbl;
+    }
+
+    public String getLayerOfflineAreaMenuItemLbl() {
+        return layerOfflineAreaMenuItemLbl;
+    }
+
     public String getInfoFileExistsTitle() {
         return infoFileExistsTitle;
     }
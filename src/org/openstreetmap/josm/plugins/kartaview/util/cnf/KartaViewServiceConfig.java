@@ -20,6 +20,8 @@ public final class KartaViewServiceConfig extends BaseConfig {
     private static final KartaViewServiceConfig INSTANCE = new KartaViewServiceConfig();
 
     private static final int MAX_ITEMS = 5000;
+    private static final int MAX_PARALLEL_PAGES = 4;
+    private static final int MAX_TOTAL_ITEMS = 10000;
 
     private final String serviceBaseUrl;
     private final String serviceUrl;
@@ -27,7 +29,11 @@ public final class KartaViewServiceConfig extends BaseConfig {
     private final String userPageUrl;
     private final String feedbackUrl;
     private final int nearbyPhotosMaxItems;
+    private final boolean nearbyPhotosAutoPaging;
+    private final int nearbyPhotosMaxTotalItems;
+    private final int nearbyPhotosMaxParallelPages;
     private final int tracksMaxItems;
+    private final int tracksMaxParallelPages;
 
 
     private KartaViewServiceConfig() {
@@ -39,7 +45,11 @@ public final class KartaViewServiceConfig extends BaseConfig {
         userPageUrl = readProperty("service.user.url");
         feedbackUrl = readProperty("feedback.url");
         nearbyPhotosMaxItems = readIntegerProperty("nearbyPhotos.maxItems", MAX_ITEMS);
+        nearbyPhotosAutoPaging = Boolean.parseBoolean(readProperty("nearbyPhotos.autoPaging"));
+        nearbyPhotosMaxTotalItems = readIntegerProperty("nearbyPhotos.maxTotalItems", MAX_TOTAL_ITEMS);
+        nearbyPhotosMaxParallelPages = readIntegerProperty("nearbyPhotos.maxParallelPages", MAX_PARALLEL_PAGES);
         tracksMaxItems = readIntegerProperty("tracks.maxItems", MAX_ITEMS);
+        tracksMaxParallelPages = readIntegerProperty("tracks.maxParallelPages", MAX_PARALLEL_PAGES);
     }
 
 
@@ -71,7 +81,23 @@ public final class KartaViewServiceConfig extends BaseConfig {
         return nearbyPhotosMaxItems;
     }
 
+    public boolean isNearbyPhotosAutoPaging() {
+        return nearbyPhotosAutoPaging;
+    }
+
+    public int getNearbyPhotosMaxTotalItems() {
+        return nearbyPhotosMaxTotalItems;
+    }
+
+    public int getNearbyPhotosMaxParallelPages() {
+        return nearbyPhotosMaxParallelPages;
+    }
+
     public int getTracksMaxItems() {
         return tracksMaxItems;
     }
+
+    public int getTracksMaxParallelPages() {
+        return tracksMaxParallelPages;
+    }
 }
\ No newline at end of file
@@ -328,7 +328,14 @@ public final class PreferenceManager {
         return (JOSM_AUTH_METHOD.equals(key) && JOSM_BASIC_VAL.equals(value)) || JOSM_OAUTH_SECRET.equals(key);
     }
 
-    private boolean isFiltersChangedKey(final String value, final String newValue) {
+    /**
+     * Verifies if the search filters have changed.
+     *
+     * @param value a {@code String} represents the key associated with the preference change event
+     * @param newValue a {@code String} represents the new value associated with the preference change event
+     * @return true if the user changed the search filters; false otherwise
+     */
+    public boolean isFiltersChangedKey(final String value, final String newValue) {
         return FILTER_CHANGED.equals(value) && Boolean.TRUE.toString().equals(newValue);
     }
 
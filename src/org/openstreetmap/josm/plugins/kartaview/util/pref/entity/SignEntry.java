@@ -8,6 +8,7 @@ package org.openstreetmap.josm.plugins.kartaview.util.pref.entity;
 
 import org.openstreetmap.josm.data.StructUtils;
 import org.openstreetmap.josm.plugins.kartaview.entity.Sign;
+import org.openstreetmap.josm.plugins.kartaview.entity.SignCatalog;
 
 
 public class SignEntry {
@@ -36,6 +37,6 @@ public class SignEntry {
     }
 
     public Sign getSign() {
-        return new Sign(name, internalName, iconName, region, type);
+        return SignCatalog.getInstance().resolve(new Sign(name, internalName, iconName, region, type));
     }
 }
\ No newline at end of file
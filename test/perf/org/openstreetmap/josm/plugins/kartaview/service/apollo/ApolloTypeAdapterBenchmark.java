@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.ApolloTypeAdapterFactory;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.Response;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+
+/**
+ * Measures the time needed to read a large search response with the streaming type adapters and with the reflection
+ * based adapters. The response repeats the detections and clusters of the test search response, with distinct
+ * identifiers.
+ * <p>
+ * Usage: {@code ApolloTypeAdapterBenchmark [copies] [iterations]}, run from the project directory.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public final class ApolloTypeAdapterBenchmark {
+
+    private static final String SEARCH_RESPONSE = "test/data/apollo/searchResponse.json";
+    private static final int COPIES = 5000;
+    private static final int ITERATIONS = 20;
+    private static final int WARM_UP_ITERATIONS = 5;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private ApolloTypeAdapterBenchmark() {}
+
+
+    public static void main(final String[] args) throws IOException {
+        final int copies = args.length > 0 ? Integer.parseInt(args[0]) : COPIES;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : ITERATIONS;
+        final String json = largeResponse(copies);
+        final Gson reflectionGson = ApolloService.gsonBuilder().create();
+        final Gson streamingGson =
+                ApolloService.gsonBuilder().registerTypeAdapterFactory(new ApolloTypeAdapterFactory()).create();
+
+        final double reflectionTime = measure(reflectionGson, json, iterations);
+        final double streamingTime = measure(streamingGson, json, iterations);
+        System.out.printf("response size: %d characters, %d iterations%n", json.length(), iterations);
+        System.out.printf("reflection: %.2f ms/read%n", reflectionTime);
+        System.out.printf("streaming:  %.2f ms/read%n", streamingTime);
+        System.out.printf("speedup:    %.2fx%n", reflectionTime / streamingTime);
+    }
+
+    /**
+     * Reads the response the given number of times, after a few reads that are not measured.
+     *
+     * @return the average time of a read, in milliseconds
+     */
+    private static double measure(final Gson gson, final String json, final int iterations) {
+        int itemCount = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            itemCount += read(gson, json);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            itemCount += read(gson, json);
+        }
+        final long time = System.nanoTime() - start;
+        if (itemCount == 0) {
+            throw new IllegalStateException("The response has no items");
+        }
+        return time / NANOS_PER_MILLI / iterations;
+    }
+
+    private static int read(final Gson gson, final String json) {
+        final Response response = gson.fromJson(json, Response.class);
+        return response.getDetections().size() + response.getClusters().size();
+    }
+
+    private static String largeResponse(final int copies) throws IOException {
+        final JsonObject sample = new JsonParser().parse(
+                new String(Files.readAllBytes(Paths.get(SEARCH_RESPONSE)), StandardCharsets.UTF_8))
+                .getAsJsonObject();
+        final JsonObject result = new JsonObject();
+        result.add("detections", repeat(sample.getAsJsonArray("detections"), copies));
+        result.add("clusters", repeat(sample.getAsJsonArray("clusters"), copies));
+        return result.toString();
+    }
+
+    private static JsonArray repeat(final JsonArray items, final int copies) {
+        final JsonArray result = new JsonArray();
+        long id = 1;
+        for (int i = 0; i < copies; i++) {
+            for (final JsonElement item : items) {
+                final JsonObject copy = new JsonParser().parse(item.toString()).getAsJsonObject();
+                copy.addProperty("id", id++);
+                result.add(copy);
+            }
+        }
+        return result;
+    }
+}
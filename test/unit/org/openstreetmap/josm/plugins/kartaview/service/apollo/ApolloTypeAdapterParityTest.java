@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Grabtaxi Holdings PTE LTE (GRAB), All rights reserved.
+ *
+ * Use of this source code is governed by an MIT-style license that can be found in the LICENSE file.
+ *
+ */
+package org.openstreetmap.josm.plugins.kartaview.service.apollo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.openstreetmap.josm.plugins.kartaview.entity.Detection;
+import org.openstreetmap.josm.plugins.kartaview.entity.DetectionShape;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.adapter.ApolloTypeAdapterFactory;
+import org.openstreetmap.josm.plugins.kartaview.service.apollo.entity.Response;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+
+/**
+ * Verifies that the streaming type adapters of the Apollo entities read the same entities as the reflection based
+ * adapters.
+ *
+ * @author beataj
+ * @version $Revision$
+ */
+public class ApolloTypeAdapterParityTest {
+
+    private static final String SEARCH_RESPONSE = "test/data/apollo/searchResponse.json";
+
+    /** the fields that are not used by the plugin, the streaming adapters skip them */
+    private static final List<String> SKIPPED_DETECTION_FIELDS = Arrays.asList("angleFromCenter");
+    private static final List<String> SKIPPED_SHAPE_FIELDS = Arrays.asList("planePolygon", "spherePolygon");
+
+    private final Gson reflectionGson = ApolloService.gsonBuilder().create();
+    private final Gson streamingGson =
+            ApolloService.gsonBuilder().registerTypeAdapterFactory(new ApolloTypeAdapterFactory()).create();
+
+    /** writes all the read fields of the entities, such that two entities can be compared field by field */
+    private final Gson comparisonGson = new GsonBuilder().serializeNulls()
+            .setExclusionStrategies(new ExclusionStrategy() {
+
+                @Override
+                public boolean shouldSkipField(final FieldAttributes field) {
+                    return (field.getDeclaringClass() == Detection.class
+                            && SKIPPED_DETECTION_FIELDS.contains(field.getName()))
+                            || (field.getDeclaringClass() == DetectionShape.class
+                                    && SKIPPED_SHAPE_FIELDS.contains(field.getName()));
+                }
+
+                @Override
+                public boolean shouldSkipClass(final Class<?> type) {
+                    return false;
+                }
+            }).create();
+
+
+    @Test
+    public void readDetections() throws IOException {
+        final String json = readSearchResponse();
+        final Response expected = reflectionGson.fromJson(json, Response.class);
+        final Response actual = streamingGson.fromJson(json, Response.class);
+
+        assertNotNull(actual.getDetections());
+        assertEquals(comparisonGson.toJsonTree(expected.getDetections()),
+                comparisonGson.toJsonTree(actual.getDetections()));
+    }
+
+    @Test
+    public void readClusters() throws IOException {
+        final String json = readSearchResponse();
+        final Response expected = reflectionGson.fromJson(json, Response.class);
+        final Response actual = streamingGson.fromJson(json, Response.class);
+
+        assertNotNull(actual.getClusters());
+        assertEquals(comparisonGson.toJsonTree(expected.getClusters()),
+                comparisonGson.toJsonTree(actual.getClusters()));
+    }
+
+    @Test
+    public void writeDetections() throws IOException {
+        final Response response = reflectionGson.fromJson(readSearchResponse(), Response.class);
+
+        assertEquals(reflectionGson.toJsonTree(response.getDetections()),
+                streamingGson.toJsonTree(response.getDetections()));
+    }
+
+    private static String readSearchResponse() throws IOException {
+        return new String(Files.readAllBytes(Paths.get(SEARCH_RESPONSE)), StandardCharsets.UTF_8);
+    }
+}